@@ -86,8 +86,9 @@ public class AFDForm extends Application {
             // Crear FileChooser para seleccionar archivo
             javafx.stage.FileChooser fileChooser = new javafx.stage.FileChooser();
             fileChooser.setTitle("Cargar AFD");
-            fileChooser.getExtensionFilters().add(
-                new javafx.stage.FileChooser.ExtensionFilter("Archivos AFD", "*.json")
+            fileChooser.getExtensionFilters().addAll(
+                new javafx.stage.FileChooser.ExtensionFilter("Archivos AFD", "*.json"),
+                new javafx.stage.FileChooser.ExtensionFilter("AFD compilado", "*.afdc")
             );
             
             java.io.File file = fileChooser.showOpenDialog(primaryStage);
@@ -0,0 +1,250 @@
+package co.edu.uptc;
+
+import co.edu.uptc.controller.AFDFileController;
+import co.edu.uptc.model.AFD;
+import co.edu.uptc.model.CompiledAFD;
+import co.edu.uptc.model.TextSearcher;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.FileVisitor;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Punto de entrada de línea de comandos (sin interfaz gráfica) para aplicar un AFD guardado
+ * a árboles de directorios completos
+ * El AFD se carga y se compila una sola vez y todos los hilos comparten la versión compilada,
+ * que no se modifica. Los archivos se procesan en paralelo con un número fijo de hilos y el
+ * resultado de cada archivo se escribe en cuanto termina, sin esperar a los demás.
+ *
+ * Uso: MatchMain [opciones] automata.json ruta...
+ *   --count        solo muestra el número de líneas coincidentes de cada archivo
+ *   --search       una línea coincide si contiene una subcadena aceptada (por defecto
+ *                  la línea completa debe ser aceptada)
+ *   --threads N    número de archivos procesados a la vez
+ *   --glob PATRÓN  solo procesa los archivos cuyo nombre cumple el patrón (p. ej. *.log)
+ *
+ * Código de salida: 0 si alguna línea coincide, 1 si ninguna, 2 si hubo errores.
+ */
+public class MatchMain {
+    // Caracteres acumulados por archivo antes de escribirlos en la salida
+    private static final int OUTPUT_BLOCK = 1 << 16;
+    // Archivos pendientes por hilo que el recorrido puede encolar antes de esperar
+    private static final int QUEUED_PER_THREAD = 4;
+    
+    private final CompiledAFD afd;
+    private final TextSearcher searcher;
+    private final boolean countOnly;
+    private final PrintStream out;
+    private final AtomicLong files = new AtomicLong();
+    private final AtomicLong lines = new AtomicLong();
+    private final AtomicLong matches = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+    
+    private MatchMain(CompiledAFD afd, boolean search, boolean countOnly, PrintStream out) {
+        this.afd = afd;
+        this.searcher = search ? new TextSearcher(afd) : null;
+        this.countOnly = countOnly;
+        this.out = out;
+    }
+    
+    public static void main(String[] args) {
+        boolean countOnly = false;
+        boolean search = false;
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        String glob = null;
+        List<String> positional = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--count":
+                        countOnly = true;
+                        break;
+                    case "--search":
+                        search = true;
+                        break;
+                    case "--threads":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "--glob":
+                        glob = args[++i];
+                        break;
+                    default:
+                        positional.add(args[i]);
+                }
+            }
+        } catch (RuntimeException e) {
+            positional.clear();
+        }
+        if (positional.size() < 2 || threads < 1) {
+            System.err.println("Uso: MatchMain [--count] [--search] [--threads N] [--glob PATRÓN] automata.json ruta...");
+            System.exit(2);
+            return;
+        }
+        
+        AFD afd;
+        try {
+            AFDFileController fileController = new AFDFileController();
+            File file = new File(positional.get(0));
+            afd = fileController.isCompiledFile(file) ? fileController.loadCompiledAFD(file) : fileController.loadAFD(file);
+        } catch (IOException e) {
+            System.err.println("Error al cargar el AFD: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+        if (!afd.isValid()) {
+            System.err.println("El AFD no está completamente definido");
+            System.exit(2);
+            return;
+        }
+        
+        MatchMain matcher = new MatchMain(afd.compile(), search, countOnly, System.out);
+        PathMatcher filter = glob != null ? FileSystems.getDefault().getPathMatcher("glob:" + glob) : null;
+        matcher.run(positional.subList(1, positional.size()), filter, threads);
+        
+        System.err.println("Archivos: " + matcher.files.get() + ", líneas: " + matcher.lines.get()
+                + ", coincidencias: " + matcher.matches.get() + ", errores: " + matcher.errors.get());
+        System.exit(matcher.errors.get() > 0 ? 2 : matcher.matches.get() > 0 ? 0 : 1);
+    }
+    
+    /**
+     * Recorre las rutas y reparte los archivos entre los hilos. Un directorio o archivo que
+     * no se puede leer se informa como error y el recorrido sigue con los demás. El número de
+     * archivos encolados está acotado para que un árbol muy grande no llene la memoria.
+     */
+    private void run(List<String> roots, PathMatcher filter, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "afd-match");
+            thread.setDaemon(true);
+            return thread;
+        });
+        Semaphore pending = new Semaphore(threads * QUEUED_PER_THREAD);
+        FileVisitor<Path> visitor = new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) throws IOException {
+                if (attributes.isRegularFile() && (filter == null || filter.matches(path.getFileName()))) {
+                    try {
+                        pending.acquire();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return FileVisitResult.TERMINATE;
+                    }
+                    pool.execute(() -> {
+                        try {
+                            processFile(path);
+                        } finally {
+                            pending.release();
+                        }
+                    });
+                }
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFileFailed(Path path, IOException e) {
+                reportError(path.toString(), e);
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult postVisitDirectory(Path directory, IOException e) {
+                if (e != null) {
+                    reportError(directory.toString(), e);
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        };
+        for (String root : roots) {
+            if (Thread.currentThread().isInterrupted()) {
+                break;
+            }
+            try {
+                Files.walkFileTree(Paths.get(root), visitor);
+            } catch (IOException | RuntimeException e) {
+                reportError(root, e);
+            }
+        }
+        pool.shutdown();
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    /**
+     * Procesa un archivo línea por línea. Las líneas coincidentes se acumulan por bloques
+     * para que la salida de un archivo no se mezcle línea a línea con la de otros.
+     */
+    private void processFile(Path path) {
+        StringBuilder pending = new StringBuilder();
+        long lineCount = 0;
+        long matchCount = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(Files.newInputStream(path), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineCount++;
+                if (matches(line)) {
+                    matchCount++;
+                    if (!countOnly) {
+                        pending.append(path).append(':').append(lineCount).append(':').append(line).append('\n');
+                        if (pending.length() >= OUTPUT_BLOCK) {
+                            write(pending);
+                        }
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            reportError(path.toString(), e);
+            return;
+        } finally {
+            files.incrementAndGet();
+            lines.addAndGet(lineCount);
+            matches.addAndGet(matchCount);
+        }
+        if (countOnly) {
+            pending.append(path).append(':').append(matchCount).append('\n');
+        }
+        write(pending);
+    }
+    
+    private boolean matches(String line) {
+        return searcher != null ? searcher.containsMatch(line) : afd.accepts(line);
+    }
+    
+    private void write(StringBuilder pending) {
+        if (pending.length() > 0) {
+            synchronized (out) {
+                out.append(pending);
+                out.flush();
+            }
+            pending.setLength(0);
+        }
+    }
+    
+    private void reportError(String path, Exception e) {
+        errors.incrementAndGet();
+        synchronized (System.err) {
+            System.err.println("Error en " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package co.edu.uptc.controller;
 
 import co.edu.uptc.model.*;
+import java.util.ArrayList;
 import java.util.Set;
 import java.io.File;
 import java.io.IOException;
@@ -9,8 +10,12 @@ import java.io.IOException;
  * Controlador para manejar la lógica de construcción y manipulación del AFD
  */
 public class AFDController {
+    // Longitud máxima (en símbolos) de las palabras generadas
+    private static final int MAX_GENERATED_LENGTH = 15;
+    
     private AFD currentAFD;
     private AFDFileController fileController;
+    private volatile SavedSnapshot saved; // AFD, versión y hash canónico al guardarlo o cargarlo por última vez
     
     public AFDController() {
         this.currentAFD = new AFD();
@@ -31,12 +36,15 @@ public class AFDController {
             currentAFD = new AFD();
             currentAFD.getAlphabet().clear();
             
-            // Separar por comas y procesar cada símbolo
+            // Separar por comas y procesar cada símbolo o rango (U+XXXX..U+YYYY)
             String[] symbols = symbolsString.trim().split(",");
             for (String symbol : symbols) {
                 String trimmedSymbol = symbol.trim();
-                if (!trimmedSymbol.isEmpty() && trimmedSymbol.length() == 1) {
-                    currentAFD.getAlphabet().addSymbol(trimmedSymbol.charAt(0));
+                int[] range = Alphabet.parseRange(trimmedSymbol);
+                if (range != null) {
+                    currentAFD.getAlphabet().addRange(range[0], range[1]);
+                } else if (!trimmedSymbol.isEmpty() && trimmedSymbol.codePointCount(0, trimmedSymbol.length()) == 1) {
+                    currentAFD.getAlphabet().addCodePoint(trimmedSymbol.codePointAt(0));
                 }
             }
             return true;
@@ -53,7 +61,7 @@ public class AFDController {
         if (currentAFD.getAlphabet() == null) {
             return 0;
         }
-        return currentAFD.getAlphabet().getSymbols().size();
+        return currentAFD.getAlphabet().size();
     }
     
     /**
@@ -108,11 +116,13 @@ public class AFDController {
      */
     public boolean setFinalStates(Set<String> finalStateNames) {
         try {
-            // Limpiar estados finales anteriores
+            // Limpiar estados finales anteriores (por el AFD, para que cuente como modificación)
+            for (State state : new ArrayList<>(currentAFD.getFinalStates())) {
+                currentAFD.removeFinalState(state);
+            }
             for (State state : currentAFD.getStates()) {
                 state.setFinal(false);
             }
-            currentAFD.getFinalStates().clear();
             
             // Establecer nuevos estados finales
             for (String stateName : finalStateNames) {
@@ -161,6 +171,52 @@ public class AFDController {
         }
     }
     
+    /**
+     * Añade una transición para todos los puntos de código de un intervalo del alfabeto
+     * @param fromState estado origen
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @param toState estado destino
+     * @return true si se añadió correctamente
+     */
+    public boolean addTransition(String fromState, int first, int last, String toState) {
+        State from = findState(fromState);
+        State to = findState(toState);
+        return from != null && to != null && addTransition(from, first, last, to);
+    }
+    
+    /**
+     * Añade una transición para todos los puntos de código de un intervalo del alfabeto,
+     * con los estados ya resueltos (por ejemplo, las filas de la matriz de transiciones)
+     * @param from estado origen; debe pertenecer al AFD actual
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @param to estado destino; debe pertenecer al AFD actual
+     * @return true si se añadió, false si algún estado no es del AFD o el intervalo no
+     *         pertenece al alfabeto
+     */
+    public boolean addTransition(State from, int first, int last, State to) {
+        if (!currentAFD.getStates().contains(from) || !currentAFD.getStates().contains(to)
+                || first > last || !currentAFD.getAlphabet().containsRange(first, last)) {
+            return false;
+        }
+        if (first == last && first <= Character.MAX_VALUE) {
+            currentAFD.addTransition(from, (char) first, to);
+        } else {
+            currentAFD.addRangeTransition(from, first, last, to);
+        }
+        return true;
+    }
+    
+    private State findState(String name) {
+        for (State state : currentAFD.getStates()) {
+            if (state.getName().equals(name)) {
+                return state;
+            }
+        }
+        return null;
+    }
+    
     /**
      * Procesa una palabra en el AFD
      * @param word palabra a procesar
@@ -197,16 +253,7 @@ public class AFDController {
         if (currentAFD.getAlphabet().isEmpty()) {
             return "No definido";
         }
-        StringBuilder sb = new StringBuilder();
-        sb.append("{");
-        boolean first = true;
-        for (char symbol : currentAFD.getAlphabet().getSymbols()) {
-            if (!first) sb.append(", ");
-            sb.append(symbol);
-            first = false;
-        }
-        sb.append("}");
-        return sb.toString();
+        return "{" + currentAFD.getAlphabet().formatSymbols() + "}";
     }
     
     /**
@@ -258,6 +305,31 @@ public class AFDController {
         return sb.toString();
     }
     
+    /**
+     * Obtiene un resumen del análisis del AFD: transiciones que faltan, estados
+     * inalcanzables y estados desde los que no se llega a ningún estado final
+     * @return resumen, o cadena vacía si no hay nada que señalar
+     */
+    public String getAnalysisInfo() {
+        java.util.List<String> notes = new java.util.ArrayList<>();
+        long missing = currentAFD.getMissingTransitionCount();
+        if (missing > 0) {
+            notes.add(missing + " transiciones sin definir");
+        }
+        int unreachable = currentAFD.getUnreachableStates().size();
+        if (unreachable > 0) {
+            notes.add(unreachable + " estados inalcanzables");
+        }
+        int dead = currentAFD.getDeadStates().size();
+        if (dead > 0) {
+            notes.add(dead + " estados sin camino a un estado final");
+        }
+        if (!currentAFD.getStates().isEmpty() && currentAFD.acceptsNothing()) {
+            notes.add("no acepta ninguna palabra");
+        }
+        return String.join(", ", notes);
+    }
+    
     /**
      * Genera las primeras N cadenas más cortas aceptadas por el AFD
      * @param maxWords número máximo de palabras a generar
@@ -265,85 +337,154 @@ public class AFDController {
      */
     public java.util.List<String> generateShortestValidWords(int maxWords) {
         java.util.List<String> validWords = new java.util.ArrayList<>();
-        
+        generateShortestValidWords(maxWords, word -> validWords.add(word));
+        return validWords;
+    }
+    
+    /**
+     * Genera las primeras N cadenas más cortas aceptadas por el AFD y las entrega a medida
+     * que se encuentran, ordenadas por longitud y luego alfabéticamente
+     * @param maxWords número máximo de palabras a generar
+     * @param sink recibe cada palabra; si devuelve false la generación se detiene
+     * @return número de palabras entregadas
+     */
+    public int generateShortestValidWords(int maxWords, java.util.function.Predicate<String> sink) {
         if (!isAFDComplete()) {
-            return validWords;
+            return 0;
         }
+        return generateShortestValidWords(currentAFD.compile(), currentAFD.getArtifact(AFD.ACCEPT_DISTANCES),
+                maxWords, sink);
+    }
+    
+    /**
+     * Genera las primeras N cadenas más cortas aceptadas por una versión compilada del AFD.
+     * No lee el AFD, así que puede usarse en otro hilo mientras el AFD se sigue modificando.
+     * @param engine AFD compilado
+     * @param acceptDistances distancia de cada estado a un estado final, de
+     *        {@link CompiledAFD#findAcceptDistances()}
+     * @param maxWords número máximo de palabras a generar
+     * @param sink recibe cada palabra; si devuelve false la generación se detiene
+     * @return número de palabras entregadas
+     */
+    public static int generateShortestValidWords(CompiledAFD engine, int[] acceptDistances, int maxWords,
+                                                 java.util.function.Predicate<String> sink) {
+        int initial = engine.getInitialState();
+        if (initial == CompiledAFD.NO_STATE || acceptDistances[initial] == CompiledAFD.NO_STATE) {
+            return 0;
+        }
+        WordGenerator generator = new WordGenerator(engine, acceptDistances, maxWords, sink);
+        for (int length = acceptDistances[initial]; length <= MAX_GENERATED_LENGTH && !generator.done; length++) {
+            generator.collect(initial, length, new StringBuilder());
+        }
+        return generator.generated;
+    }
+    
+    /**
+     * Búsqueda de las palabras más cortas: para cada longitud, un recorrido en profundidad en
+     * orden de símbolo, así que las palabras salen ordenadas sin guardar una cola de candidatas.
+     * Todos los símbolos de un intervalo llevan al mismo estado, de modo que si el primero no
+     * completa ninguna palabra los demás tampoco se prueban, y cada par (estado, longitud
+     * restante) sin palabras se recuerda para no volver a recorrerlo. El costo depende de las
+     * palabras entregadas y del tamaño del AFD, no del número de símbolos de los rangos.
+     */
+    private static class WordGenerator {
+        private final CompiledAFD engine;
+        private final int[] distances;
+        private final int[] intervals; // {primero, último, columna} de cada intervalo del alfabeto
+        private final java.util.BitSet empty = new java.util.BitSet(); // (longitud, estado) sin palabras
+        private final int maxWords;
+        private final java.util.function.Predicate<String> sink;
+        private int generated;
+        private boolean done;
         
-        // BFS para encontrar las cadenas más cortas
-        java.util.Queue<WordCandidate> queue = new java.util.LinkedList<>();
-        java.util.Set<String> visited = new java.util.HashSet<>();
-        
-        // Empezar con la cadena vacía
-        queue.offer(new WordCandidate("", currentAFD.getInitialState()));
-        
-        Character[] symbols = currentAFD.getAlphabet().getSymbols().toArray(new Character[0]);
-        char[] alphabetArray = new char[symbols.length];
-        for (int i = 0; i < symbols.length; i++) {
-            alphabetArray[i] = symbols[i];
+        WordGenerator(CompiledAFD engine, int[] distances, int maxWords, java.util.function.Predicate<String> sink) {
+            this.engine = engine;
+            this.distances = distances;
+            this.maxWords = maxWords;
+            this.sink = sink;
+            java.util.List<int[]> list = engine.getIntervals();
+            this.intervals = new int[list.size() * 3];
+            for (int i = 0; i < list.size(); i++) {
+                System.arraycopy(list.get(i), 0, intervals, 3 * i, 3);
+            }
+            this.done = maxWords <= 0;
         }
         
-        while (!queue.isEmpty() && validWords.size() < maxWords) {
-            WordCandidate current = queue.poll();
-            String word = current.getWord();
-            State state = current.getState();
-            
-            // Si ya visitamos esta combinación palabra-estado, continuamos
-            String key = word + "|" + state.getName();
-            if (visited.contains(key)) {
-                continue;
+        /**
+         * Entrega las palabras de exactamente la longitud indicada (en símbolos) que llevan
+         * del estado a un estado final
+         * @return true si encontró alguna
+         */
+        boolean collect(int state, int remaining, StringBuilder prefix) {
+            if (remaining == 0) {
+                if (!engine.isAccepting(state)) {
+                    return false;
+                }
+                generated++;
+                done = !sink.test(prefix.toString()) || generated >= maxWords;
+                return true;
             }
-            visited.add(key);
-            
-            // Si estamos en un estado final, añadir la palabra
-            if (currentAFD.getFinalStates().contains(state) && !validWords.contains(word)) {
-                validWords.add(word);
+            int key = remaining * engine.getStateCount() + state;
+            if (empty.get(key)) {
+                return false;
             }
-            
-            // Evitar palabras muy largas para prevenir bucles infinitos
-            if (word.length() < 15) {
-                // Generar nuevas palabras añadiendo cada símbolo del alfabeto
-                for (char symbol : alphabetArray) {
-                    State nextState = currentAFD.getTransitions().getNextState(state, symbol);
-                    if (nextState != null) {
-                        String newWord = word + symbol;
-                        queue.offer(new WordCandidate(newWord, nextState));
+            boolean found = false;
+            for (int i = 0; i < intervals.length && !done; i += 3) {
+                int target = engine.getTransitionTable().next(state, intervals[i + 2]);
+                if (target == CompiledAFD.NO_STATE || distances[target] == CompiledAFD.NO_STATE
+                        || distances[target] > remaining - 1) {
+                    continue;
+                }
+                for (int symbol = intervals[i]; symbol <= intervals[i + 1] && !done; symbol++) {
+                    int mark = prefix.length();
+                    prefix.appendCodePoint(symbol);
+                    boolean any = collect(target, remaining - 1, prefix);
+                    prefix.setLength(mark);
+                    if (!any) {
+                        break;
                     }
+                    found = true;
                 }
             }
-        }
-        
-        // Ordenar por longitud (las más cortas primero)
-        validWords.sort((a, b) -> {
-            if (a.length() != b.length()) {
-                return Integer.compare(a.length(), b.length());
+            if (!found && !done) {
+                empty.set(key);
             }
-            return a.compareTo(b); // Orden lexicográfico para palabras de igual longitud
-        });
-        
-        // Retornar solo las primeras maxWords
-        return validWords.subList(0, Math.min(validWords.size(), maxWords));
+            return found;
+        }
     }
     
     /**
-     * Clase auxiliar para el algoritmo BFS de generación de palabras
+     * Escribe en un archivo, una por línea, todas las palabras aceptadas por el AFD actual
+     * de longitud menor o igual a maxLength. La enumeración se reparte entre varios hilos,
+     * por lo que las palabras no quedan ordenadas.
+     * @param maxLength longitud máxima de las palabras
+     * @param file archivo de destino
+     * @return número de palabras escritas, o -1 si el AFD no está completo o hubo un error
      */
-    private static class WordCandidate {
-        private final String word;
-        private final State state;
-        
-        public WordCandidate(String word, State state) {
-            this.word = word;
-            this.state = state;
+    public long exportAcceptedWords(int maxLength, java.io.File file) {
+        if (!isAFDComplete()) {
+            return -1;
         }
-        
-        public String getWord() {
-            return word;
+        try (java.nio.channels.FileChannel channel = java.nio.channels.FileChannel.open(file.toPath(),
+                java.nio.file.StandardOpenOption.CREATE, java.nio.file.StandardOpenOption.WRITE,
+                java.nio.file.StandardOpenOption.TRUNCATE_EXISTING)) {
+            return new WordEnumerator(currentAFD.compile()).enumerate(maxLength, channel);
+        } catch (java.io.IOException e) {
+            return -1;
         }
-        
-        public State getState() {
-            return state;
+    }
+    
+    /**
+     * Obtiene las estadísticas de memoria de la tabla de transiciones del AFD actual
+     * antes y después de comprimirla (clases de símbolos y vectores peine)
+     * @return estadísticas de compresión, o null si el AFD no está completo
+     */
+    public CompressionStats getCompressionStats() {
+        if (!isAFDComplete()) {
+            return null;
         }
+        TransitionTable table = currentAFD.getArtifact(AFD.COMPRESSED).getTransitionTable();
+        return ((CombTransitionTable) table).getStats();
     }
     
     /**
@@ -353,13 +494,55 @@ public class AFDController {
      */
     public boolean saveAFD(java.io.File file) {
         try {
-            fileController.saveAFD(currentAFD, file);
+            if (fileController.isCompiledFile(file)) {
+                saveCompiledAFD(file);
+            } else {
+                fileController.saveAFD(currentAFD, file);
+                markSaved(currentAFD, currentAFD.getVersion(), currentAFD.canonicalForm().getHash128());
+            }
             return true;
         } catch (java.io.IOException e) {
             return false;
         }
     }
     
+    /**
+     * Guarda el AFD actual en formato binario con la tabla de transiciones comprimida
+     * @param file archivo donde guardar
+     * @return estadísticas de memoria de la tabla guardada
+     * @throws IOException si hay error al escribir el archivo
+     */
+    public CompressionStats saveCompiledAFD(File file) throws IOException {
+        CompressionStats stats = fileController.saveCompiledAFD(currentAFD, file);
+        markSaved(currentAFD, currentAFD.getVersion(), currentAFD.canonicalForm().getHash128());
+        return stats;
+    }
+    
+    /**
+     * Prepara el guardado del AFD actual para hacerlo en otro hilo. Se llama desde el hilo
+     * que modifica el AFD: aquí se toma una copia fija de lo que se va a escribir (la versión
+     * compilada, y el JSON si el archivo no es .afdc), y la escritura solo usa esa copia.
+     * @param file archivo donde guardar (el formato depende de la extensión)
+     * @return escritura pendiente; devuelve las estadísticas de la tabla si el archivo es
+     *         .afdc, o null si es JSON
+     */
+    public java.util.concurrent.Callable<CompressionStats> prepareSave(File file) {
+        AFD afd = currentAFD;
+        long version = afd.getVersion();
+        CompiledAFD engine = afd.compile();
+        String json = fileController.isCompiledFile(file) ? null : fileController.toJson(afd);
+        return () -> {
+            CompressionStats stats = null;
+            if (json == null) {
+                stats = fileController.saveCompiledAFD(engine, file);
+            } else {
+                fileController.writeJson(json, file);
+            }
+            markSaved(afd, version, CanonicalForm.of(engine).getHash128());
+            return stats;
+        };
+    }
+    
     /**
      * Carga un AFD desde un archivo
      * @param file archivo desde donde cargar
@@ -367,13 +550,67 @@ public class AFDController {
      */
     public boolean loadAFD(java.io.File file) {
         try {
-            currentAFD = fileController.loadAFD(file);
+            setLoadedAFD(readAFD(file));
             return true;
         } catch (java.io.IOException e) {
             return false;
         }
     }
     
+    /**
+     * Lee un AFD de un archivo sin cambiar el actual; puede llamarse desde otro hilo
+     * @param file archivo JSON o .afdc
+     * @return AFD leído
+     * @throws IOException si hay error al leer o interpretar el archivo
+     */
+    public AFD readAFD(File file) throws IOException {
+        return fileController.isCompiledFile(file) ?
+               fileController.loadCompiledAFD(file) : fileController.loadAFD(file);
+    }
+    
+    /**
+     * Reemplaza el AFD actual por uno leído con {@link #readAFD(File)} y lo toma como guardado
+     * @param afd AFD leído
+     */
+    public void setLoadedAFD(AFD afd) {
+        currentAFD = afd;
+        markSaved(afd, afd.getVersion(), afd.canonicalForm().getHash128());
+    }
+    
+    private void markSaved(AFD afd, long version, String hash) {
+        saved = new SavedSnapshot(afd, version, hash);
+    }
+    
+    /**
+     * Verifica si el AFD actual cambió desde el último archivo guardado o cargado.
+     * Se compara la versión del AFD ({@link AFD#getVersion()}), así que cuenta cualquier
+     * modificación aunque no cambie el lenguaje aceptado. Un AFD que nunca se guardó ni
+     * se cargó tiene cambios en cuanto tiene algún estado.
+     * @return true si hay cambios sin guardar
+     */
+    public boolean hasUnsavedChanges() {
+        SavedSnapshot snapshot = saved;
+        if (snapshot == null) {
+            return currentAFD.getStates().size() > 0;
+        }
+        return snapshot.afd != currentAFD || snapshot.version != currentAFD.getVersion();
+    }
+    
+    /**
+     * Verifica si el lenguaje aceptado por el AFD actual es distinto al del último archivo
+     * guardado o cargado, comparando las formas canónicas. Sirve como indicación adicional
+     * a {@link #hasUnsavedChanges()}: renombrar estados o añadir estados inalcanzables no
+     * cambia el lenguaje.
+     * @return true si el lenguaje cambió
+     */
+    public boolean hasLanguageChanged() {
+        SavedSnapshot snapshot = saved;
+        if (snapshot == null) {
+            return currentAFD.getStates().size() > 0;
+        }
+        return !snapshot.hash.equals(currentAFD.canonicalForm().getHash128());
+    }
+    
     /**
      * Obtiene el mensaje de error del último intento de cargar/guardar
      * @param file archivo que causó el error
@@ -383,7 +620,13 @@ public class AFDController {
     public String getLastFileError(java.io.File file, boolean isLoading) {
         try {
             if (isLoading) {
-                fileController.loadAFD(file);
+                if (fileController.isCompiledFile(file)) {
+                    fileController.loadCompiledAFD(file);
+                } else {
+                    fileController.loadAFD(file);
+                }
+            } else if (fileController.isCompiledFile(file)) {
+                fileController.saveCompiledAFD(currentAFD, file);
             } else {
                 fileController.saveAFD(currentAFD, file);
             }
@@ -392,4 +635,19 @@ public class AFDController {
             return e.getMessage();
         }
     }
+    
+    /**
+     * AFD tal como quedó al guardarlo o cargarlo: la instancia, su versión y su hash canónico
+     */
+    private static final class SavedSnapshot {
+        final AFD afd;
+        final long version;
+        final String hash;
+        
+        SavedSnapshot(AFD afd, long version, String hash) {
+            this.afd = afd;
+            this.version = version;
+            this.hash = hash;
+        }
+    }
 }
\ No newline at end of file
@@ -3,12 +3,20 @@ package co.edu.uptc.controller;
 import co.edu.uptc.model.*;
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
  * Controlador para manejar la serialización y deserialización de AFDs en formato JSON simple
+ * y en formato binario compilado (.afdc)
  */
 public class AFDFileController {
+    /** Extensión de los archivos binarios compilados */
+    public static final String COMPILED_EXTENSION = ".afdc";
+    
+    // Identificador y versión del formato binario
+    private static final int COMPILED_MAGIC = 0x41464443; // "AFDC"
+    private static final int COMPILED_VERSION = 2;
     
     /**
      * Guarda un AFD en un archivo JSON
@@ -17,7 +25,29 @@ public class AFDFileController {
      * @throws IOException si hay error al escribir el archivo
      */
     public void saveAFD(AFD afd, File file) throws IOException {
-        try (PrintWriter writer = new PrintWriter(new FileWriter(file))) {
+        writeJson(toJson(afd), file);
+    }
+    
+    /**
+     * Escribe en un archivo un AFD ya convertido a JSON con {@link #toJson(AFD)}
+     * @param json contenido del archivo
+     * @param file archivo de destino
+     * @throws IOException si hay error al escribir el archivo
+     */
+    public void writeJson(String json, File file) throws IOException {
+        try (Writer writer = new FileWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(json);
+        }
+    }
+    
+    /**
+     * Convierte un AFD al formato JSON de los archivos
+     * @param afd AFD a convertir
+     * @return contenido JSON
+     */
+    public String toJson(AFD afd) {
+        StringWriter json = new StringWriter();
+        try (PrintWriter writer = new PrintWriter(json)) {
             writer.println("{");
             
             // Alfabeto
@@ -30,6 +60,18 @@ public class AFDFileController {
             }
             writer.println("],");
             
+            // Rangos del alfabeto (solo si existen, para mantener el formato anterior)
+            List<int[]> alphabetRanges = afd.getAlphabet().getRanges();
+            if (!alphabetRanges.isEmpty()) {
+                writer.print("  \"alphabetRanges\": [");
+                for (int i = 0; i < alphabetRanges.size(); i++) {
+                    int[] range = alphabetRanges.get(i);
+                    writer.print("\"" + Alphabet.formatRange(range[0], range[1]) + "\"");
+                    if (i < alphabetRanges.size() - 1) writer.print(", ");
+                }
+                writer.println("],");
+            }
+            
             // Estados
             writer.print("  \"states\": [");
             List<String> statesList = new ArrayList<>();
@@ -63,16 +105,18 @@ public class AFDFileController {
             // Transiciones
             writer.println("  \"transitions\": [");
             List<String> transitionsList = new ArrayList<>();
-            for (State fromState : afd.getStates()) {
-                for (Character symbol : afd.getAlphabet().getSymbols()) {
-                    State toState = afd.getTransitions().getNextState(fromState, symbol);
-                    if (toState != null) {
-                        transitionsList.add(String.format(
-                            "    {\"from\": \"%s\", \"symbol\": \"%s\", \"to\": \"%s\"}",
-                            fromState.getName(), symbol, toState.getName()
-                        ));
-                    }
-                }
+            for (Map.Entry<TransitionFunction.TransitionKey, State> entry : afd.getTransitions().getTransitions().entrySet()) {
+                transitionsList.add(String.format(
+                    "    {\"from\": \"%s\", \"symbol\": \"%s\", \"to\": \"%s\"}",
+                    entry.getKey().getState().getName(), entry.getKey().getSymbol(), entry.getValue().getName()
+                ));
+            }
+            for (TransitionFunction.RangeTransition range : afd.getTransitions().getRangeTransitions()) {
+                transitionsList.add(String.format(
+                    "    {\"from\": \"%s\", \"range\": \"%s\", \"to\": \"%s\"}",
+                    range.getState().getName(), Alphabet.formatRange(range.getFirst(), range.getLast()),
+                    range.getTarget().getName()
+                ));
             }
             for (int i = 0; i < transitionsList.size(); i++) {
                 writer.print(transitionsList.get(i));
@@ -82,6 +126,7 @@ public class AFDFileController {
             writer.println("  ]");
             writer.println("}");
         }
+        return json.toString();
     }
     
     /**
@@ -91,9 +136,19 @@ public class AFDFileController {
      * @throws IOException si hay error al leer el archivo
      */
     public AFD loadAFD(File file) throws IOException {
+        return loadAFD(new FileReader(file, StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Carga un AFD en formato JSON desde un flujo de caracteres, que se cierra al terminar
+     * @param source fuente del JSON
+     * @return AFD cargado
+     * @throws IOException si hay error al leer
+     */
+    public AFD loadAFD(Reader source) throws IOException {
         AFD afd = new AFD();
         
-        try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+        try (BufferedReader reader = new BufferedReader(source)) {
             String line;
             boolean inTransitions = false;
             
@@ -102,6 +157,8 @@ public class AFDFileController {
                 
                 if (line.startsWith("\"alphabet\":")) {
                     parseAlphabet(line, afd);
+                } else if (line.startsWith("\"alphabetRanges\":")) {
+                    parseAlphabetRanges(line, afd);
                 } else if (line.startsWith("\"states\":")) {
                     parseStates(line, afd);
                 } else if (line.startsWith("\"initialState\":")) {
@@ -119,15 +176,208 @@ public class AFDFileController {
         return afd;
     }
     
+    /**
+     * Verifica si un archivo usa el formato binario compilado
+     * @param file archivo a verificar
+     * @return true si la extensión es .afdc
+     */
+    public boolean isCompiledFile(File file) {
+        return file.getName().toLowerCase().endsWith(COMPILED_EXTENSION);
+    }
+    
+    /**
+     * Guarda un AFD en formato binario con la tabla de transiciones comprimida
+     * (clases de símbolos y vectores peine)
+     * @param afd AFD a guardar
+     * @param file archivo de destino
+     * @return estadísticas de memoria de la tabla antes y después de comprimir
+     * @throws IOException si hay error al escribir el archivo
+     */
+    public CompressionStats saveCompiledAFD(AFD afd, File file) throws IOException {
+        return saveCompiledAFD(afd.getArtifact(AFD.COMPRESSED), file);
+    }
+    
+    /**
+     * Guarda una versión compilada de un AFD en formato binario. No lee el AFD de origen,
+     * así que puede usarse en otro hilo mientras el AFD se sigue modificando.
+     * @param compiled AFD compilado (se comprime si su tabla no está comprimida)
+     * @param file archivo de destino
+     * @return estadísticas de memoria de la tabla antes y después de comprimir
+     * @throws IOException si hay error al escribir el archivo
+     */
+    public CompressionStats saveCompiledAFD(CompiledAFD compiled, File file) throws IOException {
+        CompiledAFD engine = compiled.compress();
+        CombTransitionTable table = (CombTransitionTable) engine.getTransitionTable();
+        
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(COMPILED_MAGIC);
+            out.writeInt(COMPILED_VERSION);
+            
+            // Estados, estado inicial y estados finales
+            out.writeInt(engine.getStateCount());
+            for (int s = 0; s < engine.getStateCount(); s++) {
+                out.writeUTF(engine.getState(s).getName());
+                out.writeBoolean(engine.isAccepting(s));
+            }
+            out.writeInt(engine.getInitialState());
+            
+            // Alfabeto como intervalos de puntos de código con su columna (clase)
+            List<int[]> intervals = engine.getIntervals();
+            out.writeInt(intervals.size());
+            for (int[] interval : intervals) {
+                out.writeInt(interval[0]);
+                out.writeInt(interval[1]);
+                out.writeInt(interval[2]);
+            }
+            
+            // Tabla de transiciones comprimida
+            table.writeTo(out);
+        }
+        return table.getStats();
+    }
+    
+    /**
+     * Carga un AFD desde un archivo binario creado con {@link #saveCompiledAFD(AFD, File)}
+     * @param file archivo fuente
+     * @return AFD cargado
+     * @throws IOException si hay error al leer el archivo o el formato no es válido
+     */
+    public AFD loadCompiledAFD(File file) throws IOException {
+        return loadCompiledAFD(new FileInputStream(file));
+    }
+    
+    /**
+     * Carga un AFD en formato binario compilado desde un flujo de bytes, que se cierra al terminar
+     * @param source fuente de los datos
+     * @return AFD cargado
+     * @throws IOException si hay error al leer o el formato no es válido
+     */
+    public AFD loadCompiledAFD(InputStream source) throws IOException {
+        AFD afd = new AFD();
+        
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(source))) {
+            if (in.readInt() != COMPILED_MAGIC) {
+                throw new IOException("El archivo no es un AFD compilado");
+            }
+            int version = in.readInt();
+            if (version != COMPILED_VERSION) {
+                throw new IOException("Versión de AFD compilado no soportada: " + version);
+            }
+            
+            int stateCount = in.readInt();
+            State[] states = new State[stateCount];
+            for (int s = 0; s < stateCount; s++) {
+                states[s] = new State(in.readUTF());
+                afd.addState(states[s]);
+                if (in.readBoolean()) {
+                    afd.addFinalState(states[s]);
+                }
+            }
+            int initial = in.readInt();
+            if (initial >= 0 && initial < stateCount) {
+                afd.setInitialState(states[initial]);
+            }
+            
+            int intervalCount = in.readInt();
+            int[] first = new int[intervalCount];
+            int[] last = new int[intervalCount];
+            int[] columns = new int[intervalCount];
+            for (int i = 0; i < intervalCount; i++) {
+                first[i] = in.readInt();
+                last[i] = in.readInt();
+                columns[i] = in.readInt();
+                if (first[i] < 0 || last[i] > Character.MAX_CODE_POINT || first[i] > last[i]) {
+                    throw new IOException("Intervalo de símbolos no válido");
+                }
+                addSymbols(afd, first[i], last[i]);
+            }
+            
+            // Expandir la tabla comprimida a la función de transición
+            CombTransitionTable table = CombTransitionTable.readFrom(in);
+            if (table.getStateCount() != stateCount) {
+                throw new IOException("La tabla de transiciones no corresponde a los estados del AFD");
+            }
+            for (int s = 0; s < stateCount; s++) {
+                for (int i = 0; i < intervalCount; i++) {
+                    if (columns[i] < 0 || columns[i] >= table.getColumnCount()) {
+                        throw new IOException("Columna no válida para el intervalo "
+                                + Alphabet.formatRange(first[i], last[i]));
+                    }
+                    int target = table.next(s, columns[i]);
+                    if (target != CompiledAFD.NO_STATE) {
+                        addTransitions(afd, states[s], first[i], last[i], states[target]);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            throw new IOException("El archivo compilado está incompleto", e);
+        }
+        
+        return afd;
+    }
+    
+    /**
+     * Añade un intervalo de puntos de código al alfabeto; los símbolos individuales del
+     * plano básico se guardan como símbolos y el resto como rango
+     */
+    private void addSymbols(AFD afd, int first, int last) {
+        if (first == last) {
+            afd.getAlphabet().addCodePoint(first);
+        } else {
+            afd.getAlphabet().addRange(first, last);
+        }
+    }
+    
+    /**
+     * Añade las transiciones de un intervalo: individual si es un solo símbolo del plano básico,
+     * por rango en otro caso
+     */
+    private void addTransitions(AFD afd, State from, int first, int last, State to) {
+        if (first == last && first <= Character.MAX_VALUE) {
+            afd.addTransition(from, (char) first, to);
+        } else {
+            afd.addRangeTransition(from, first, last, to);
+        }
+    }
+    
     private void parseAlphabet(String line, AFD afd) {
         String alphabetPart = extractArrayContent(line);
         String[] symbols = alphabetPart.split(",");
         for (String symbol : symbols) {
             symbol = symbol.trim().replace("\"", "");
             if (!symbol.isEmpty()) {
-                afd.getAlphabet().addSymbol(symbol.charAt(0));
+                afd.getAlphabet().addCodePoint(symbol.codePointAt(0));
+            }
+        }
+    }
+    
+    private void parseAlphabetRanges(String line, AFD afd) throws IOException {
+        String rangesPart = extractArrayContent(line);
+        for (String range : rangesPart.split(",")) {
+            range = range.trim().replace("\"", "");
+            if (!range.isEmpty()) {
+                int[] bounds = parseRange(range);
+                afd.getAlphabet().addRange(bounds[0], bounds[1]);
+            }
+        }
+    }
+    
+    /**
+     * Interpreta un rango en notación U+XXXX..U+YYYY con {@link Alphabet#parseRange(String)}
+     * @param range texto del rango
+     * @return arreglo {primero, último}
+     * @throws IOException si el rango no es válido
+     */
+    private int[] parseRange(String range) throws IOException {
+        try {
+            int[] bounds = Alphabet.parseRange(range);
+            if (bounds != null) {
+                return bounds;
             }
+        } catch (IllegalArgumentException e) {
+            // Se informa abajo como rango no válido
         }
+        throw new IOException("Rango de símbolos no válido: " + range);
     }
     
     private void parseStates(String line, AFD afd) {
@@ -169,17 +419,23 @@ public class AFDFileController {
         }
     }
     
-    private void parseTransition(String line, AFD afd) {
-        // Formato: {"from": "q0", "symbol": "a", "to": "q1"}
+    private void parseTransition(String line, AFD afd) throws IOException {
+        // Formato: {"from": "q0", "symbol": "a", "to": "q1"} o {"from": "q0", "range": "U+0041..U+005A", "to": "q1"}
         String fromState = extractJsonValue(line, "from");
         String symbolStr = extractJsonValue(line, "symbol");
+        String rangeStr = extractJsonValue(line, "range");
         String toState = extractJsonValue(line, "to");
         
-        if (!fromState.isEmpty() && !symbolStr.isEmpty() && !toState.isEmpty()) {
+        if (!fromState.isEmpty() && (!symbolStr.isEmpty() || !rangeStr.isEmpty()) && !toState.isEmpty()) {
             State from = findState(afd, fromState);
             State to = findState(afd, toState);
             if (from != null && to != null) {
-                afd.addTransition(from, symbolStr.charAt(0), to);
+                if (!rangeStr.isEmpty()) {
+                    int[] bounds = parseRange(rangeStr);
+                    afd.addRangeTransition(from, bounds[0], bounds[1], to);
+                } else {
+                    addTransitions(afd, from, symbolStr.codePointAt(0), symbolStr.codePointAt(0), to);
+                }
             }
         }
     }
@@ -0,0 +1,279 @@
+package co.edu.uptc.controller;
+
+import co.edu.uptc.model.AFD;
+import co.edu.uptc.model.CanonicalForm;
+import co.edu.uptc.model.CompiledAFD;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registro en memoria de AFD compilados cargados desde archivos
+ * Cada archivo se identifica por el hash SHA-256 de su contenido, así que un mismo archivo
+ * (o una copia) solo se interpreta y compila una vez, aunque lo pidan varios hilos a la vez:
+ * el primero lo carga y los demás esperan ese mismo resultado. Las entradas se guardan por la
+ * forma canónica del AFD ({@link CanonicalForm}), que no depende de los nombres de los estados
+ * ni del orden en que se definieron y se compara byte a byte, así que dos autómatas distintos
+ * nunca comparten entrada por una colisión de hash. Archivos distintos que describen el mismo
+ * lenguaje (otro formato, otro orden o espaciado, estados renombrados) comparten una sola
+ * copia en memoria: la del primero que se cargó.
+ *
+ * Cuando la memoria estimada de los AFD guardados supera el presupuesto se descartan los
+ * menos usados recientemente. Los AFD compilados devueltos no se modifican y pueden usarse
+ * desde varios hilos.
+ */
+public class AFDRegistry {
+    /** Presupuesto de memoria por defecto (64 MB) */
+    public static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+    
+    private final AFDFileController fileController = new AFDFileController();
+    private final long memoryBudget;
+    
+    // Entradas por forma canónica del AFD, en orden de uso (la primera es la menos usada)
+    private final LinkedHashMap<CanonicalForm, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // Hash del contenido de un archivo -> forma canónica del AFD que describe
+    private final Map<String, CanonicalForm> contentKeys = new HashMap<>();
+    // Cargas en curso por hash de contenido
+    private final ConcurrentHashMap<String, CompletableFuture<CompiledAFD>> loading = new ConcurrentHashMap<>();
+    
+    private long memoryBytes;
+    private long hits;
+    private long misses;
+    private long shared;
+    private long evictions;
+    
+    /**
+     * Constructor con el presupuesto de memoria por defecto
+     */
+    public AFDRegistry() {
+        this(DEFAULT_MEMORY_BUDGET);
+    }
+    
+    /**
+     * Constructor del registro
+     * @param memoryBudget memoria máxima estimada (en bytes) de los AFD guardados
+     */
+    public AFDRegistry(long memoryBudget) {
+        if (memoryBudget <= 0) {
+            throw new IllegalArgumentException("El presupuesto de memoria debe ser positivo");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+    
+    /**
+     * Obtiene el AFD compilado de un archivo JSON o .afdc, cargándolo solo si su contenido
+     * no está ya en el registro
+     * @param file archivo del AFD
+     * @return AFD compilado (compartido, no debe modificarse)
+     * @throws IOException si hay error al leer o interpretar el archivo
+     */
+    public CompiledAFD get(File file) throws IOException {
+        byte[] content = Files.readAllBytes(file.toPath());
+        String key = contentHash(content);
+        CompiledAFD cached = lookup(key);
+        if (cached != null) {
+            return cached;
+        }
+        
+        CompletableFuture<CompiledAFD> load = new CompletableFuture<>();
+        CompletableFuture<CompiledAFD> running = loading.putIfAbsent(key, load);
+        if (running != null) {
+            // Otro hilo ya lo está cargando: esperar su resultado
+            synchronized (this) {
+                hits++;
+            }
+            return await(running);
+        }
+        try {
+            // Puede haber terminado otra carga entre la consulta y el registro de esta
+            cached = lookup(key);
+            if (cached == null) {
+                synchronized (this) {
+                    misses++;
+                }
+                AFD afd = fileController.isCompiledFile(file)
+                        ? fileController.loadCompiledAFD(new ByteArrayInputStream(content))
+                        : fileController.loadAFD(new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8));
+                cached = store(key, afd.compile(), afd.canonicalForm());
+            }
+            load.complete(cached);
+            return cached;
+        } catch (IOException | RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, load);
+        }
+    }
+    
+    private static CompiledAFD await(CompletableFuture<CompiledAFD> load) throws IOException {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw new IOException(e.getCause().getMessage(), e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * Busca un contenido ya cargado y lo marca como usado
+     */
+    private synchronized CompiledAFD lookup(String key) {
+        CanonicalForm canonical = contentKeys.get(key);
+        if (canonical == null) {
+            return null;
+        }
+        hits++;
+        return entries.get(canonical).afd;
+    }
+    
+    /**
+     * Guarda un AFD recién cargado, o reutiliza la copia existente si ya hay uno equivalente,
+     * y descarta los menos usados si se supera el presupuesto
+     */
+    private synchronized CompiledAFD store(String key, CompiledAFD afd, CanonicalForm canonical) {
+        Entry entry = entries.get(canonical);
+        if (entry != null) {
+            shared++;
+        } else {
+            entry = new Entry(afd, canonical);
+            entries.put(canonical, entry);
+            memoryBytes += entry.bytes;
+        }
+        entry.contentKeys.add(key);
+        contentKeys.put(key, canonical);
+        
+        // Descartar desde el menos usado; la entrada recién usada se conserva siempre
+        Iterator<Map.Entry<CanonicalForm, Entry>> eldest = entries.entrySet().iterator();
+        while (memoryBytes > memoryBudget && entries.size() > 1) {
+            Entry victim = eldest.next().getValue();
+            eldest.remove();
+            memoryBytes -= victim.bytes;
+            for (String contentKey : victim.contentKeys) {
+                contentKeys.remove(contentKey);
+            }
+            evictions++;
+        }
+        return entry.afd;
+    }
+    
+    private static String contentHash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    /**
+     * Elimina todas las entradas (las métricas se conservan)
+     */
+    public synchronized void clear() {
+        entries.clear();
+        contentKeys.clear();
+        memoryBytes = 0;
+    }
+    
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+    
+    /**
+     * Obtiene la memoria estimada de los AFD guardados
+     * @return bytes ocupados por las tablas compiladas
+     */
+    public synchronized long getMemoryBytes() {
+        return memoryBytes;
+    }
+    
+    public long getMemoryBudget() {
+        return memoryBudget;
+    }
+    
+    /**
+     * Obtiene el número de solicitudes atendidas sin cargar el archivo
+     * (incluidas las que esperaron una carga en curso de otro hilo)
+     * @return aciertos
+     */
+    public synchronized long getHits() {
+        return hits;
+    }
+    
+    /**
+     * Obtiene el número de archivos que hubo que interpretar y compilar
+     * @return fallos
+     */
+    public synchronized long getMisses() {
+        return misses;
+    }
+    
+    /**
+     * Obtiene el número de cargas cuyo AFD ya estaba en el registro desde otro archivo
+     * @return cargas que reutilizaron una entrada existente
+     */
+    public synchronized long getSharedLoads() {
+        return shared;
+    }
+    
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+    
+    /**
+     * Obtiene las huellas de los AFD guardados, del menos al más usado recientemente
+     * @return lista de huellas
+     */
+    public synchronized List<Long> getFingerprints() {
+        List<Long> fingerprints = new ArrayList<>(entries.size());
+        for (Entry entry : entries.values()) {
+            fingerprints.add(entry.afd.getFingerprint());
+        }
+        return fingerprints;
+    }
+    
+    @Override
+    public synchronized String toString() {
+        return "AFDRegistry{entradas=" + entries.size() + ", bytes=" + memoryBytes + "/" + memoryBudget
+                + ", aciertos=" + hits + ", fallos=" + misses + ", compartidos=" + shared
+                + ", descartes=" + evictions + "}";
+    }
+    
+    /**
+     * AFD guardado con los hashes de contenido que lo describen
+     */
+    private static final class Entry {
+        private final CompiledAFD afd;
+        private final long bytes;
+        private final List<String> contentKeys = new ArrayList<>();
+        
+        Entry(CompiledAFD afd, CanonicalForm canonical) {
+            this.afd = afd;
+            this.bytes = afd.getMemoryBytes() + canonical.getBytes().length;
+        }
+    }
+}
@@ -1,7 +1,9 @@
 package co.edu.uptc.model;
 
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 /**
  * Representa un Autómata Finito Determinista (AFD)
@@ -18,6 +20,37 @@ public class AFD {
     private TransitionFunction transitions; // δ: función de transición
     private State initialState;            // q0: estado inicial
     private Set<State> finalStates;        // F: estados finales
+    private long modCount;                 // Cambios sobre Q, q0 y F
+    private final ArtifactCache<AFD> artifacts = new ArtifactCache<>(this, this::getVersion);
+    private final AFDAnalysis analysis = new AFDAnalysis(); // Completitud y alcanzabilidad
+    
+    // Estructuras derivadas que se guardan en caché mientras el AFD no cambie
+    
+    /** Tablas de enteros para procesamiento rápido */
+    public static final ArtifactCache.Key<AFD, CompiledAFD> COMPILED =
+        new ArtifactCache.Key<>("AFD compilado", afd -> new CompiledAFD(afd, afd.getVersion()));
+    /** AFD compilado con la tabla comprimida */
+    public static final ArtifactCache.Key<AFD, CompiledAFD> COMPRESSED =
+        new ArtifactCache.Key<>("AFD comprimido", afd -> afd.compile().compress());
+    /** Forma canónica (mínima y renumerada) */
+    public static final ArtifactCache.Key<AFD, CanonicalForm> CANONICAL_FORM =
+        new ArtifactCache.Key<>("forma canónica", afd -> CanonicalForm.of(afd.compile()));
+    /** Distancia de cada estado compilado al estado final más cercano */
+    public static final ArtifactCache.Key<AFD, int[]> ACCEPT_DISTANCES =
+        new ArtifactCache.Key<>("distancias a aceptación", afd -> afd.compile().findAcceptDistances());
+    /** Palabra más corta desde cada estado compilado hasta un estado final */
+    public static final ArtifactCache.Key<AFD, CompletionTable> COMPLETIONS =
+        new ArtifactCache.Key<>("completado", afd -> new CompletionTable(afd.compile(), afd.getArtifact(ACCEPT_DISTANCES)));
+    /** Símbolos y palabras sugeridos para continuar una palabra desde cada estado compilado */
+    public static final ArtifactCache.Key<AFD, AutocompleteIndex> AUTOCOMPLETE =
+        new ArtifactCache.Key<>("autocompletado", afd -> new AutocompleteIndex(
+            afd.compile(), afd.getArtifact(COMPLETIONS), AutocompleteIndex.DEFAULT_LIMIT));
+    /** Analizador léxico */
+    public static final ArtifactCache.Key<AFD, Tokenizer> TOKENIZER =
+        new ArtifactCache.Key<>("analizador léxico", afd -> new Tokenizer(afd.compile()));
+    /** Buscador de coincidencias */
+    public static final ArtifactCache.Key<AFD, TextSearcher> SEARCHER =
+        new ArtifactCache.Key<>("buscador", afd -> new TextSearcher(afd.compile()));
     
     /**
      * Constructor que inicializa un AFD vacío
@@ -53,14 +86,17 @@ public class AFD {
      * @return true si se añadió (no existía), false si ya existía
      */
     public boolean addState(State state) {
+        long before = getVersion();
         boolean added = states.add(state);
         if (added) {
+            modCount++;
             if (state.isInitial()) {
                 setInitialState(state);
             }
             if (state.isFinal()) {
                 finalStates.add(state);
             }
+            analysis.stateAdded(before, getVersion(), state, state.isFinal(), state.equals(initialState));
         }
         return added;
     }
@@ -71,13 +107,16 @@ public class AFD {
      * @return true si se eliminó (existía), false si no existía
      */
     public boolean removeState(State state) {
+        long before = getVersion();
         boolean removed = states.remove(state);
         if (removed) {
+            modCount++;
             if (state.equals(initialState)) {
                 initialState = null;
             }
             finalStates.remove(state);
             // TODO: También deberíamos eliminar las transiciones que involucran este estado
+            analysis.stateRemoved(before, getVersion(), state, transitions.hasRangeTransitions());
         }
         return removed;
     }
@@ -88,6 +127,7 @@ public class AFD {
      */
     public void setInitialState(State state) {
         if (states.contains(state)) {
+            long before = getVersion();
             // Marcar el estado anterior como no inicial
             if (initialState != null) {
                 initialState.setInitial(false);
@@ -95,6 +135,8 @@ public class AFD {
             // Establecer el nuevo estado inicial
             this.initialState = state;
             state.setInitial(true);
+            modCount++;
+            analysis.initialChanged(before, getVersion(), state);
         }
     }
     
@@ -104,8 +146,11 @@ public class AFD {
      */
     public void addFinalState(State state) {
         if (states.contains(state)) {
+            long before = getVersion();
             finalStates.add(state);
             state.setFinal(true);
+            modCount++;
+            analysis.finalChanged(before, getVersion(), state, true);
         }
     }
     
@@ -115,7 +160,10 @@ public class AFD {
      */
     public void removeFinalState(State state) {
         if (finalStates.remove(state)) {
+            long before = getVersion();
             state.setFinal(false);
+            modCount++;
+            analysis.finalChanged(before, getVersion(), state, false);
         }
     }
     
@@ -127,7 +175,33 @@ public class AFD {
      */
     public void addTransition(State fromState, char symbol, State toState) {
         if (states.contains(fromState) && states.contains(toState) && alphabet.contains(symbol)) {
+            long before = getVersion();
+            State previous = transitions.getNextState(fromState, symbol);
+            if (previous != null && !states.contains(previous)) {
+                // Como en CompiledAFD, una transición a un estado quitado deja decidir al rango
+                previous = transitions.getRangeTarget(fromState, symbol);
+            }
             transitions.addTransition(fromState, symbol, toState);
+            analysis.transitionChanged(before, getVersion(), fromState, previous, toState);
+        }
+    }
+    
+    /**
+     * Añade una transición para todos los símbolos de un rango de puntos de código
+     * @param fromState estado origen
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @param toState estado destino
+     */
+    public void addRangeTransition(State fromState, int first, int last, State toState) {
+        if (states.contains(fromState) && states.contains(toState) && first <= last
+                && alphabet.containsRange(first, last)) {
+            long before = getVersion();
+            // Destinos anteriores del rango, solo si el análisis está al día para usarlos
+            Map<State, Long> previous = analysis.isCurrent(before) ?
+                    transitions.countRangeTargets(fromState, first, last, states) : null;
+            transitions.addRangeTransition(fromState, first, last, toState);
+            analysis.rangeChanged(before, getVersion(), fromState, previous, toState);
         }
     }
     
@@ -144,34 +218,85 @@ public class AFD {
         if (!word.isValidForAlphabet(alphabet)) {
             return new AFDResult(false, "La palabra contiene símbolos no válidos", null);
         }
+        return run(compile(), word.getContent(), () -> getArtifact(COMPLETIONS));
+    }
+    
+    /**
+     * Procesa una palabra sobre una versión compilada del AFD. No lee el AFD, así que puede
+     * usarse en otro hilo mientras el AFD se sigue modificando.
+     * @param engine AFD compilado
+     * @param completions tabla de completado del mismo AFD (el artefacto {@link #COMPLETIONS}
+     *        tomado junto con {@code engine})
+     * @param input palabra a procesar (solo con símbolos del alfabeto)
+     * @return resultado del procesamiento
+     */
+    public static AFDResult processWord(CompiledAFD engine, CompletionTable completions, String input) {
+        if (engine.getInitialState() == CompiledAFD.NO_STATE) {
+            return new AFDResult(false, "No hay estado inicial definido", null);
+        }
+        return run(engine, input, () -> completions);
+    }
+    
+    /**
+     * Recorre una palabra en el AFD compilado guardando la ruta
+     * @param completions tabla para completar la palabra, que solo se pide si se rechaza
+     */
+    private static AFDResult run(CompiledAFD engine, String input, Supplier<CompletionTable> completions) {
+        int length = input.length();
+        int[] exitCache = engine.newExitCache();
+        boolean bmpOnly = engine.hasOnlyBmpSymbols();
         
-        State currentState = initialState;
-        StringBuilder path = new StringBuilder();
-        path.append(currentState.getName());
+        int current = engine.getInitialState();
+        State currentState = engine.getState(current);
+        // El recorrido guarda solo puntos de control; el texto de la ruta se genera al pedirlo
+        ExecutionTrace trace = new ExecutionTrace(engine, input, current);
         
-        // Procesar cada símbolo de la palabra
-        for (int i = 0; i < word.length(); i++) {
-            char symbol = word.charAt(i);
-            State nextState = transitions.getNextState(currentState, symbol);
+        // Procesar cada símbolo (punto de código) de la palabra
+        int i = 0;
+        int position = 0;
+        while (i < length) {
+            // En estados con bucle se salta directamente al siguiente símbolo de salida
+            int runEnd = engine.skipSelfLoop(current, input, i, length, exitCache);
+            if (bmpOnly) {
+                // Un carácter por símbolo: el tramo se avanza de una vez
+                trace.loop(current, i, runEnd - i);
+                position += runEnd - i;
+                i = runEnd;
+            }
+            while (i < runEnd) {
+                i += Character.charCount(input.codePointAt(i));
+                trace.step(current, i);
+                position++;
+            }
+            if (i == length) {
+                break;
+            }
             
-            if (nextState == null) {
+            int symbol = input.codePointAt(i);
+            int next = engine.step(current, symbol);
+            
+            if (next == CompiledAFD.NO_STATE) {
                 return new AFDResult(false, 
                     "No existe transición desde " + currentState.getName() + 
-                    " con símbolo '" + symbol + "' en posición " + i, 
-                    path.toString());
+                    " con símbolo '" + new String(Character.toChars(symbol)) + "' en posición " + position, 
+                    trace, null, null, CompiledAFD.NO_STATE);
             }
             
-            currentState = nextState;
-            path.append(" -").append(symbol).append("-> ").append(currentState.getName());
+            current = next;
+            currentState = engine.getState(current);
+            i += Character.charCount(symbol);
+            trace.step(current, i);
+            position++;
         }
         
         // Verificar si el estado final es de aceptación
-        boolean accepted = finalStates.contains(currentState);
+        boolean accepted = engine.isAccepting(current);
         String message = accepted ? 
             "Palabra aceptada. Estado final: " + currentState.getName() :
             "Palabra rechazada. Estado final: " + currentState.getName() + " (no es de aceptación)";
-            
-        return new AFDResult(accepted, message, path.toString());
+        
+        // La tabla para completar la palabra solo hace falta si se rechaza
+        return new AFDResult(accepted, message, trace, currentState, accepted ? null : completions.get(), current);
     }
     
     /**
@@ -183,6 +308,157 @@ public class AFD {
         return processWord(new Word(input));
     }
     
+    /**
+     * Obtiene la versión compilada del AFD (tablas de enteros para procesamiento rápido).
+     * Se reutiliza mientras el AFD no cambie y se recompila tras cualquier modificación.
+     * @return AFD compilado
+     */
+    public CompiledAFD compile() {
+        return artifacts.get(COMPILED);
+    }
+    
+    /**
+     * Obtiene la forma canónica del AFD (mínimo y con los estados renumerados), que solo
+     * depende del alfabeto y del lenguaje. Se reutiliza mientras el AFD no cambie.
+     * @return forma canónica
+     */
+    public CanonicalForm canonicalForm() {
+        return artifacts.get(CANONICAL_FORM);
+    }
+    
+    /**
+     * Obtiene una estructura derivada del AFD. Se construye la primera vez que se pide, una
+     * sola vez aunque la pidan varios hilos a la vez, y se reutiliza mientras el AFD no cambie.
+     * Además de las claves de esta clase se pueden usar claves propias.
+     * @param key tipo de estructura
+     * @param <T> tipo de la estructura
+     * @return estructura para la versión actual del AFD
+     */
+    public <T> T getArtifact(ArtifactCache.Key<AFD, T> key) {
+        return artifacts.get(key);
+    }
+    
+    /**
+     * Verifica si todas las palabras aceptadas por este AFD son aceptadas también por otro
+     * @param other AFD con el que se compara
+     * @return true si L(este) ⊆ L(otro)
+     */
+    public boolean isSubsetOf(AFD other) {
+        return findWordNotIn(other) == null;
+    }
+    
+    /**
+     * Busca la palabra más corta aceptada por este AFD y rechazada por otro. El producto de
+     * los dos AFD se explora solo hasta encontrarla.
+     * @param other AFD con el que se compara
+     * @return contraejemplo más corto, o null si L(este) ⊆ L(otro)
+     */
+    public String findWordNotIn(AFD other) {
+        return compile().findWordNotIn(other.compile());
+    }
+    
+    /**
+     * Verifica si el AFD tiene definida una transición para cada estado y cada símbolo
+     * @return true si no falta ninguna transición
+     */
+    public boolean isComplete() {
+        return !states.isEmpty() && getMissingTransitionCount() == 0;
+    }
+    
+    /**
+     * Obtiene el número de transiciones (estado, símbolo) que faltan para que el AFD sea completo
+     * @return transiciones sin definir
+     */
+    public long getMissingTransitionCount() {
+        return analysis.update(this).getMissingCount();
+    }
+    
+    /**
+     * Obtiene el número de símbolos para los que un estado no tiene transición
+     * @param state estado a consultar
+     * @return transiciones sin definir del estado (0 si no está en el AFD)
+     */
+    public long getMissingTransitionCount(State state) {
+        return analysis.update(this).getMissingCount(state);
+    }
+    
+    /**
+     * Verifica si un estado se alcanza desde el estado inicial
+     * @param state estado a consultar
+     * @return true si es alcanzable
+     */
+    public boolean isReachable(State state) {
+        return analysis.update(this).isReachable(state);
+    }
+    
+    /**
+     * Verifica si desde un estado se puede llegar a algún estado final
+     * @param state estado a consultar
+     * @return true si es co-alcanzable
+     */
+    public boolean isCoReachable(State state) {
+        return analysis.update(this).isCoReachable(state);
+    }
+    
+    /**
+     * Verifica si un estado es sumidero: no es final y todas sus transiciones vuelven a él
+     * @param state estado a consultar
+     * @return true si es sumidero
+     */
+    public boolean isSink(State state) {
+        return analysis.update(this).isSink(state);
+    }
+    
+    /**
+     * Verifica si el AFD no acepta ninguna palabra
+     * @return true si ningún estado final se alcanza desde el inicial
+     */
+    public boolean acceptsNothing() {
+        return !analysis.update(this).isInitialCoReachable();
+    }
+    
+    /**
+     * Obtiene los estados que no se alcanzan desde el estado inicial
+     * @return conjunto de estados inalcanzables
+     */
+    public Set<State> getUnreachableStates() {
+        return analysis.update(this).getUnreachableStates();
+    }
+    
+    /**
+     * Obtiene los estados desde los que no se llega a ningún estado final
+     * @return conjunto de estados muertos
+     */
+    public Set<State> getDeadStates() {
+        return analysis.update(this).getDeadStates();
+    }
+    
+    /**
+     * Obtiene un analizador léxico de coincidencia más larga sobre el AFD compilado,
+     * en el que cada estado final es un tipo de token. Se reutiliza mientras el AFD no cambie.
+     * @return analizador léxico
+     */
+    public Tokenizer tokenizer() {
+        return artifacts.get(TOKENIZER);
+    }
+    
+    /**
+     * Obtiene un buscador de todas las subcadenas de un texto aceptadas por el AFD.
+     * Se reutiliza mientras el AFD no cambie.
+     * @return buscador sobre el AFD compilado
+     */
+    public TextSearcher searcher() {
+        return artifacts.get(SEARCHER);
+    }
+    
+    /**
+     * Obtiene la versión actual del AFD; cambia con cada modificación de Q, Σ, δ, q0 o F
+     * @return número de versión
+     */
+    public long getVersion() {
+        return modCount + alphabet.getModCount() + transitions.getModCount();
+    }
+    
     /**
      * Verifica si el AFD está completamente definido
      * @return true si el AFD es válido, false en caso contrario
@@ -235,11 +511,30 @@ public class AFD {
         private final boolean accepted;
         private final String message;
         private final String path;
+        private final ExecutionTrace trace;         // Recorrido compacto; la ruta se genera al pedirla
+        private final State finalState;             // Estado en que terminó la palabra
+        private final CompletionTable completions;  // Solo si se rechazó al terminar la palabra
+        private final int finalStateId;
         
         public AFDResult(boolean accepted, String message, String path) {
             this.accepted = accepted;
             this.message = message;
             this.path = path;
+            this.trace = null;
+            this.finalState = null;
+            this.completions = null;
+            this.finalStateId = CompiledAFD.NO_STATE;
+        }
+        
+        AFDResult(boolean accepted, String message, ExecutionTrace trace, State finalState,
+                  CompletionTable completions, int finalStateId) {
+            this.accepted = accepted;
+            this.message = message;
+            this.path = null;
+            this.trace = trace;
+            this.finalState = finalState;
+            this.completions = completions;
+            this.finalStateId = finalStateId;
         }
         
         public boolean isAccepted() {
@@ -250,8 +545,44 @@ public class AFD {
             return message;
         }
         
+        /**
+         * Obtiene el texto de la ruta recorrida. Se genera en cada llamada y ocupa unos
+         * 10 caracteres por símbolo; para palabras largas conviene usar {@link #getTrace()}
+         * y generar solo el tramo que interese.
+         * @return ruta con la forma {@code q0 -a-> q1 ...}, o null si no hubo recorrido
+         */
         public String getPath() {
-            return path;
+            return trace != null ? trace.render() : path;
+        }
+        
+        /**
+         * Obtiene el recorrido compacto de la palabra
+         * @return recorrido, o null si no hubo recorrido
+         */
+        public ExecutionTrace getTrace() {
+            return trace;
+        }
+        
+        /**
+         * Obtiene el estado en el que terminó de procesarse la palabra
+         * @return estado final del recorrido, o null si el recorrido se detuvo antes del final
+         */
+        public State getFinalState() {
+            return finalState;
+        }
+        
+        /**
+         * Obtiene la palabra más corta que, agregada al final de la palabra procesada, haría
+         * que se aceptara (la primera en orden lexicográfico si hay varias). Cuesta
+         * O(longitud del sufijo).
+         * @return sufijo (vacío si la palabra ya se aceptó), o null si ningún sufijo la haría
+         *         aceptar o el recorrido se detuvo antes del final de la palabra
+         */
+        public String getShortestCompletion() {
+            if (accepted) {
+                return "";
+            }
+            return completions != null ? completions.complete(finalStateId) : null;
         }
         
         @Override
@@ -259,8 +590,9 @@ public class AFD {
             StringBuilder sb = new StringBuilder();
             sb.append("Resultado: ").append(accepted ? "ACEPTADA" : "RECHAZADA").append("\n");
             sb.append("Mensaje: ").append(message).append("\n");
-            if (path != null) {
-                sb.append("Ruta: ").append(path).append("\n");
+            String rendered = getPath();
+            if (rendered != null) {
+                sb.append("Ruta: ").append(rendered).append("\n");
             }
             return sb.toString();
         }
@@ -0,0 +1,438 @@
+package co.edu.uptc.model;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Análisis de un AFD que se mantiene al día mientras se edita: transiciones que faltan para
+ * que sea completo, estados alcanzables desde el inicial, estados co-alcanzables (desde los que
+ * se llega a un estado final) y estados sumidero. Las consultas cuestan O(1).
+ *
+ * El AFD avisa de cada cambio hecho con sus métodos y el análisis se actualiza solo en la parte
+ * afectada: añadir un estado, un estado final o una transición propaga la alcanzabilidad solo
+ * desde los estados que cambian. Quitar algo puede reducir los conjuntos alcanzables, y eso no se
+ * puede resolver localmente, así que se marcan para recalcularlos (O(estados + aristas)) en la
+ * siguiente consulta. Los cambios que no pasan por los métodos del AFD (cambios directos sobre
+ * el alfabeto o la función de transición) se detectan por la versión del AFD y provocan una
+ * reconstrucción completa a partir de la versión compilada.
+ *
+ * Las transiciones se cuentan como en {@link CompiledAFD}: por punto de código del alfabeto, y
+ * las que van a estados que ya no están en el AFD no cuentan.
+ */
+final class AFDAnalysis {
+    private final Map<State, Node> nodes = new HashMap<>();
+    private final Set<State> removed = new HashSet<>(); // estados quitados (sus transiciones siguen en δ)
+    private long symbolCount;       // |Σ| en puntos de código
+    private long definedCount;      // transiciones definidas hacia estados del AFD
+    private Node initial;
+    private boolean graphStale;     // alcanzables y co-alcanzables pendientes de recalcular
+    private int reachableCount;
+    private int coReachableCount;
+    private long version = -1;      // versión del AFD que refleja el análisis
+    
+    /**
+     * Estado con sus aristas: destino -> número de puntos de código que llevan a él
+     */
+    private static final class Node {
+        private final State state;
+        private final Map<Node, Long> out = new HashMap<>();
+        private final Map<Node, Long> in = new HashMap<>();
+        private long defined;
+        private boolean accepting;
+        private boolean reachable;
+        private boolean coReachable;
+        
+        Node(State state) {
+            this.state = state;
+        }
+        
+        boolean isSink() {
+            return !accepting && (out.isEmpty() || (out.size() == 1 && out.containsKey(this)));
+        }
+    }
+    
+    /**
+     * Pone el análisis al día con el AFD si hace falta
+     * @param afd AFD analizado
+     * @return este análisis
+     */
+    AFDAnalysis update(AFD afd) {
+        if (version != afd.getVersion()) {
+            rebuild(afd);
+        }
+        if (graphStale) {
+            recomputeGraph();
+        }
+        return this;
+    }
+    
+    /**
+     * Reconstruye todo el análisis a partir de la versión compilada del AFD
+     */
+    private void rebuild(AFD afd) {
+        nodes.clear();
+        removed.clear();
+        initial = null;
+        CompiledAFD compiled = afd.compile();
+        Node[] byId = new Node[compiled.getStateCount()];
+        for (int s = 0; s < byId.length; s++) {
+            byId[s] = new Node(compiled.getState(s));
+            byId[s].accepting = compiled.isAccepting(s);
+            nodes.put(byId[s].state, byId[s]);
+        }
+        if (compiled.getInitialState() != CompiledAFD.NO_STATE) {
+            initial = byId[compiled.getInitialState()];
+        }
+        symbolCount = compiled.getSymbolCount();
+        definedCount = 0;
+        List<int[]> intervals = compiled.getIntervals();
+        for (int s = 0; s < byId.length; s++) {
+            for (int[] interval : intervals) {
+                int target = compiled.getTransitionTable().next(s, interval[2]);
+                if (target != CompiledAFD.NO_STATE) {
+                    long width = interval[1] - interval[0] + 1L;
+                    byId[s].defined += width;
+                    definedCount += width;
+                    addWeight(byId[s], byId[target], width);
+                }
+            }
+        }
+        // Estados que ya no están en el AFD pero siguen en δ: si vuelven, sus transiciones cuentan
+        TransitionFunction transitions = afd.getTransitions();
+        for (Map.Entry<TransitionFunction.TransitionKey, State> entry : transitions.getTransitions().entrySet()) {
+            markRemoved(entry.getKey().getState());
+            markRemoved(entry.getValue());
+        }
+        for (TransitionFunction.RangeTransition range : transitions.getRangeTransitions()) {
+            markRemoved(range.getState());
+            markRemoved(range.getTarget());
+        }
+        version = compiled.getVersion();
+        recomputeGraph();
+    }
+    
+    private void markRemoved(State state) {
+        if (!nodes.containsKey(state)) {
+            removed.add(state);
+        }
+    }
+    
+    /**
+     * Recalcula desde cero los estados alcanzables y co-alcanzables
+     */
+    private void recomputeGraph() {
+        reachableCount = 0;
+        coReachableCount = 0;
+        for (Node node : nodes.values()) {
+            node.reachable = false;
+            node.coReachable = false;
+        }
+        if (initial != null) {
+            markReachable(initial);
+        }
+        for (Node node : nodes.values()) {
+            if (node.accepting && !node.coReachable) {
+                markCoReachable(node);
+            }
+        }
+        graphStale = false;
+    }
+    
+    /**
+     * Marca como alcanzables un estado y los que se alcanzan desde él que aún no lo eran
+     */
+    private void markReachable(Node start) {
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        start.reachable = true;
+        reachableCount++;
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            for (Node next : pending.poll().out.keySet()) {
+                if (!next.reachable) {
+                    next.reachable = true;
+                    reachableCount++;
+                    pending.add(next);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Marca como co-alcanzables un estado y los que llegan a él que aún no lo eran
+     */
+    private void markCoReachable(Node start) {
+        ArrayDeque<Node> pending = new ArrayDeque<>();
+        start.coReachable = true;
+        coReachableCount++;
+        pending.add(start);
+        while (!pending.isEmpty()) {
+            for (Node previous : pending.poll().in.keySet()) {
+                if (!previous.coReachable) {
+                    previous.coReachable = true;
+                    coReachableCount++;
+                    pending.add(previous);
+                }
+            }
+        }
+    }
+    
+    /**
+     * Suma puntos de código a una arista
+     * @return true si la arista no existía
+     */
+    private static boolean addWeight(Node from, Node to, long weight) {
+        Long previous = from.out.merge(to, weight, Long::sum);
+        to.in.merge(from, weight, Long::sum);
+        return previous == weight;
+    }
+    
+    /**
+     * Resta puntos de código a una arista
+     * @return true si la arista desapareció
+     */
+    private static boolean removeWeight(Node from, Node to, long weight) {
+        long remaining = from.out.get(to) - weight;
+        if (remaining > 0) {
+            from.out.put(to, remaining);
+            to.in.put(from, remaining);
+            return false;
+        }
+        from.out.remove(to);
+        to.in.remove(from);
+        return true;
+    }
+    
+    // Avisos del AFD. Cada uno recibe la versión anterior al cambio y solo se aplica si el
+    // análisis estaba al día; si no, la siguiente consulta lo reconstruye.
+    
+    void stateAdded(long before, long after, State state, boolean accepting, boolean isInitial) {
+        if (version != before) {
+            return;
+        }
+        if (removed.contains(state)) {
+            // Sus transiciones anteriores siguen en δ y vuelven a contar
+            version = -1;
+            return;
+        }
+        Node node = new Node(state);
+        nodes.put(state, node);
+        if (accepting) {
+            node.accepting = true;
+            node.coReachable = true;
+            coReachableCount++;
+        }
+        if (isInitial) {
+            setInitial(node);
+        }
+        version = after;
+    }
+    
+    /**
+     * Se quitó un estado del AFD
+     * @param withRanges si δ tiene transiciones por rango: las de símbolo individual hacia el
+     *        estado quitado pasan a tomar el destino del rango que las contenga, y eso se
+     *        resuelve reconstruyendo
+     */
+    void stateRemoved(long before, long after, State state, boolean withRanges) {
+        if (version != before) {
+            return;
+        }
+        if (withRanges) {
+            version = -1;
+            return;
+        }
+        Node node = nodes.remove(state);
+        if (node != null) {
+            definedCount -= node.defined;
+            for (Node target : node.out.keySet()) {
+                target.in.remove(node);
+            }
+            for (Map.Entry<Node, Long> edge : node.in.entrySet()) {
+                Node source = edge.getKey();
+                if (source != node) {
+                    source.out.remove(node);
+                    source.defined -= edge.getValue();
+                    definedCount -= edge.getValue();
+                }
+            }
+            if (node == initial) {
+                initial = null;
+            }
+            removed.add(state);
+            graphStale = true;
+        }
+        version = after;
+    }
+    
+    void initialChanged(long before, long after, State state) {
+        if (version != before) {
+            return;
+        }
+        Node node = nodes.get(state);
+        if (node != initial) {
+            setInitial(node);
+        }
+        version = after;
+    }
+    
+    private void setInitial(Node node) {
+        if (initial != null) {
+            graphStale = true; // Lo alcanzable desde el inicial anterior puede dejar de serlo
+        }
+        initial = node;
+        if (!graphStale && node != null && !node.reachable) {
+            markReachable(node);
+        }
+    }
+    
+    void finalChanged(long before, long after, State state, boolean accepting) {
+        if (version != before) {
+            return;
+        }
+        Node node = nodes.get(state);
+        if (node != null && node.accepting != accepting) {
+            node.accepting = accepting;
+            if (!accepting) {
+                graphStale = true;
+            } else if (!graphStale && !node.coReachable) {
+                markCoReachable(node);
+            }
+        }
+        version = after;
+    }
+    
+    /**
+     * Una transición (from, símbolo) cambió de destino
+     * @param previous destino anterior, o null si no tenía
+     */
+    void transitionChanged(long before, long after, State from, State previous, State target) {
+        if (version != before) {
+            return;
+        }
+        version = after;
+        Node source = nodes.get(from);
+        Node newTarget = nodes.get(target);
+        if (source != null && newTarget != null) {
+            retarget(source, previous != null ? nodes.get(previous) : null, newTarget, 1);
+        }
+    }
+    
+    /**
+     * Un rango de puntos de código de from pasó a ir a target
+     * @param previous destino anterior -> puntos de código del rango que iban a él (clave null
+     *        para los que no tenían destino); no incluye los que no cambian de destino
+     */
+    void rangeChanged(long before, long after, State from, Map<State, Long> previous, State target) {
+        if (version != before) {
+            return;
+        }
+        version = after;
+        Node source = nodes.get(from);
+        Node newTarget = nodes.get(target);
+        if (source == null || newTarget == null) {
+            return;
+        }
+        for (Map.Entry<State, Long> entry : previous.entrySet()) {
+            Node oldTarget = entry.getKey() != null ? nodes.get(entry.getKey()) : null;
+            retarget(source, oldTarget, newTarget, entry.getValue());
+        }
+    }
+    
+    /**
+     * Indica si el análisis refleja la versión dada del AFD, es decir, si un aviso con esa
+     * versión anterior se aplicaría
+     */
+    boolean isCurrent(long version) {
+        return this.version == version;
+    }
+    
+    /**
+     * Mueve puntos de código de source de un destino a otro y propaga lo que se pueda
+     * @param oldTarget destino anterior, o null si no tenían destino en el AFD
+     */
+    private void retarget(Node source, Node oldTarget, Node newTarget, long count) {
+        if (oldTarget == newTarget) {
+            return;
+        }
+        if (oldTarget == null) {
+            source.defined += count;
+            definedCount += count;
+        } else if (removeWeight(source, oldTarget, count)) {
+            graphStale = true;
+        }
+        if (addWeight(source, newTarget, count) && !graphStale) {
+            if (source.reachable && !newTarget.reachable) {
+                markReachable(newTarget);
+            }
+            if (newTarget.coReachable && !source.coReachable) {
+                markCoReachable(source);
+            }
+        }
+    }
+    
+    // Consultas (después de update)
+    
+    long getMissingCount() {
+        return symbolCount * nodes.size() - definedCount;
+    }
+    
+    long getMissingCount(State state) {
+        Node node = nodes.get(state);
+        return node != null ? symbolCount - node.defined : 0;
+    }
+    
+    boolean isReachable(State state) {
+        Node node = nodes.get(state);
+        return node != null && node.reachable;
+    }
+    
+    boolean isCoReachable(State state) {
+        Node node = nodes.get(state);
+        return node != null && node.coReachable;
+    }
+    
+    boolean isSink(State state) {
+        Node node = nodes.get(state);
+        return node != null && node.isSink();
+    }
+    
+    int getStateCount() {
+        return nodes.size();
+    }
+    
+    int getReachableCount() {
+        return reachableCount;
+    }
+    
+    int getCoReachableCount() {
+        return coReachableCount;
+    }
+    
+    boolean isInitialCoReachable() {
+        return initial != null && initial.coReachable;
+    }
+    
+    Set<State> getUnreachableStates() {
+        Set<State> result = new HashSet<>();
+        for (Node node : nodes.values()) {
+            if (!node.reachable) {
+                result.add(node.state);
+            }
+        }
+        return result;
+    }
+    
+    Set<State> getDeadStates() {
+        Set<State> result = new HashSet<>();
+        for (Node node : nodes.values()) {
+            if (!node.coReachable) {
+                result.add(node.state);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,228 @@
+package co.edu.uptc.model;
+
+import java.util.Arrays;
+
+/**
+ * Evaluación incremental de una palabra sobre un AFD compilado
+ * Guarda la pila de estados recorridos, de modo que añadir o deshacer un símbolo
+ * cuesta O(1) y no hace falta volver a procesar la palabra completa en cada cambio.
+ */
+public class AFDCursor {
+    private static final int INITIAL_CAPACITY = 16;
+    
+    private final CompiledAFD afd;
+    private int[] states;      // estado alcanzado tras cada símbolo; states[0] es el inicial
+    private int[] symbols;     // símbolo (punto de código) en cada posición
+    private int[] charEnds;    // caracteres consumidos tras cada símbolo
+    private int length;        // símbolos procesados
+    private int invalidAt;     // posición del primer símbolo fuera del alfabeto, -1 si no hay
+    private int deadAt;        // posición en la que no existió transición, -1 si no hay
+    
+    /**
+     * Crea un cursor situado en el estado inicial
+     * @param afd AFD compilado sobre el que se evalúa la palabra
+     */
+    public AFDCursor(CompiledAFD afd) {
+        this.afd = afd;
+        this.states = new int[INITIAL_CAPACITY + 1];
+        this.symbols = new int[INITIAL_CAPACITY];
+        this.charEnds = new int[INITIAL_CAPACITY + 1];
+        reset();
+    }
+    
+    /**
+     * Vuelve al estado inicial con la palabra vacía
+     */
+    public void reset() {
+        length = 0;
+        invalidAt = -1;
+        deadAt = -1;
+        states[0] = afd.getInitialState();
+        charEnds[0] = 0;
+    }
+    
+    /**
+     * Añade un símbolo al final de la palabra
+     * @param symbol punto de código del símbolo
+     * @return estado alcanzado, o CompiledAFD.NO_STATE si no existe la transición
+     */
+    public int feed(int symbol) {
+        if (length == symbols.length) {
+            int capacity = symbols.length * 2;
+            states = Arrays.copyOf(states, capacity + 1);
+            symbols = Arrays.copyOf(symbols, capacity);
+            charEnds = Arrays.copyOf(charEnds, capacity + 1);
+        }
+        int state = afd.step(states[length], symbol);
+        if (invalidAt < 0 && afd.getColumn(symbol) < 0) {
+            invalidAt = length;
+        }
+        if (deadAt < 0 && state == CompiledAFD.NO_STATE) {
+            deadAt = length;
+        }
+        symbols[length] = symbol;
+        charEnds[length + 1] = charEnds[length] + Character.charCount(symbol);
+        length++;
+        states[length] = state;
+        return state;
+    }
+    
+    /**
+     * Añade al final de la palabra los símbolos de un fragmento de texto.
+     * Un par sustituto solo se une si sus dos caracteres están dentro del fragmento; si el
+     * fragmento lo corta, cada mitad se añade como un símbolo aparte.
+     * @param text texto de entrada
+     * @param from índice de inicio (incluido)
+     * @param to índice de fin (excluido)
+     * @return estado alcanzado
+     */
+    public int feed(CharSequence text, int from, int to) {
+        int i = from;
+        while (i < to) {
+            char high = text.charAt(i++);
+            int symbol = high;
+            if (Character.isHighSurrogate(high) && i < to && Character.isLowSurrogate(text.charAt(i))) {
+                symbol = Character.toCodePoint(high, text.charAt(i++));
+            }
+            feed(symbol);
+        }
+        return getState();
+    }
+    
+    /**
+     * Deshace el último símbolo añadido
+     * @return false si la palabra ya estaba vacía
+     */
+    public boolean undo() {
+        if (length == 0) {
+            return false;
+        }
+        length--;
+        if (invalidAt == length) {
+            invalidAt = -1;
+        }
+        if (deadAt == length) {
+            deadAt = -1;
+        }
+        return true;
+    }
+    
+    /**
+     * Deshace símbolos hasta que la palabra ocupe como máximo charLength caracteres
+     * @param charLength longitud en caracteres a conservar
+     */
+    public void truncate(int charLength) {
+        while (charEnds[length] > charLength) {
+            undo();
+        }
+    }
+    
+    /**
+     * Aplica una edición del texto: conserva los símbolos anteriores a la posición editada
+     * y procesa solo el resto del texto nuevo. Escribir al final cuesta O(1) por carácter.
+     * @param editStart primer carácter modificado
+     * @param newText texto completo tras la edición
+     * @return estado alcanzado
+     */
+    public int update(int editStart, CharSequence newText) {
+        truncate(editStart);
+        // Un sustituto alto suelto puede formar un par con el texto insertado
+        if (length > 0 && symbols[length - 1] <= Character.MAX_VALUE && Character.isHighSurrogate((char) symbols[length - 1])) {
+            undo();
+        }
+        return feed(newText, charEnds[length], newText.length());
+    }
+    
+    /**
+     * Obtiene el estado alcanzado por la palabra actual
+     * @return identificador del estado, o CompiledAFD.NO_STATE si la palabra no tiene recorrido
+     */
+    public int getState() {
+        return states[length];
+    }
+    
+    /**
+     * Obtiene el estado alcanzado por la palabra actual
+     * @return estado, o null si la palabra no tiene recorrido
+     */
+    public State getCurrentState() {
+        int state = getState();
+        return state == CompiledAFD.NO_STATE ? null : afd.getState(state);
+    }
+    
+    /**
+     * Verifica si la palabra actual es aceptada
+     * @return true si el estado alcanzado es final
+     */
+    public boolean isAccepting() {
+        return afd.isAccepting(getState());
+    }
+    
+    /**
+     * Obtiene la posición del primer símbolo que no pertenece al alfabeto
+     * @return posición (en símbolos), o -1 si todos son válidos
+     */
+    public int getInvalidPosition() {
+        return invalidAt;
+    }
+    
+    /**
+     * Obtiene la posición del símbolo con el que no existió transición
+     * @return posición (en símbolos), o -1 si el recorrido sigue activo
+     */
+    public int getDeadPosition() {
+        return deadAt;
+    }
+    
+    /**
+     * Obtiene el símbolo de una posición de la palabra
+     * @param position posición en símbolos
+     * @return punto de código del símbolo
+     */
+    public int getSymbol(int position) {
+        if (position < 0 || position >= length) {
+            throw new IndexOutOfBoundsException("Posición fuera de la palabra: " + position);
+        }
+        return symbols[position];
+    }
+    
+    /**
+     * Obtiene el estado desde el que se leyó el símbolo de una posición
+     * @param position posición en símbolos
+     * @return estado antes de leer el símbolo, o null si ya no había recorrido
+     */
+    public State getStateBefore(int position) {
+        if (position < 0 || position > length) {
+            throw new IndexOutOfBoundsException("Posición fuera de la palabra: " + position);
+        }
+        int state = states[position];
+        return state == CompiledAFD.NO_STATE ? null : afd.getState(state);
+    }
+    
+    /**
+     * Obtiene el número de símbolos procesados
+     * @return longitud de la palabra en símbolos
+     */
+    public int length() {
+        return length;
+    }
+    
+    /**
+     * Obtiene el número de caracteres procesados
+     * @return longitud de la palabra en caracteres
+     */
+    public int charLength() {
+        return charEnds[length];
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+    
+    @Override
+    public String toString() {
+        State state = getCurrentState();
+        return "AFDCursor{longitud=" + length + ", estado=" + (state != null ? state.getName() : "ninguno")
+                + ", aceptada=" + isAccepting() + "}";
+    }
+}
@@ -1,21 +1,37 @@
 package co.edu.uptc.model;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Representa el alfabeto de un Autómata Finito Determinista (AFD)
- * Contiene el conjunto de símbolos válidos que pueden ser procesados
+ * Contiene el conjunto de símbolos válidos que pueden ser procesados.
+ * Además de símbolos individuales admite rangos de puntos de código Unicode
+ * (por ejemplo todas las letras), guardados como intervalos y no símbolo por símbolo.
  */
 public class Alphabet {
+    // Rango escrito como U+XXXX..U+YYYY
+    private static final Pattern RANGE_PATTERN = Pattern.compile("[Uu]\\+([0-9A-Fa-f]{1,6})\\.\\.[Uu]\\+([0-9A-Fa-f]{1,6})");
+    
     private Set<Character> symbols;
+    private TreeMap<Integer, Integer> ranges; // inicio -> fin de cada rango (disjuntos, sin adyacentes)
+    private long modCount; // Número de modificaciones (para invalidar versiones compiladas)
+    private int[] intervals;       // Caché de todos los símbolos como intervalos [inicio, fin] ordenados
+    private long intervalsVersion = -1;
     
     /**
      * Constructor que crea un alfabeto vacío
      */
     public Alphabet() {
         this.symbols = new HashSet<>();
+        this.ranges = new TreeMap<>();
     }
     
     /**
@@ -24,6 +40,7 @@ public class Alphabet {
      */
     public Alphabet(Set<Character> symbols) {
         this.symbols = new HashSet<>(symbols);
+        this.ranges = new TreeMap<>();
     }
     
     /**
@@ -32,6 +49,7 @@ public class Alphabet {
      */
     public Alphabet(Character... symbols) {
         this.symbols = new HashSet<>(Arrays.asList(symbols));
+        this.ranges = new TreeMap<>();
     }
     
     /**
@@ -40,9 +58,8 @@ public class Alphabet {
      */
     public Alphabet(String symbolsString) {
         this.symbols = new HashSet<>();
-        for (char c : symbolsString.toCharArray()) {
-            this.symbols.add(c);
-        }
+        this.ranges = new TreeMap<>();
+        symbolsString.codePoints().forEach(this::addCodePoint);
     }
     
     /**
@@ -51,16 +68,126 @@ public class Alphabet {
      * @return true si el símbolo se añadió (no existía), false si ya existía
      */
     public boolean addSymbol(char symbol) {
-        return symbols.add(symbol);
+        boolean added = symbols.add(symbol);
+        if (added) {
+            modCount++;
+        }
+        return added;
     }
     
     /**
-     * Elimina un símbolo del alfabeto
+     * Elimina un símbolo del alfabeto, aunque forme parte de un rango
      * @param symbol símbolo a eliminar
      * @return true si el símbolo se eliminó (existía), false si no existía
      */
     public boolean removeSymbol(char symbol) {
-        return symbols.remove(symbol);
+        return removeCodePoint(symbol);
+    }
+    
+    /**
+     * Añade un punto de código al alfabeto (incluye caracteres fuera del plano básico)
+     * @param codePoint punto de código a añadir
+     * @return true si el símbolo se añadió (no existía), false si ya existía
+     */
+    public boolean addCodePoint(int codePoint) {
+        if (codePoint <= Character.MAX_VALUE) {
+            return addSymbol((char) codePoint);
+        }
+        return addRange(codePoint, codePoint);
+    }
+    
+    /**
+     * Añade un rango de puntos de código al alfabeto
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @return true si el alfabeto cambió
+     * @throws IllegalArgumentException si el rango no es válido
+     */
+    public boolean addRange(int first, int last) {
+        if (first < 0 || last > Character.MAX_CODE_POINT || first > last) {
+            throw new IllegalArgumentException("Rango de símbolos no válido: " + formatRange(first, last));
+        }
+        if (containsRangeInRanges(first, last)) {
+            return false;
+        }
+        // Fusionar con los rangos que se solapan o son adyacentes
+        Map.Entry<Integer, Integer> previous = ranges.floorEntry(first);
+        if (previous != null && previous.getValue() >= first - 1) {
+            first = previous.getKey();
+            last = Math.max(last, previous.getValue());
+        }
+        Map.Entry<Integer, Integer> following = ranges.ceilingEntry(first);
+        while (following != null && following.getKey() <= last + 1) {
+            last = Math.max(last, following.getValue());
+            ranges.remove(following.getKey());
+            following = ranges.ceilingEntry(first);
+        }
+        ranges.put(first, last);
+        modCount++;
+        return true;
+    }
+    
+    /**
+     * Elimina un punto de código del alfabeto, aunque forme parte de un rango
+     * (el rango se divide en dos)
+     * @param codePoint punto de código a eliminar
+     * @return true si el símbolo se eliminó (existía), false si no existía
+     */
+    public boolean removeCodePoint(int codePoint) {
+        return removeRange(codePoint, codePoint);
+    }
+    
+    /**
+     * Elimina del alfabeto todos los puntos de código de un rango, sean símbolos individuales
+     * o partes de rangos (los rangos que lo cruzan se recortan)
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @return true si el alfabeto cambió
+     * @throws IllegalArgumentException si el rango no es válido
+     */
+    public boolean removeRange(int first, int last) {
+        if (first < 0 || last > Character.MAX_CODE_POINT || first > last) {
+            throw new IllegalArgumentException("Rango de símbolos no válido: " + formatRange(first, last));
+        }
+        boolean changed = false;
+        if (first <= Character.MAX_VALUE) {
+            int end = Math.min(last, Character.MAX_VALUE);
+            if (end - first + 1 < symbols.size()) {
+                for (int symbol = first; symbol <= end; symbol++) {
+                    changed |= symbols.remove((char) symbol);
+                }
+            } else {
+                changed |= symbols.removeIf(symbol -> symbol >= first && symbol <= end);
+            }
+        }
+        // Recortar los rangos que se solapan con [first, last]
+        Map.Entry<Integer, Integer> entry = ranges.floorEntry(first);
+        if (entry == null || entry.getValue() < first) {
+            entry = ranges.ceilingEntry(first);
+        }
+        while (entry != null && entry.getKey() <= last) {
+            int start = entry.getKey();
+            int end = entry.getValue();
+            ranges.remove(start);
+            if (start < first) {
+                ranges.put(start, first - 1);
+            }
+            changed = true;
+            if (end > last) {
+                ranges.put(last + 1, end);
+                break; // Los rangos son disjuntos: ninguno más se solapa
+            }
+            entry = ranges.higherEntry(end);
+        }
+        if (changed) {
+            modCount++;
+        }
+        return changed;
+    }
+    
+    private boolean containsRangeInRanges(int first, int last) {
+        Map.Entry<Integer, Integer> entry = ranges.floorEntry(first);
+        return entry != null && entry.getValue() >= last;
     }
     
     /**
@@ -69,20 +196,60 @@ public class Alphabet {
      * @return true si el símbolo está en el alfabeto, false en caso contrario
      */
     public boolean contains(char symbol) {
-        return symbols.contains(symbol);
+        return symbols.contains(symbol) || containsRangeInRanges(symbol, symbol);
+    }
+    
+    /**
+     * Verifica si un punto de código pertenece al alfabeto
+     * @param codePoint punto de código a verificar
+     * @return true si el símbolo está en el alfabeto, false en caso contrario
+     */
+    public boolean containsCodePoint(int codePoint) {
+        if (codePoint <= Character.MAX_VALUE && symbols.contains((char) codePoint)) {
+            return true;
+        }
+        return containsRangeInRanges(codePoint, codePoint);
+    }
+    
+    /**
+     * Verifica si todos los puntos de código de un rango pertenecen al alfabeto
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @return true si el rango completo está en el alfabeto
+     */
+    public boolean containsRange(int first, int last) {
+        int[] all = getIntervals();
+        // Buscar el último intervalo que empieza en o antes de first
+        int low = 0;
+        int high = all.length / 2 - 1;
+        int found = -1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            if (all[2 * middle] <= first) {
+                found = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return found >= 0 && all[2 * found + 1] >= last;
     }
     
     /**
-     * Verifica si una cadena contiene solo símbolos válidos del alfabeto
+     * Verifica si una cadena contiene solo símbolos válidos del alfabeto.
+     * La cadena se recorre por puntos de código, de modo que los caracteres
+     * fuera del plano básico (pares sustitutos) cuentan como un solo símbolo.
      * @param word cadena a verificar
      * @return true si todos los símbolos de la cadena están en el alfabeto
      */
     public boolean isValidWord(String word) {
         if (word == null) return false;
-        for (char c : word.toCharArray()) {
-            if (!contains(c)) {
+        for (int i = 0; i < word.length(); ) {
+            int codePoint = word.codePointAt(i);
+            if (!containsCodePoint(codePoint)) {
                 return false;
             }
+            i += Character.charCount(codePoint);
         }
         return true;
     }
@@ -95,12 +262,83 @@ public class Alphabet {
         return new HashSet<>(symbols);
     }
     
+    /**
+     * Obtiene los símbolos del alfabeto como se definieron: cada símbolo individual como un
+     * intervalo de un solo punto de código y cada rango como un intervalo, sin unir los
+     * adyacentes (a diferencia de {@link #getIntervals()}). Los símbolos individuales que
+     * quedan dentro de un rango solo aparecen en el rango.
+     * @return lista de intervalos {inicio, fin} ordenados y disjuntos
+     */
+    public List<int[]> getSymbolIntervals() {
+        List<int[]> result = new ArrayList<>(symbols.size() + ranges.size());
+        for (char symbol : symbols) {
+            if (!containsRangeInRanges(symbol, symbol)) {
+                result.add(new int[] {symbol, symbol});
+            }
+        }
+        for (Map.Entry<Integer, Integer> entry : ranges.entrySet()) {
+            result.add(new int[] {entry.getKey(), entry.getValue()});
+        }
+        result.sort((a, b) -> Integer.compare(a[0], b[0]));
+        return result;
+    }
+    
+    /**
+     * Obtiene los rangos de puntos de código del alfabeto
+     * @return lista de rangos {inicio, fin} ordenados
+     */
+    public List<int[]> getRanges() {
+        List<int[]> result = new ArrayList<>();
+        for (Map.Entry<Integer, Integer> entry : ranges.entrySet()) {
+            result.add(new int[] {entry.getKey(), entry.getValue()});
+        }
+        return result;
+    }
+    
+    /**
+     * Obtiene todos los símbolos del alfabeto (individuales y rangos) como intervalos
+     * disjuntos y ordenados
+     * @return arreglo {inicio0, fin0, inicio1, fin1, ...}
+     */
+    public int[] getIntervals() {
+        if (intervals == null || intervalsVersion != modCount) {
+            TreeMap<Integer, Integer> merged = new TreeMap<>(ranges);
+            for (char symbol : symbols) {
+                Map.Entry<Integer, Integer> entry = merged.floorEntry((int) symbol);
+                if (entry == null || entry.getValue() < symbol) {
+                    merged.put((int) symbol, (int) symbol);
+                }
+            }
+            int[] result = new int[2 * merged.size()];
+            int count = 0;
+            for (Map.Entry<Integer, Integer> entry : merged.entrySet()) {
+                if (count > 0 && result[count - 1] >= entry.getKey() - 1) {
+                    result[count - 1] = Math.max(result[count - 1], entry.getValue());
+                } else {
+                    result[count++] = entry.getKey();
+                    result[count++] = entry.getValue();
+                }
+            }
+            intervals = Arrays.copyOf(result, count);
+            intervalsVersion = modCount;
+        }
+        return intervals;
+    }
+    
     /**
      * Obtiene el tamaño del alfabeto
-     * @return número de símbolos en el alfabeto
+     * @return número de símbolos (puntos de código) en el alfabeto
      */
     public int size() {
-        return symbols.size();
+        if (ranges.isEmpty()) {
+            return symbols.size();
+        }
+        int[] all = getIntervals();
+        int total = 0;
+        for (int i = 0; i < all.length; i += 2) {
+            total += all[i + 1] - all[i] + 1;
+        }
+        return total;
     }
     
     /**
@@ -108,7 +346,7 @@ public class Alphabet {
      * @return true si no hay símbolos, false en caso contrario
      */
     public boolean isEmpty() {
-        return symbols.isEmpty();
+        return symbols.isEmpty() && ranges.isEmpty();
     }
     
     /**
@@ -116,11 +354,84 @@ public class Alphabet {
      */
     public void clear() {
         symbols.clear();
+        ranges.clear();
+        modCount++;
+    }
+    
+    /**
+     * Formatea un rango de puntos de código como U+XXXX..U+YYYY
+     * @param first primer punto de código
+     * @param last último punto de código
+     * @return rango en notación Unicode
+     */
+    public static String formatRange(int first, int last) {
+        return String.format("U+%04X..U+%04X", first, last);
+    }
+    
+    /**
+     * Formatea un intervalo de símbolos: el propio símbolo si es un solo punto de código,
+     * o el rango en notación Unicode
+     * @param first primer punto de código
+     * @param last último punto de código
+     * @return texto del intervalo
+     */
+    public static String formatInterval(int first, int last) {
+        return first == last ? new String(Character.toChars(first)) : formatRange(first, last);
+    }
+    
+    /**
+     * Formatea todos los símbolos del alfabeto separados por comas, como los acepta
+     * la definición del alfabeto
+     * @return símbolos y rangos, por ejemplo {@code a, b, U+0041..U+005A}
+     */
+    public String formatSymbols() {
+        StringBuilder sb = new StringBuilder();
+        for (int[] interval : getSymbolIntervals()) {
+            if (sb.length() > 0) {
+                sb.append(", ");
+            }
+            sb.append(formatInterval(interval[0], interval[1]));
+        }
+        return sb.toString();
+    }
+    
+    /**
+     * Interpreta un rango escrito como lo genera {@link #formatRange(int, int)}
+     * @param text texto de la forma {@code U+XXXX..U+YYYY} (acepta también {@code u+})
+     * @return {primero, último}, o null si el texto no es un rango
+     * @throws IllegalArgumentException si tiene forma de rango pero sus límites no son válidos
+     */
+    public static int[] parseRange(String text) {
+        Matcher matcher = RANGE_PATTERN.matcher(text.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        int first = Integer.parseInt(matcher.group(1), 16);
+        int last = Integer.parseInt(matcher.group(2), 16);
+        if (first > last || last > Character.MAX_CODE_POINT) {
+            throw new IllegalArgumentException("Rango de símbolos no válido: " + text.trim());
+        }
+        return new int[] {first, last};
+    }
+    
+    /**
+     * Obtiene el contador de modificaciones del alfabeto
+     * @return número de cambios realizados desde su creación
+     */
+    public long getModCount() {
+        return modCount;
     }
     
     @Override
     public String toString() {
-        return "Alphabet{" + symbols + "}";
+        if (ranges.isEmpty()) {
+            return "Alphabet{" + symbols + "}";
+        }
+        StringBuilder sb = new StringBuilder("Alphabet{").append(symbols);
+        for (Map.Entry<Integer, Integer> entry : ranges.entrySet()) {
+            sb.append(", ").append(formatRange(entry.getKey(), entry.getValue()));
+        }
+        return sb.append("}").toString();
     }
     
     @Override
@@ -128,11 +439,11 @@ public class Alphabet {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         Alphabet alphabet = (Alphabet) obj;
-        return symbols.equals(alphabet.symbols);
+        return symbols.equals(alphabet.symbols) && ranges.equals(alphabet.ranges);
     }
     
     @Override
     public int hashCode() {
-        return symbols.hashCode();
+        return 31 * symbols.hashCode() + ranges.hashCode();
     }
 }
\ No newline at end of file
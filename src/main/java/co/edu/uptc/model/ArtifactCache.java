@@ -0,0 +1,162 @@
+package co.edu.uptc.model;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Caché de estructuras derivadas de un objeto que cambia, como la versión compilada o la
+ * forma canónica de un AFD.
+ * Cada estructura se identifica con una {@link Key} que sabe construirla y se guarda junto
+ * con la versión del origen para la que se construyó. Se construye la primera vez que se
+ * pide y como máximo una vez por versión: si varios hilos la piden a la vez, uno la construye
+ * y los demás esperan su resultado. Cuando la versión cambia, las estructuras de versiones
+ * anteriores se descartan en la siguiente consulta.
+ *
+ * El origen no debe modificarse mientras se construye una estructura; si ocurre, la
+ * estructura queda asociada a la versión anterior y se reconstruye en la siguiente consulta.
+ * Un constructor no puede pedir su propia clave (esperaría su propio resultado), pero sí otras.
+ * @param <S> tipo del origen
+ */
+public class ArtifactCache<S> {
+    /**
+     * Tipo de estructura derivada: nombre y función que la construye a partir del origen.
+     * Las claves se comparan por identidad, así que deben ser constantes compartidas.
+     * @param <S> tipo del origen
+     * @param <T> tipo de la estructura
+     */
+    public static final class Key<S, T> {
+        private final String name;
+        private final Function<? super S, ? extends T> builder;
+        
+        /**
+         * Constructor de la clave
+         * @param name nombre de la estructura (para mensajes)
+         * @param builder función que construye la estructura a partir del origen
+         */
+        public Key(String name, Function<? super S, ? extends T> builder) {
+            this.name = name;
+            this.builder = builder;
+        }
+        
+        public String getName() {
+            return name;
+        }
+        
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+    
+    /**
+     * Estructura de una versión, construida o en construcción
+     */
+    private static final class Entry {
+        private final long version;
+        private final CompletableFuture<Object> value = new CompletableFuture<>();
+        
+        Entry(long version) {
+            this.version = version;
+        }
+    }
+    
+    private final S source;
+    private final LongSupplier version;
+    private final Map<Key<S, ?>, Entry> entries = new ConcurrentHashMap<>();
+    private volatile long sweptVersion = Long.MIN_VALUE; // Versión de la última limpieza
+    private final AtomicLong buildCount = new AtomicLong();
+    
+    /**
+     * Constructor de la caché
+     * @param source objeto del que se derivan las estructuras
+     * @param version versión actual del origen; debe cambiar con cada modificación
+     */
+    public ArtifactCache(S source, LongSupplier version) {
+        this.source = source;
+        this.version = version;
+    }
+    
+    /**
+     * Obtiene una estructura para la versión actual del origen, construyéndola si hace falta
+     * @param key tipo de estructura
+     * @param <T> tipo de la estructura
+     * @return estructura construida para la versión actual
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key<S, T> key) {
+        long current = version.getAsLong();
+        if (current != sweptVersion) {
+            entries.values().removeIf(entry -> entry.version != current);
+            sweptVersion = current;
+        }
+        
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != current) {
+            Entry created = new Entry(current);
+            entry = entries.compute(key, (k, existing) ->
+                existing != null && existing.version == current ? existing : created);
+            if (entry == created) {
+                // Construir fuera del mapa; los demás hilos esperan este mismo resultado
+                buildCount.incrementAndGet();
+                try {
+                    created.value.complete(key.builder.apply(source));
+                } catch (RuntimeException | Error e) {
+                    entries.remove(key, created); // No guardar el error: la siguiente consulta reintenta
+                    created.value.completeExceptionally(e);
+                    throw e;
+                }
+            }
+        }
+        return (T) await(key, entry);
+    }
+    
+    private static Object await(Key<?, ?> key, Entry entry) {
+        try {
+            return entry.value.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("No se pudo construir " + key, e.getCause());
+        }
+    }
+    
+    /**
+     * Obtiene una estructura solo si ya está construida para la versión actual
+     * @param key tipo de estructura
+     * @param <T> tipo de la estructura
+     * @return estructura, o null si no está construida o todavía se está construyendo
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getIfPresent(Key<S, T> key) {
+        Entry entry = entries.get(key);
+        if (entry == null || entry.version != version.getAsLong() || !entry.value.isDone()
+                || entry.value.isCompletedExceptionally()) {
+            return null;
+        }
+        return (T) entry.value.join();
+    }
+    
+    /**
+     * Descarta todas las estructuras guardadas
+     */
+    public void clear() {
+        entries.clear();
+    }
+    
+    /**
+     * Obtiene el número de estructuras construidas desde que se creó la caché
+     * @return número de construcciones
+     */
+    public long getBuildCount() {
+        return buildCount.get();
+    }
+}
@@ -0,0 +1,219 @@
+package co.edu.uptc.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Índice para sugerir cómo continuar una palabra mientras se escribe
+ * Para cada estado de un AFD compilado guarda los símbolos con los que la palabra todavía
+ * puede llegar a ser aceptada y las k palabras más cortas que la completan (de menor a mayor
+ * longitud y, a igual longitud, en orden lexicográfico). Los datos de cada estado se calculan
+ * la primera vez que se consulta y se reutilizan, así que con el estado de la palabra (por
+ * ejemplo, de un {@link AFDCursor}) cada consulta posterior cuesta O(k), sin importar el
+ * tamaño del AFD.
+ *
+ * Las palabras de cada longitud se buscan en profundidad descartando las ramas que no pueden
+ * llegar a un estado final con los símbolos que quedan (según {@link CompletionTable}). La
+ * búsqueda de un estado tiene un límite de pasos y de longitud; si se alcanza, se devuelven
+ * las palabras encontradas hasta entonces, y si no hay ninguna tan corta, solo la más corta.
+ *
+ * El índice puede consultarse desde varios hilos sin bloqueos. Como la primera búsqueda de
+ * un estado puede tardar, una interfaz gráfica debería pedirla con
+ * {@link #getCompletions(int)} en segundo plano y consultar con
+ * {@link #getCompletionsIfPresent(int)} desde su propio hilo.
+ */
+public class AutocompleteIndex {
+    /** Número de palabras sugeridas por defecto */
+    public static final int DEFAULT_LIMIT = 5;
+    // Pasos máximos de la búsqueda de palabras de un estado
+    private static final int MAX_SEARCH_STEPS = 1 << 16;
+    // Longitud máxima de las palabras buscadas (la búsqueda es recursiva)
+    private static final int MAX_SEARCH_LENGTH = 256;
+    
+    private final CompiledAFD afd;
+    private final CompletionTable completions;
+    private final int limit;
+    // Datos calculados de cada estado; si dos hilos calculan el mismo, ambos obtienen lo mismo
+    private final AtomicReferenceArray<int[]> liveSymbols;          // estado -> intervalos {primero, último, destino, ...}
+    private final AtomicReferenceArray<List<String>> shortestWords; // estado -> palabras más cortas que lo completan
+    
+    /**
+     * Constructor del índice
+     * @param afd AFD compilado
+     * @param limit número máximo de palabras sugeridas por estado
+     */
+    public AutocompleteIndex(CompiledAFD afd, int limit) {
+        this(afd, new CompletionTable(afd), limit);
+    }
+    
+    /**
+     * Constructor que reutiliza una tabla de completado ya calculada
+     * @param afd AFD compilado
+     * @param completions tabla de completado del mismo AFD
+     * @param limit número máximo de palabras sugeridas por estado
+     */
+    public AutocompleteIndex(CompiledAFD afd, CompletionTable completions, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("El número de sugerencias debe ser positivo");
+        }
+        this.afd = afd;
+        this.completions = completions;
+        this.limit = limit;
+        this.liveSymbols = new AtomicReferenceArray<>(afd.getStateCount());
+        this.shortestWords = new AtomicReferenceArray<>(afd.getStateCount());
+    }
+    
+    /**
+     * Obtiene los símbolos con los que la palabra todavía puede llegar a ser aceptada
+     * @param state estado alcanzado por la palabra (puede ser CompiledAFD.NO_STATE)
+     * @return intervalos de puntos de código como pares {primero, último, ...}, ordenados
+     */
+    public int[] getLiveSymbols(int state) {
+        if (state == CompiledAFD.NO_STATE) {
+            return new int[0];
+        }
+        int[] edges = liveEdges(state);
+        int[] symbols = new int[edges.length / 3 * 2];
+        for (int i = 0, j = 0; i < edges.length; i += 3) {
+            symbols[j++] = edges[i];
+            symbols[j++] = edges[i + 1];
+        }
+        return symbols;
+    }
+    
+    /**
+     * Obtiene las palabras más cortas que, agregadas a la palabra, hacen que se acepte.
+     * La primera vez que se piden las de un estado se buscan, con hasta 2^16 pasos.
+     * @param state estado alcanzado por la palabra (puede ser CompiledAFD.NO_STATE)
+     * @return hasta {@link #getLimit()} sufijos, de menor a mayor; el primero es vacío si la
+     *         palabra ya se acepta
+     */
+    public List<String> getCompletions(int state) {
+        List<String> words = getCompletionsIfPresent(state);
+        if (words == null) {
+            shortestWords.compareAndSet(state, null, Collections.unmodifiableList(search(state)));
+            words = shortestWords.get(state);
+        }
+        return words;
+    }
+    
+    /**
+     * Obtiene las palabras más cortas de un estado solo si ya se buscaron; no bloquea
+     * @param state estado alcanzado por la palabra (puede ser CompiledAFD.NO_STATE)
+     * @return lo mismo que {@link #getCompletions(int)}, o null si todavía no se buscaron
+     */
+    public List<String> getCompletionsIfPresent(int state) {
+        if (state == CompiledAFD.NO_STATE || completions.getDistance(state) == CompiledAFD.NO_STATE) {
+            return Collections.emptyList();
+        }
+        return shortestWords.get(state);
+    }
+    
+    public int getLimit() {
+        return limit;
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+    
+    /**
+     * Transiciones de un estado hacia estados desde los que se llega a un estado final,
+     * con los intervalos contiguos hacia el mismo destino unidos
+     */
+    private int[] liveEdges(int state) {
+        int[] cached = liveSymbols.get(state);
+        if (cached == null) {
+            int[] edges = new int[12];
+            int count = 0;
+            for (int[] interval : afd.getIntervals()) {
+                int target = afd.getTransitionTable().next(state, interval[2]);
+                if (target == CompiledAFD.NO_STATE || completions.getDistance(target) == CompiledAFD.NO_STATE) {
+                    continue;
+                }
+                if (count > 0 && edges[count - 2] == interval[0] - 1 && edges[count - 1] == target) {
+                    edges[count - 2] = interval[1];
+                    continue;
+                }
+                if (count == edges.length) {
+                    edges = Arrays.copyOf(edges, count * 2);
+                }
+                edges[count++] = interval[0];
+                edges[count++] = interval[1];
+                edges[count++] = target;
+            }
+            cached = Arrays.copyOf(edges, count);
+            liveSymbols.set(state, cached);
+        }
+        return cached;
+    }
+    
+    /**
+     * Busca las palabras más cortas desde un estado: una búsqueda en profundidad en orden
+     * lexicográfico por cada longitud, empezando por la distancia al estado final más cercano
+     */
+    private List<String> search(int state) {
+        List<String> words = new ArrayList<>(limit);
+        Search search = new Search(words);
+        for (int length = completions.getDistance(state); length <= MAX_SEARCH_LENGTH
+                && words.size() < limit && search.steps < MAX_SEARCH_STEPS; length++) {
+            search.collect(state, length, new StringBuilder());
+        }
+        if (words.isEmpty()) {
+            words.add(completions.complete(state));
+        }
+        return words;
+    }
+    
+    /**
+     * Estado de la búsqueda de palabras de un estado
+     */
+    private class Search {
+        private final List<String> words;
+        private int steps;
+        
+        Search(List<String> words) {
+            this.words = words;
+        }
+        
+        /**
+         * Agrega las palabras de exactamente la longitud indicada que llevan del estado a
+         * un estado final
+         * @return true si encontró alguna
+         */
+        boolean collect(int state, int remaining, StringBuilder prefix) {
+            steps++;
+            if (remaining == 0) {
+                if (afd.isAccepting(state)) {
+                    words.add(prefix.toString());
+                    return true;
+                }
+                return false;
+            }
+            boolean found = false;
+            int[] edges = liveEdges(state);
+            for (int e = 0; e < edges.length && words.size() < limit && steps < MAX_SEARCH_STEPS; e += 3) {
+                int target = edges[e + 2];
+                if (completions.getDistance(target) > remaining - 1) {
+                    continue;
+                }
+                // Todos los símbolos del intervalo llevan al mismo estado: si el primero no
+                // encuentra palabras, los demás tampoco
+                for (int symbol = edges[e]; symbol <= edges[e + 1] && words.size() < limit; symbol++) {
+                    int mark = prefix.length();
+                    prefix.appendCodePoint(symbol);
+                    boolean any = collect(target, remaining - 1, prefix);
+                    prefix.setLength(mark);
+                    if (!any) {
+                        break;
+                    }
+                    found = true;
+                }
+            }
+            return found;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package co.edu.uptc.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forma canónica de un AFD: una representación en bytes que solo depende del alfabeto y del
+ * lenguaje aceptado, no de los nombres de los estados ni del orden en que se definieron
+ * Se obtiene en tres pasos sobre la versión compilada:
+ * 1. Se descartan los estados inalcanzables y los que no llevan a ningún estado final.
+ * 2. Se minimiza con el algoritmo de Hopcroft (refinamiento de particiones).
+ * 3. Se renumeran los estados con un recorrido en anchura desde el inicial, visitando las
+ *    transiciones en orden de símbolo.
+ *
+ * Dos AFD con el mismo alfabeto que aceptan el mismo lenguaje tienen exactamente los mismos
+ * bytes, así que basta comparar su hash (64 o 128 bits) para saber si son equivalentes.
+ */
+public final class CanonicalForm {
+    // Identificador y versión del formato de bytes
+    private static final int MAGIC = 0x4146434E; // "AFCN"
+    private static final int VERSION = 1;
+    
+    private final int[] alphabet;       // intervalos del alfabeto: pares (primero, último)
+    private final boolean[] accepting;  // estado canónico -> es final
+    private final int[][] transitions;  // por estado: tríos (primero, último, destino) en orden
+    private final byte[] bytes;
+    private final byte[] digest;        // SHA-256 de los bytes
+    
+    private CanonicalForm(int[] alphabet, boolean[] accepting, int[][] transitions) {
+        this.alphabet = alphabet;
+        this.accepting = accepting;
+        this.transitions = transitions;
+        this.bytes = encode();
+        try {
+            this.digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    /**
+     * Calcula la forma canónica de un AFD
+     * @param afd AFD de origen
+     * @return forma canónica
+     */
+    public static CanonicalForm of(AFD afd) {
+        return of(afd.compile());
+    }
+    
+    /**
+     * Calcula la forma canónica de un AFD compilado
+     * @param afd AFD compilado
+     * @return forma canónica
+     */
+    public static CanonicalForm of(CompiledAFD afd) {
+        List<int[]> intervals = afd.getIntervals();
+        int[] alphabet = mergeIntervals(intervals);
+        int columns = afd.getClassCount();
+        TransitionTable table = afd.getTransitionTable();
+        
+        // 1. Estados alcanzables desde el inicial que llevan a algún estado final
+        boolean[] live = afd.findLiveStates();
+        int initial = afd.getInitialState();
+        if (initial == CompiledAFD.NO_STATE || !live[initial]) {
+            return new CanonicalForm(alphabet, new boolean[0], new int[0][]);
+        }
+        int[] index = new int[afd.getStateCount()];
+        Arrays.fill(index, -1);
+        int[] order = new int[afd.getStateCount()];
+        int count = 0;
+        order[count] = initial;
+        index[initial] = count++;
+        for (int head = 0; head < count; head++) {
+            for (int c = 0; c < columns; c++) {
+                int target = table.next(order[head], c);
+                if (target != CompiledAFD.NO_STATE && live[target] && index[target] < 0) {
+                    index[target] = count;
+                    order[count++] = target;
+                }
+            }
+        }
+        
+        // Tabla completa: las transiciones ausentes o a estados sin salida van al estado muerto
+        int dead = count;
+        int size = count + 1;
+        int[] next = new int[size * columns];
+        boolean[] finals = new boolean[size];
+        for (int s = 0; s < count; s++) {
+            finals[s] = afd.isAccepting(order[s]);
+            for (int c = 0; c < columns; c++) {
+                int target = table.next(order[s], c);
+                next[s * columns + c] = target != CompiledAFD.NO_STATE && index[target] >= 0 ? index[target] : dead;
+            }
+        }
+        Arrays.fill(next, dead * columns, size * columns, dead);
+        
+        // 2. Minimizar
+        int[] block = minimize(next, finals, size, columns);
+        
+        // 3. Renumerar en anchura desde el inicial, recorriendo los símbolos en orden
+        int blockCount = 0;
+        for (int b : block) {
+            blockCount = Math.max(blockCount, b + 1);
+        }
+        int[] representative = new int[blockCount];
+        for (int s = size - 1; s >= 0; s--) {
+            representative[block[s]] = s;
+        }
+        int deadBlock = block[dead];
+        int[] canonical = new int[blockCount];
+        Arrays.fill(canonical, -1);
+        int[] queue = new int[blockCount];
+        int canonicalCount = 0;
+        queue[canonicalCount] = block[0];
+        canonical[block[0]] = canonicalCount++;
+        int[][] runs = new int[blockCount][];
+        int[] buffer = new int[3 * intervals.size()];
+        for (int head = 0; head < canonicalCount; head++) {
+            int s = representative[queue[head]];
+            int length = 0;
+            for (int[] interval : intervals) {
+                int target = block[next[s * columns + interval[2]]];
+                if (target == deadBlock) {
+                    continue;
+                }
+                if (canonical[target] < 0) {
+                    canonical[target] = canonicalCount;
+                    queue[canonicalCount++] = target;
+                }
+                // Unir con el intervalo anterior si es contiguo y va al mismo destino
+                if (length > 0 && buffer[length - 2] + 1 == interval[0] && buffer[length - 1] == canonical[target]) {
+                    buffer[length - 2] = interval[1];
+                } else {
+                    buffer[length++] = interval[0];
+                    buffer[length++] = interval[1];
+                    buffer[length++] = canonical[target];
+                }
+            }
+            runs[head] = Arrays.copyOf(buffer, length);
+        }
+        boolean[] accepting = new boolean[canonicalCount];
+        for (int i = 0; i < canonicalCount; i++) {
+            accepting[i] = finals[representative[queue[i]]];
+        }
+        return new CanonicalForm(alphabet, accepting, Arrays.copyOf(runs, canonicalCount));
+    }
+    
+    /**
+     * Une los intervalos contiguos del alfabeto sin tener en cuenta su columna
+     */
+    private static int[] mergeIntervals(List<int[]> intervals) {
+        int[] merged = new int[2 * intervals.size()];
+        int length = 0;
+        for (int[] interval : intervals) {
+            if (length > 0 && merged[length - 1] + 1 == interval[0]) {
+                merged[length - 1] = interval[1];
+            } else {
+                merged[length++] = interval[0];
+                merged[length++] = interval[1];
+            }
+        }
+        return Arrays.copyOf(merged, length);
+    }
+    
+    /**
+     * Minimiza un AFD completo con el algoritmo de Hopcroft
+     * La partición se guarda en un arreglo de elementos donde cada bloque ocupa un tramo
+     * contiguo; marcar un estado lo mueve al principio de su bloque, y un bloque con parte
+     * marcada se divide en dos tramos sin copiar nada.
+     * @param next tabla completa (estado * columnas + columna) -> destino
+     * @param finals estados finales
+     * @param size número de estados
+     * @param columns número de columnas
+     * @return bloque (clase de equivalencia) de cada estado
+     */
+    private static int[] minimize(int[] next, boolean[] finals, int size, int columns) {
+        // Transiciones inversas por columna en formato CSR
+        int[] inverseStart = new int[columns * (size + 1) + 1];
+        for (int s = 0; s < size; s++) {
+            for (int c = 0; c < columns; c++) {
+                inverseStart[c * (size + 1) + next[s * columns + c] + 1]++;
+            }
+        }
+        for (int i = 0; i + 1 < inverseStart.length; i++) {
+            inverseStart[i + 1] += inverseStart[i];
+        }
+        int[] inverse = new int[size * columns];
+        int[] filled = Arrays.copyOf(inverseStart, inverseStart.length);
+        for (int s = 0; s < size; s++) {
+            for (int c = 0; c < columns; c++) {
+                inverse[filled[c * (size + 1) + next[s * columns + c]]++] = s;
+            }
+        }
+        
+        // Partición inicial: finales y no finales
+        int[] elements = new int[size];
+        int[] position = new int[size];
+        int[] block = new int[size];
+        int[] first = new int[size + 1];
+        int[] end = new int[size + 1];
+        int[] marked = new int[size + 1];   // fin de la parte marcada de cada bloque
+        int blocks = 0;
+        int length = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            int start = length;
+            for (int s = 0; s < size; s++) {
+                if (finals[s] == (pass == 0)) {
+                    position[s] = length;
+                    elements[length++] = s;
+                    block[s] = blocks;
+                }
+            }
+            if (length > start) {
+                first[blocks] = start;
+                end[blocks] = length;
+                marked[blocks] = start;
+                blocks++;
+            }
+        }
+        
+        int[] pending = new int[size + 1];
+        boolean[] inPending = new boolean[size + 1];
+        int pendingCount = 0;
+        for (int b = 0; b < blocks; b++) {
+            pending[pendingCount++] = b;
+            inPending[b] = true;
+        }
+        int[] splitter = new int[size];
+        int[] touched = new int[size + 1];
+        while (pendingCount > 0) {
+            int a = pending[--pendingCount];
+            inPending[a] = false;
+            // Copiar el bloque: puede dividirse mientras se procesan las columnas
+            int splitterSize = end[a] - first[a];
+            System.arraycopy(elements, first[a], splitter, 0, splitterSize);
+            for (int c = 0; c < columns; c++) {
+                int touchedCount = 0;
+                for (int k = 0; k < splitterSize; k++) {
+                    int t = splitter[k];
+                    int base = c * (size + 1) + t;
+                    for (int e = inverseStart[base]; e < inverseStart[base + 1]; e++) {
+                        int s = inverse[e];
+                        int b = block[s];
+                        if (position[s] >= marked[b]) {
+                            if (marked[b] == first[b]) {
+                                touched[touchedCount++] = b;
+                            }
+                            // Mover s al final de la parte marcada de su bloque
+                            int other = elements[marked[b]];
+                            elements[position[s]] = other;
+                            position[other] = position[s];
+                            elements[marked[b]] = s;
+                            position[s] = marked[b];
+                            marked[b]++;
+                        }
+                    }
+                }
+                for (int i = 0; i < touchedCount; i++) {
+                    int b = touched[i];
+                    if (marked[b] == end[b]) {
+                        marked[b] = first[b];
+                        continue;
+                    }
+                    // Dividir: la parte marcada pasa a un bloque nuevo
+                    int created = blocks++;
+                    first[created] = first[b];
+                    end[created] = marked[b];
+                    marked[created] = first[created];
+                    first[b] = end[created];
+                    marked[b] = first[b];
+                    for (int p = first[created]; p < end[created]; p++) {
+                        block[elements[p]] = created;
+                    }
+                    if (inPending[b]) {
+                        pending[pendingCount++] = created;
+                        inPending[created] = true;
+                    } else {
+                        int smaller = end[created] - first[created] <= end[b] - first[b] ? created : b;
+                        pending[pendingCount++] = smaller;
+                        inPending[smaller] = true;
+                    }
+                }
+            }
+        }
+        return block;
+    }
+    
+    /**
+     * Codifica la forma canónica: alfabeto, estados finales y transiciones por intervalos
+     */
+    private byte[] encode() {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(buffer)) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(alphabet.length / 2);
+            for (int value : alphabet) {
+                out.writeInt(value);
+            }
+            out.writeInt(accepting.length);
+            for (int s = 0; s < accepting.length; s++) {
+                out.writeBoolean(accepting[s]);
+                out.writeInt(transitions[s].length / 3);
+                for (int value : transitions[s]) {
+                    out.writeInt(value);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+    
+    /**
+     * Construye el AFD mínimo descrito por la forma canónica, con estados q0..qn-1
+     * numerados en el orden canónico (q0 es el inicial)
+     * @return AFD mínimo equivalente
+     */
+    public AFD toAFD() {
+        AFD afd = new AFD();
+        for (int i = 0; i < alphabet.length; i += 2) {
+            if (alphabet[i] == alphabet[i + 1]) {
+                afd.getAlphabet().addCodePoint(alphabet[i]);
+            } else {
+                afd.getAlphabet().addRange(alphabet[i], alphabet[i + 1]);
+            }
+        }
+        State[] states = new State[accepting.length];
+        for (int s = 0; s < states.length; s++) {
+            states[s] = new State("q" + s);
+            afd.addState(states[s]);
+            if (accepting[s]) {
+                afd.addFinalState(states[s]);
+            }
+        }
+        if (states.length > 0) {
+            afd.setInitialState(states[0]);
+        }
+        for (int s = 0; s < states.length; s++) {
+            int[] runs = transitions[s];
+            for (int i = 0; i < runs.length; i += 3) {
+                if (runs[i] == runs[i + 1] && runs[i] <= Character.MAX_VALUE) {
+                    afd.addTransition(states[s], (char) runs[i], states[runs[i + 2]]);
+                } else {
+                    afd.addRangeTransition(states[s], runs[i], runs[i + 1], states[runs[i + 2]]);
+                }
+            }
+        }
+        return afd;
+    }
+    
+    /**
+     * Obtiene los bytes de la forma canónica
+     * @return copia de los bytes
+     */
+    public byte[] getBytes() {
+        return bytes.clone();
+    }
+    
+    /**
+     * Obtiene un hash de 64 bits de la forma canónica
+     * @return primeros 64 bits del SHA-256 de los bytes
+     */
+    public long getHash() {
+        long hash = 0;
+        for (int i = 0; i < 8; i++) {
+            hash = (hash << 8) | (digest[i] & 0xff);
+        }
+        return hash;
+    }
+    
+    /**
+     * Obtiene un hash de 128 bits de la forma canónica en hexadecimal
+     * @return primeros 128 bits del SHA-256 de los bytes (32 dígitos)
+     */
+    public String getHash128() {
+        StringBuilder hex = new StringBuilder(32);
+        for (int i = 0; i < 16; i++) {
+            hex.append(Character.forDigit((digest[i] >> 4) & 0xf, 16)).append(Character.forDigit(digest[i] & 0xf, 16));
+        }
+        return hex.toString();
+    }
+    
+    /**
+     * Obtiene el número de estados del AFD mínimo (sin contar el estado muerto)
+     * @return número de estados canónicos
+     */
+    public int getStateCount() {
+        return accepting.length;
+    }
+    
+    /**
+     * Verifica si el lenguaje aceptado es vacío
+     * @return true si ninguna palabra es aceptada
+     */
+    public boolean isEmptyLanguage() {
+        return accepting.length == 0;
+    }
+    
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CanonicalForm && Arrays.equals(bytes, ((CanonicalForm) other).bytes);
+    }
+    
+    @Override
+    public int hashCode() {
+        return (int) getHash();
+    }
+    
+    @Override
+    public String toString() {
+        return "CanonicalForm{estados=" + accepting.length + ", bytes=" + bytes.length + ", hash=" + getHash128() + "}";
+    }
+}
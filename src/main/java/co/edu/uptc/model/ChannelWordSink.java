@@ -0,0 +1,73 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Destino que escribe las palabras en un canal, una por línea y codificadas en UTF-8
+ * Cada instancia acumula las palabras en su propio buffer y escribe bloques completos,
+ * por lo que varias instancias pueden compartir un mismo FileChannel.
+ */
+public class ChannelWordSink implements WordSink {
+    // Tamaño del bloque de bytes que se escribe de una vez
+    private static final int BLOCK_SIZE = 16 * 1024;
+    
+    private final WritableByteChannel channel;
+    private final ByteBuffer block;
+    private final CharsetEncoder encoder;
+    
+    /**
+     * Constructor del destino
+     * @param channel canal de salida
+     */
+    public ChannelWordSink(WritableByteChannel channel) {
+        this.channel = channel;
+        this.block = ByteBuffer.allocate(BLOCK_SIZE);
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+    
+    @Override
+    public void accept(char[] buffer, int length) {
+        CharBuffer word = CharBuffer.wrap(buffer, 0, length);
+        encoder.reset();
+        CoderResult result = encoder.encode(word, block, true);
+        while (result.isOverflow()) {
+            writeBlock();
+            result = encoder.encode(word, block, true);
+        }
+        if (!block.hasRemaining()) {
+            writeBlock();
+        }
+        block.put((byte) '\n');
+    }
+    
+    @Override
+    public void flush() {
+        writeBlock();
+    }
+    
+    /**
+     * Escribe el contenido del bloque en el canal y lo vacía
+     * @throws UncheckedIOException si hay error al escribir
+     */
+    private void writeBlock() {
+        block.flip();
+        try {
+            while (block.hasRemaining()) {
+                channel.write(block);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        block.clear();
+    }
+}
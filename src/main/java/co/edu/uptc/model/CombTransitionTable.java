@@ -0,0 +1,400 @@
+package co.edu.uptc.model;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tabla de transiciones comprimida con vectores peine (base/next/check) y filas por defecto,
+ * al estilo de los generadores de analizadores léxicos.
+ *
+ * Cada estado guarda solo las celdas en las que difiere de su fila por defecto (una fila
+ * "plantilla" parecida); las filas idénticas no guardan nada. Las celdas de todas las filas se
+ * entrelazan en los arreglos next/check: la celda (s, c) está en base[s] + c y es válida si
+ * check[base[s] + c] == s. La consulta hace como máximo dos accesos, así que sigue siendo O(1).
+ */
+public class CombTransitionTable implements TransitionTable {
+    // Cantidad de plantillas recientes con las que se compara cada fila nueva
+    private static final int MAX_TEMPLATE_CANDIDATES = 32;
+    // Identificador del formato binario
+    private static final int FORMAT_MAGIC = 0x434F4D42; // "COMB"
+    // Entradas que se reservan de una vez al leer; los arreglos crecen a medida que llegan
+    // datos, para que un encabezado corrupto no reserve memoria que el archivo no contiene
+    private static final int READ_CHUNK = 1 << 16;
+    
+    private final int stateCount;
+    private final int columnCount;
+    private final int[] base;     // estado -> desplazamiento de su fila en next/check
+    private final int[] defaults; // estado -> fila por defecto (NO_STATE si es plantilla)
+    private final int[] next;     // destino de cada celda guardada
+    private final int[] check;    // estado dueño de cada celda (-1 si está libre)
+    private final CompressionStats stats;
+    
+    private CombTransitionTable(int stateCount, int columnCount, int[] base, int[] defaults,
+                                int[] next, int[] check, CompressionStats stats) {
+        this.stateCount = stateCount;
+        this.columnCount = columnCount;
+        this.base = base;
+        this.defaults = defaults;
+        this.next = next;
+        this.check = check;
+        this.stats = stats;
+    }
+    
+    /**
+     * Comprime una tabla de transiciones
+     * @param source tabla original
+     * @return tabla comprimida con la misma función de transición
+     */
+    public static CombTransitionTable compress(TransitionTable source) {
+        return compress(source, source.getMemoryBytes());
+    }
+    
+    /**
+     * Comprime una tabla de transiciones cuyas columnas son clases de símbolos
+     * @param source tabla original
+     * @param rawBytes memoria que ocuparía la tabla con una columna por símbolo, para las estadísticas
+     * @return tabla comprimida con la misma función de transición
+     */
+    public static CombTransitionTable compress(TransitionTable source, long rawBytes) {
+        int stateCount = source.getStateCount();
+        int columnCount = source.getColumnCount();
+        
+        // Extraer cada fila como lista de celdas definidas
+        int[][] rowColumns = new int[stateCount][];
+        int[][] rowTargets = new int[stateCount][];
+        int[] buffer = new int[columnCount];
+        for (int s = 0; s < stateCount; s++) {
+            int size = 0;
+            for (int c = 0; c < columnCount; c++) {
+                int target = source.next(s, c);
+                if (target != CompiledAFD.NO_STATE) {
+                    buffer[size++] = c;
+                }
+            }
+            rowColumns[s] = Arrays.copyOf(buffer, size);
+            rowTargets[s] = new int[size];
+            for (int i = 0; i < size; i++) {
+                rowTargets[s][i] = source.next(s, rowColumns[s][i]);
+            }
+        }
+        
+        // Elegir, para cada fila, una plantilla idéntica o parecida y calcular las diferencias
+        int[] defaults = new int[stateCount];
+        int[][] entryColumns = new int[stateCount][];
+        int[][] entryTargets = new int[stateCount][];
+        Map<Row, Integer> identical = new HashMap<>();
+        List<Integer> templates = new ArrayList<>();
+        int duplicateRows = 0;
+        int defaultRows = 0;
+        for (int s = 0; s < stateCount; s++) {
+            Row row = new Row(rowColumns[s], rowTargets[s]);
+            Integer twin = identical.get(row);
+            if (twin != null) {
+                duplicateRows++;
+                if (defaults[twin] == CompiledAFD.NO_STATE) {
+                    defaults[s] = twin;
+                    entryColumns[s] = new int[0];
+                    entryTargets[s] = new int[0];
+                } else {
+                    defaults[s] = defaults[twin];
+                    entryColumns[s] = entryColumns[twin];
+                    entryTargets[s] = entryTargets[twin];
+                }
+                continue;
+            }
+            identical.put(row, s);
+            
+            int best = CompiledAFD.NO_STATE;
+            int bestDifference = rowColumns[s].length / 2;
+            for (int k = templates.size() - 1; k >= 0 && k >= templates.size() - MAX_TEMPLATE_CANDIDATES; k--) {
+                int template = templates.get(k);
+                int difference = countDifferences(rowColumns[s], rowTargets[s], rowColumns[template], rowTargets[template]);
+                if (difference < bestDifference) {
+                    best = template;
+                    bestDifference = difference;
+                }
+            }
+            
+            defaults[s] = best;
+            if (best == CompiledAFD.NO_STATE) {
+                entryColumns[s] = rowColumns[s];
+                entryTargets[s] = rowTargets[s];
+                templates.add(s);
+            } else {
+                defaultRows++;
+                int[][] diff = difference(rowColumns[s], rowTargets[s], rowColumns[best], rowTargets[best], bestDifference);
+                entryColumns[s] = diff[0];
+                entryTargets[s] = diff[1];
+            }
+        }
+        
+        // Empaquetar las filas en los vectores peine, de la más llena a la más vacía
+        Integer[] order = new Integer[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            order[s] = s;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(entryColumns[b].length, entryColumns[a].length));
+        
+        int capacity = Math.max(columnCount, 16);
+        int[] next = new int[capacity];
+        int[] check = new int[capacity];
+        Arrays.fill(check, -1);
+        int[] base = new int[stateCount];
+        int firstFree = 0;
+        int used = columnCount;
+        for (int s : order) {
+            int[] columns = entryColumns[s];
+            if (columns.length == 0) {
+                continue;
+            }
+            while (firstFree < check.length && check[firstFree] != -1) {
+                firstFree++;
+            }
+            int offset = Math.max(0, firstFree - columns[0]);
+            while (!fits(check, columns, offset)) {
+                offset++;
+            }
+            int end = offset + columnCount;
+            if (end > check.length) {
+                int newCapacity = Math.max(end, check.length * 2);
+                next = Arrays.copyOf(next, newCapacity);
+                int oldLength = check.length;
+                check = Arrays.copyOf(check, newCapacity);
+                Arrays.fill(check, oldLength, newCapacity, -1);
+            }
+            base[s] = offset;
+            for (int i = 0; i < columns.length; i++) {
+                next[offset + columns[i]] = entryTargets[s][i];
+                check[offset + columns[i]] = s;
+            }
+            used = Math.max(used, end);
+        }
+        next = Arrays.copyOf(next, used);
+        check = Arrays.copyOf(check, used);
+        
+        CompressionStats stats = new CompressionStats(rawBytes, source.getMemoryBytes(),
+                4L * (base.length + defaults.length + next.length + check.length),
+                stateCount, templates.size(), defaultRows, duplicateRows);
+        return new CombTransitionTable(stateCount, columnCount, base, defaults, next, check, stats);
+    }
+    
+    /**
+     * Verifica si las celdas de una fila caben en los vectores a partir de un desplazamiento
+     */
+    private static boolean fits(int[] check, int[] columns, int offset) {
+        for (int column : columns) {
+            int index = offset + column;
+            if (index < check.length && check[index] != -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Cuenta las columnas en las que dos filas difieren (incluye celdas definidas solo en una)
+     */
+    private static int countDifferences(int[] columnsA, int[] targetsA, int[] columnsB, int[] targetsB) {
+        int i = 0;
+        int j = 0;
+        int differences = 0;
+        while (i < columnsA.length || j < columnsB.length) {
+            if (j == columnsB.length || (i < columnsA.length && columnsA[i] < columnsB[j])) {
+                differences++;
+                i++;
+            } else if (i == columnsA.length || columnsB[j] < columnsA[i]) {
+                differences++;
+                j++;
+            } else {
+                if (targetsA[i] != targetsB[j]) {
+                    differences++;
+                }
+                i++;
+                j++;
+            }
+        }
+        return differences;
+    }
+    
+    /**
+     * Calcula las celdas en las que una fila difiere de su plantilla. Las celdas que la
+     * plantilla define y la fila no se guardan explícitamente como NO_STATE.
+     */
+    private static int[][] difference(int[] columns, int[] targets, int[] templateColumns, int[] templateTargets, int size) {
+        int[] resultColumns = new int[size];
+        int[] resultTargets = new int[size];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < columns.length || j < templateColumns.length) {
+            if (j == templateColumns.length || (i < columns.length && columns[i] < templateColumns[j])) {
+                resultColumns[k] = columns[i];
+                resultTargets[k++] = targets[i++];
+            } else if (i == columns.length || templateColumns[j] < columns[i]) {
+                resultColumns[k] = templateColumns[j++];
+                resultTargets[k++] = CompiledAFD.NO_STATE;
+            } else {
+                if (targets[i] != templateTargets[j]) {
+                    resultColumns[k] = columns[i];
+                    resultTargets[k++] = targets[i];
+                }
+                i++;
+                j++;
+            }
+        }
+        return new int[][] {resultColumns, resultTargets};
+    }
+    
+    @Override
+    public int next(int state, int column) {
+        int index = base[state] + column;
+        if (check[index] == state) {
+            return next[index];
+        }
+        int template = defaults[state];
+        if (template == CompiledAFD.NO_STATE) {
+            return CompiledAFD.NO_STATE;
+        }
+        index = base[template] + column;
+        return check[index] == template ? next[index] : CompiledAFD.NO_STATE;
+    }
+    
+    @Override
+    public int getStateCount() {
+        return stateCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+    
+    @Override
+    public long getMemoryBytes() {
+        return 4L * (base.length + defaults.length + next.length + check.length);
+    }
+    
+    /**
+     * Obtiene las estadísticas de memoria de la compresión
+     * @return estadísticas antes y después de comprimir
+     */
+    public CompressionStats getStats() {
+        return stats;
+    }
+    
+    /**
+     * Escribe la tabla en formato binario
+     * @param out flujo de salida
+     * @throws IOException si hay error al escribir
+     */
+    public void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(FORMAT_MAGIC);
+        out.writeInt(stateCount);
+        out.writeInt(columnCount);
+        out.writeInt(next.length);
+        for (int s = 0; s < stateCount; s++) {
+            out.writeInt(base[s]);
+            out.writeInt(defaults[s]);
+        }
+        for (int i = 0; i < next.length; i++) {
+            out.writeInt(next[i]);
+            out.writeInt(check[i]);
+        }
+    }
+    
+    /**
+     * Lee una tabla escrita con {@link #writeTo(DataOutputStream)}
+     * @param in flujo de entrada
+     * @return tabla leída
+     * @throws IOException si hay error al leer o el formato no es válido
+     */
+    public static CombTransitionTable readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != FORMAT_MAGIC) {
+            throw new IOException("Formato de tabla de transiciones no válido");
+        }
+        int stateCount = in.readInt();
+        int columnCount = in.readInt();
+        int length = in.readInt();
+        // Una tabla comprimida nunca ocupa más celdas que la tabla completa más una fila
+        if (stateCount < 0 || columnCount < 0 || length < columnCount
+                || length > (long) stateCount * columnCount + columnCount) {
+            throw new IOException("Dimensiones de tabla de transiciones no válidas");
+        }
+        int[] base = new int[Math.min(stateCount, READ_CHUNK)];
+        int[] defaults = new int[base.length];
+        for (int s = 0; s < stateCount; s++) {
+            if (s == base.length) {
+                base = Arrays.copyOf(base, grownLength(base.length, stateCount));
+                defaults = Arrays.copyOf(defaults, base.length);
+            }
+            base[s] = in.readInt();
+            defaults[s] = in.readInt();
+            if (base[s] < 0 || (long) base[s] + columnCount > length
+                    || defaults[s] < CompiledAFD.NO_STATE || defaults[s] >= stateCount) {
+                throw new IOException("Fila de la tabla de transiciones fuera de rango: " + s);
+            }
+        }
+        int[] next = new int[Math.min(length, READ_CHUNK)];
+        int[] check = new int[next.length];
+        for (int i = 0; i < length; i++) {
+            if (i == next.length) {
+                next = Arrays.copyOf(next, grownLength(next.length, length));
+                check = Arrays.copyOf(check, next.length);
+            }
+            next[i] = in.readInt();
+            check[i] = in.readInt();
+            if (check[i] < -1 || check[i] >= stateCount || next[i] < CompiledAFD.NO_STATE || next[i] >= stateCount) {
+                throw new IOException("Celda de la tabla de transiciones fuera de rango: " + i);
+            }
+        }
+        long bytes = 4L * (base.length + defaults.length + next.length + check.length);
+        return new CombTransitionTable(stateCount, columnCount, base, defaults, next, check,
+                new CompressionStats(bytes, bytes, bytes, stateCount, 0, 0, 0));
+    }
+    
+    /**
+     * Nuevo tamaño de un arreglo que se llena al leer: el doble, sin pasar del total
+     */
+    private static int grownLength(int current, int total) {
+        return (int) Math.min((long) current * 2, total);
+    }
+    
+    @Override
+    public String toString() {
+        return "CombTransitionTable{" + stateCount + "×" + columnCount + ", " + getMemoryBytes() + " bytes}";
+    }
+    
+    /**
+     * Fila de la tabla usada como clave para detectar filas idénticas
+     */
+    private static class Row {
+        private final int[] columns;
+        private final int[] targets;
+        private final int hash;
+        
+        Row(int[] columns, int[] targets) {
+            this.columns = columns;
+            this.targets = targets;
+            this.hash = 31 * Arrays.hashCode(columns) + Arrays.hashCode(targets);
+        }
+        
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null || getClass() != obj.getClass()) return false;
+            Row row = (Row) obj;
+            return Arrays.equals(columns, row.columns) && Arrays.equals(targets, row.targets);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,1032 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Versión compilada de un AFD para procesar palabras rápidamente
+ * Los estados se numeran de 0 a n-1 (ordenados por nombre) y los símbolos se agrupan en
+ * clases de equivalencia (símbolos que se comportan igual en todos los estados), de modo que
+ * δ se resuelve con una consulta símbolo -> columna y un acceso a la tabla de transiciones.
+ *
+ * Los símbolos son puntos de código Unicode. Los rangos del alfabeto y de las transiciones
+ * se parten en intervalos elementales que se agrupan en clases igual que los símbolos
+ * individuales, así un rango como "todas las letras" no ocupa una entrada por símbolo.
+ * La columna de un símbolo se obtiene con una tabla directa para los primeros puntos de
+ * código del alfabeto y con búsqueda binaria sobre los intervalos para el resto.
+ *
+ * Los estados que permanecen en sí mismos con casi todos los símbolos (bucles) se aceleran:
+ * en lugar de consultar la tabla símbolo por símbolo se salta directamente al siguiente
+ * símbolo de salida usando String.indexOf, que la JVM implementa con instrucciones vectoriales.
+ */
+public class CompiledAFD {
+    /** Identificador usado cuando no existe transición (estado muerto) */
+    public static final int NO_STATE = -1;
+    
+    // Máximo de símbolos de salida para considerar un estado como bucle acelerable
+    private static final int MAX_EXIT_SYMBOLS = 4;
+    // Longitud mínima restante para que valga la pena buscar el siguiente símbolo de salida
+    private static final int MIN_SKIP_LENGTH = 16;
+    // Tamaño del buffer usado al procesar un Reader
+    private static final int BUFFER_SIZE = 8192;
+    // Máximo de puntos de código cubiertos por la tabla directa símbolo -> columna
+    private static final int DIRECT_LOOKUP_SIZE = 4096;
+    
+    private final long version;           // Versión del AFD a partir de la cual se compiló
+    private final State[] states;         // id -> estado
+    private final Map<State, Integer> stateIds;
+    private final int symbolCount;        // Número de puntos de código del alfabeto
+    private final int[] segmentFirst;     // intervalo elemental -> primer punto de código
+    private final int[] segmentLast;      // intervalo elemental -> último punto de código
+    private final SymbolClasses classes;  // intervalo elemental -> clase (columna de la tabla)
+    private final int minSymbol;
+    private final int maxSymbol;
+    private final int[] columns;          // (símbolo - minSymbol) -> columna, -1 si no pertenece al alfabeto
+    private final int[] lookupFirst;      // intervalos contiguos con la misma columna, ordenados
+    private final int[] lookupLast;
+    private final int[] lookupColumn;
+    private final TransitionTable table;  // (estado, columna) -> estado destino
+    private final boolean[] accepting;
+    private final int initialState;
+    private final int[][] exitSymbols;    // por estado: símbolos que abandonan el bucle (null si no es acelerable)
+    private final int[][] exitSlots;      // por estado: posición de cada símbolo de salida en la caché de búsqueda
+    private final int exitSlotCount;
+    private volatile Long fingerprint;    // Huella, calculada la primera vez que se pide
+    
+    /**
+     * Compila un AFD. Se usa a través de {@link AFD#compile()}
+     * @param afd AFD a compilar
+     * @param version versión del AFD en el momento de compilar
+     */
+    CompiledAFD(AFD afd, long version) {
+        this.version = version;
+        
+        // Numerar estados en orden de nombre para que la compilación sea estable
+        List<State> stateList = new ArrayList<>(afd.getStates());
+        stateList.sort(Comparator.comparing(State::getName));
+        this.states = stateList.toArray(new State[0]);
+        this.stateIds = new HashMap<>();
+        for (int i = 0; i < states.length; i++) {
+            stateIds.put(states[i], i);
+        }
+        
+        // Partir el alfabeto en intervalos elementales: cada transición (individual o por rango)
+        // cubre intervalos completos, de modo que todos los símbolos de un intervalo se comportan igual
+        int[] alphabet = afd.getAlphabet().getIntervals();
+        Map<TransitionFunction.TransitionKey, State> transitionMap = afd.getTransitions().getTransitions();
+        List<TransitionFunction.RangeTransition> rangeList = afd.getTransitions().getRangeTransitions();
+        int[] boundaries = new int[alphabet.length + 2 * transitionMap.size() + 2 * rangeList.size()];
+        int boundaryCount = 0;
+        for (int i = 0; i < alphabet.length; i += 2) {
+            boundaries[boundaryCount++] = alphabet[i];
+            boundaries[boundaryCount++] = alphabet[i + 1] + 1;
+        }
+        for (TransitionFunction.TransitionKey key : transitionMap.keySet()) {
+            boundaries[boundaryCount++] = key.getSymbol();
+            boundaries[boundaryCount++] = key.getSymbol() + 1;
+        }
+        for (TransitionFunction.RangeTransition range : rangeList) {
+            boundaries[boundaryCount++] = range.getFirst();
+            boundaries[boundaryCount++] = range.getLast() + 1;
+        }
+        Arrays.sort(boundaries, 0, boundaryCount);
+        int[] first = new int[Math.max(boundaryCount - 1, 0)];
+        int[] last = new int[first.length];
+        int segmentCount = 0;
+        int interval = 0;
+        int codePoints = 0;
+        for (int b = 0; b + 1 < boundaryCount; b++) {
+            if (boundaries[b] == boundaries[b + 1]) {
+                continue;
+            }
+            while (interval < alphabet.length && alphabet[interval + 1] < boundaries[b]) {
+                interval += 2;
+            }
+            if (interval < alphabet.length && alphabet[interval] <= boundaries[b]) {
+                first[segmentCount] = boundaries[b];
+                last[segmentCount] = boundaries[b + 1] - 1;
+                codePoints += last[segmentCount] - first[segmentCount] + 1;
+                segmentCount++;
+            }
+        }
+        this.segmentFirst = Arrays.copyOf(first, segmentCount);
+        this.segmentLast = Arrays.copyOf(last, segmentCount);
+        this.symbolCount = codePoints;
+        this.minSymbol = segmentCount > 0 ? segmentFirst[0] : 0;
+        this.maxSymbol = segmentCount > 0 ? segmentLast[segmentCount - 1] : -1;
+        
+        // Transiciones de símbolo individual como enteros
+        int singleCount = 0;
+        int[] singleFrom = new int[transitionMap.size()];
+        int[] singleSegment = new int[transitionMap.size()];
+        int[] singleTo = new int[transitionMap.size()];
+        for (Map.Entry<TransitionFunction.TransitionKey, State> entry : transitionMap.entrySet()) {
+            int source = getStateId(entry.getKey().getState());
+            int segment = findSegment(entry.getKey().getSymbol());
+            int target = getStateId(entry.getValue());
+            if (source == NO_STATE || segment < 0 || target == NO_STATE) {
+                continue;
+            }
+            singleFrom[singleCount] = source;
+            singleSegment[singleCount] = segment;
+            singleTo[singleCount] = target;
+            singleCount++;
+        }
+        
+        // Transiciones por rango como intervalos de índices [desde, hasta] de intervalos elementales
+        int rangeCount = 0;
+        int rangeEdges = 0;
+        int[] rangeFrom = new int[rangeList.size()];
+        int[] rangeLow = new int[rangeList.size()];
+        int[] rangeHigh = new int[rangeList.size()];
+        int[] rangeTo = new int[rangeList.size()];
+        for (TransitionFunction.RangeTransition range : rangeList) {
+            int source = getStateId(range.getState());
+            int target = getStateId(range.getTarget());
+            int low = lowerBound(segmentFirst, range.getFirst());
+            int high = lowerBound(segmentFirst, range.getLast() + 1) - 1;
+            if (source == NO_STATE || target == NO_STATE || low > high) {
+                continue;
+            }
+            rangeFrom[rangeCount] = source;
+            rangeLow[rangeCount] = low;
+            rangeHigh[rangeCount] = high;
+            rangeTo[rangeCount] = target;
+            rangeEdges += high - low + 1;
+            rangeCount++;
+        }
+        
+        // Expandir a una transición por intervalo elemental, agrupadas por estado origen.
+        // Las transiciones individuales tienen prioridad sobre los rangos que las contienen.
+        int[] singleStart = new int[states.length + 1];
+        int[] singleOrder = groupByState(singleFrom, singleCount, singleStart);
+        int[] rangeStart = new int[states.length + 1];
+        int[] rangeOrder = groupByState(rangeFrom, rangeCount, rangeStart);
+        int[] from = new int[singleCount + rangeEdges];
+        int[] bySymbol = new int[from.length];
+        int[] to = new int[from.length];
+        int[] covered = new int[segmentCount];
+        long[] selfLoops = new long[states.length];
+        int count = 0;
+        for (int s = 0; s < states.length; s++) {
+            for (int k = singleStart[s]; k < singleStart[s + 1]; k++) {
+                int e = singleOrder[k];
+                covered[singleSegment[e]] = s + 1;
+                from[count] = s;
+                bySymbol[count] = singleSegment[e];
+                to[count] = singleTo[e];
+                count++;
+            }
+            for (int k = rangeStart[s]; k < rangeStart[s + 1]; k++) {
+                int e = rangeOrder[k];
+                for (int segment = rangeLow[e]; segment <= rangeHigh[e]; segment++) {
+                    if (covered[segment] != s + 1) {
+                        from[count] = s;
+                        bySymbol[count] = segment;
+                        to[count] = rangeTo[e];
+                        count++;
+                    }
+                }
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            if (from[i] == to[i]) {
+                selfLoops[from[i]] += segmentLast[bySymbol[i]] - segmentFirst[bySymbol[i]] + 1;
+            }
+        }
+        
+        // Agrupar intervalos equivalentes: la tabla tiene una columna por clase
+        this.classes = SymbolClasses.compute(segmentCount, from, bySymbol, to, count);
+        
+        // Unir intervalos contiguos de la misma clase para la búsqueda por símbolo
+        int[] mergedFirst = new int[segmentCount];
+        int[] mergedLast = new int[segmentCount];
+        int[] mergedColumn = new int[segmentCount];
+        int lookupCount = 0;
+        for (int i = 0; i < segmentCount; i++) {
+            int column = classes.getClassOf(i);
+            if (lookupCount > 0 && mergedColumn[lookupCount - 1] == column
+                    && mergedLast[lookupCount - 1] + 1 == segmentFirst[i]) {
+                mergedLast[lookupCount - 1] = segmentLast[i];
+            } else {
+                mergedFirst[lookupCount] = segmentFirst[i];
+                mergedLast[lookupCount] = segmentLast[i];
+                mergedColumn[lookupCount] = column;
+                lookupCount++;
+            }
+        }
+        this.lookupFirst = Arrays.copyOf(mergedFirst, lookupCount);
+        this.lookupLast = Arrays.copyOf(mergedLast, lookupCount);
+        this.lookupColumn = Arrays.copyOf(mergedColumn, lookupCount);
+        this.columns = new int[Math.min(maxSymbol - minSymbol + 1, DIRECT_LOOKUP_SIZE)];
+        Arrays.fill(columns, -1);
+        for (int i = 0; i < lookupCount && lookupFirst[i] - minSymbol < columns.length; i++) {
+            int end = Math.min(lookupLast[i] - minSymbol, columns.length - 1);
+            Arrays.fill(columns, lookupFirst[i] - minSymbol, end + 1, lookupColumn[i]);
+        }
+        
+        // Construir la tabla de transiciones (densa o dispersa según su densidad) usando
+        // solo las transiciones del intervalo representante de cada clase
+        int classEdges = 0;
+        for (int i = 0; i < count; i++) {
+            int equivalenceClass = classes.getClassOf(bySymbol[i]);
+            if (classes.getRepresentative(equivalenceClass) == bySymbol[i]) {
+                from[classEdges] = from[i];
+                bySymbol[classEdges] = equivalenceClass;
+                to[classEdges] = to[i];
+                classEdges++;
+            }
+        }
+        this.table = TransitionTable.create(states.length, classes.getClassCount(), from, bySymbol, to, classEdges);
+        
+        Set<State> finalStates = afd.getFinalStates();
+        this.accepting = new boolean[states.length];
+        for (int s = 0; s < states.length; s++) {
+            accepting[s] = finalStates.contains(states[s]);
+        }
+        
+        State initial = afd.getInitialState();
+        this.initialState = initial != null ? stateIds.getOrDefault(initial, NO_STATE) : NO_STATE;
+        
+        this.exitSymbols = new int[states.length][];
+        for (int s = 0; s < states.length; s++) {
+            exitSymbols[s] = computeExitSymbols(s, selfLoops[s]);
+        }
+        
+        // Cada símbolo de salida distinto ocupa una posición en la caché de búsqueda
+        this.exitSlots = new int[states.length][];
+        Map<Integer, Integer> slots = new HashMap<>();
+        for (int s = 0; s < states.length; s++) {
+            if (exitSymbols[s] != null) {
+                exitSlots[s] = new int[exitSymbols[s].length];
+                for (int k = 0; k < exitSymbols[s].length; k++) {
+                    Integer slot = slots.get(exitSymbols[s][k]);
+                    if (slot == null) {
+                        slot = slots.size();
+                        slots.put(exitSymbols[s][k], slot);
+                    }
+                    exitSlots[s][k] = slot;
+                }
+            }
+        }
+        this.exitSlotCount = slots.size();
+    }
+    
+    /**
+     * Copia un AFD compilado reemplazando su tabla de transiciones
+     * @param source AFD compilado original
+     * @param table nueva tabla con la misma función de transición
+     */
+    private CompiledAFD(CompiledAFD source, TransitionTable table) {
+        this.version = source.version;
+        this.states = source.states;
+        this.stateIds = source.stateIds;
+        this.symbolCount = source.symbolCount;
+        this.segmentFirst = source.segmentFirst;
+        this.segmentLast = source.segmentLast;
+        this.classes = source.classes;
+        this.minSymbol = source.minSymbol;
+        this.maxSymbol = source.maxSymbol;
+        this.columns = source.columns;
+        this.lookupFirst = source.lookupFirst;
+        this.lookupLast = source.lookupLast;
+        this.lookupColumn = source.lookupColumn;
+        this.table = table;
+        this.accepting = source.accepting;
+        this.initialState = source.initialState;
+        this.exitSymbols = source.exitSymbols;
+        this.exitSlots = source.exitSlots;
+        this.exitSlotCount = source.exitSlotCount;
+    }
+    
+    /**
+     * Obtiene una versión de este AFD compilado con la tabla comprimida en vectores peine
+     * (filas por defecto y deduplicación de filas). Las consultas siguen siendo O(1).
+     * @return AFD compilado con tabla comprimida
+     */
+    public CompiledAFD compress() {
+        if (table instanceof CombTransitionTable) {
+            return this;
+        }
+        // Tabla sin clases: una columna de enteros por símbolo
+        long rawBytes = 4L * states.length * symbolCount;
+        return new CompiledAFD(this, CombTransitionTable.compress(table, rawBytes));
+    }
+    
+    /**
+     * Ordena transiciones por estado origen (ordenamiento por conteo)
+     * @param from estado origen de cada transición
+     * @param count número de transiciones
+     * @param start arreglo de tamaño estados + 1 que recibe el inicio del grupo de cada estado
+     * @return índices de las transiciones agrupadas por estado
+     */
+    private static int[] groupByState(int[] from, int count, int[] start) {
+        for (int i = 0; i < count; i++) {
+            start[from[i] + 1]++;
+        }
+        for (int s = 1; s < start.length; s++) {
+            start[s] += start[s - 1];
+        }
+        int[] next = Arrays.copyOf(start, start.length - 1);
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[next[from[i]]++] = i;
+        }
+        return order;
+    }
+    
+    /**
+     * Busca la primera posición de un arreglo ordenado cuyo valor es mayor o igual a key
+     */
+    private static int lowerBound(int[] sorted, int key) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sorted[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+    
+    /**
+     * Busca el intervalo elemental que contiene un punto de código
+     * @return índice del intervalo, o -1 si el símbolo no pertenece al alfabeto
+     */
+    private int findSegment(int codePoint) {
+        int segment = lowerBound(segmentFirst, codePoint + 1) - 1;
+        return segment >= 0 && segmentLast[segment] >= codePoint ? segment : -1;
+    }
+    
+    /**
+     * Calcula los símbolos con los que un estado abandona su bucle
+     * @param state estado a analizar
+     * @param loopSymbols número de símbolos que mantienen el estado
+     * @return símbolos de salida, o null si el estado no tiene un bucle dominante
+     */
+    private int[] computeExitSymbols(int state, long loopSymbols) {
+        long exits = symbolCount - loopSymbols;
+        if (exits > MAX_EXIT_SYMBOLS || loopSymbols == 0) {
+            return null;
+        }
+        int[] result = new int[(int) exits];
+        int index = 0;
+        for (int i = 0; i < segmentFirst.length; i++) {
+            if (table.next(state, classes.getClassOf(i)) != state) {
+                for (int symbol = segmentFirst[i]; symbol <= segmentLast[i]; symbol++) {
+                    // Un sustituto suelto podría encontrarse en medio de un par; no se acelera
+                    if (symbol >= Character.MIN_SURROGATE && symbol <= Character.MAX_SURROGATE) {
+                        return null;
+                    }
+                    result[index++] = symbol;
+                }
+            }
+        }
+        return result;
+    }
+    
+    // Getters
+    long getVersion() {
+        return version;
+    }
+    
+    public int getStateCount() {
+        return states.length;
+    }
+    
+    /**
+     * Obtiene el número de símbolos (puntos de código) del alfabeto compilado
+     * @return número de símbolos
+     */
+    public int getSymbolCount() {
+        return symbolCount;
+    }
+    
+    public int getInitialState() {
+        return initialState;
+    }
+    
+    public State getState(int id) {
+        return states[id];
+    }
+    
+    /**
+     * Obtiene el número de columnas de la tabla (clases de equivalencia de símbolos)
+     * @return número de clases
+     */
+    public int getClassCount() {
+        return classes.getClassCount();
+    }
+    
+    /**
+     * Obtiene un símbolo de la clase correspondiente a una columna
+     * @param column columna de la tabla
+     * @return primer punto de código de la clase
+     */
+    public int getClassRepresentative(int column) {
+        return segmentFirst[classes.getRepresentative(column)];
+    }
+    
+    /**
+     * Obtiene el alfabeto como intervalos de puntos de código con su columna en la tabla.
+     * Los intervalos contiguos de la misma columna aparecen unidos.
+     * @return lista de intervalos {primero, último, columna} ordenados
+     */
+    public List<int[]> getIntervals() {
+        List<int[]> result = new ArrayList<>(lookupFirst.length);
+        for (int i = 0; i < lookupFirst.length; i++) {
+            result.add(new int[] {lookupFirst[i], lookupLast[i], lookupColumn[i]});
+        }
+        return result;
+    }
+    
+    public SymbolClasses getSymbolClasses() {
+        return classes;
+    }
+    
+    public TransitionTable getTransitionTable() {
+        return table;
+    }
+    
+    /**
+     * Estima la memoria ocupada por las tablas compiladas
+     * @return tamaño aproximado en bytes
+     */
+    public long getMemoryBytes() {
+        return table.getMemoryBytes() + 4L * columns.length + 12L * lookupFirst.length
+                + 8L * segmentFirst.length + accepting.length;
+    }
+    
+    /**
+     * Obtiene el identificador numérico de un estado
+     * @param state estado a buscar
+     * @return identificador del estado, o NO_STATE si no pertenece al AFD
+     */
+    public int getStateId(State state) {
+        return stateIds.getOrDefault(state, NO_STATE);
+    }
+    
+    /**
+     * Verifica si un estado es de aceptación
+     * @param state identificador del estado
+     * @return true si el estado es final
+     */
+    public boolean isAccepting(int state) {
+        return state != NO_STATE && accepting[state];
+    }
+    
+    /**
+     * Obtiene la columna (clase de equivalencia) de un símbolo en la tabla.
+     * Es O(1) para los símbolos cubiertos por la tabla directa y O(log r) para el resto,
+     * siendo r el número de intervalos del alfabeto.
+     * @param symbol punto de código a buscar
+     * @return columna del símbolo, o -1 si no pertenece al alfabeto
+     */
+    public int getColumn(int symbol) {
+        int offset = symbol - minSymbol;
+        if (offset >= 0 && offset < columns.length) {
+            return columns[offset];
+        }
+        if (offset < 0 || symbol > maxSymbol) {
+            return -1;
+        }
+        int interval = lowerBound(lookupFirst, symbol + 1) - 1;
+        return lookupLast[interval] >= symbol ? lookupColumn[interval] : -1;
+    }
+    
+    /**
+     * Aplica la función de transición a un estado y un símbolo
+     * @param state identificador del estado origen
+     * @param symbol punto de código de entrada
+     * @return estado destino, o NO_STATE si no existe la transición o el símbolo no es válido
+     */
+    public int step(int state, int symbol) {
+        if (state == NO_STATE) {
+            return NO_STATE;
+        }
+        int column = getColumn(symbol);
+        return column < 0 ? NO_STATE : table.next(state, column);
+    }
+    
+    /**
+     * Verifica si una palabra es aceptada
+     * @param input palabra de entrada
+     * @return true si la palabra es aceptada
+     */
+    public boolean accepts(CharSequence input) {
+        return isAccepting(run(initialState, input, 0, input.length()));
+    }
+    
+    /**
+     * Procesa un lote de palabras
+     * @param inputs palabras de entrada
+     * @return arreglo con el veredicto de cada palabra, en el mismo orden
+     */
+    public boolean[] acceptsAll(List<? extends CharSequence> inputs) {
+        boolean[] results = new boolean[inputs.size()];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = accepts(inputs.get(i));
+        }
+        return results;
+    }
+    
+    /**
+     * Procesa una entrada de texto completa leyéndola por bloques.
+     * Un par sustituto partido entre dos bloques se procesa junto con el bloque siguiente.
+     * @param reader fuente de la entrada
+     * @return true si la entrada completa es aceptada
+     * @throws IOException si hay error al leer
+     */
+    public boolean accepts(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int state = initialState;
+        int kept = 0;
+        int read;
+        while (state != NO_STATE && (read = reader.read(buffer, kept, buffer.length - kept)) != -1) {
+            int end = kept + read;
+            int usable = end > 0 && Character.isHighSurrogate(buffer[end - 1]) ? end - 1 : end;
+            state = run(state, buffer, 0, usable);
+            kept = end - usable;
+            if (kept > 0) {
+                buffer[0] = buffer[end - 1];
+            }
+        }
+        if (kept > 0) {
+            state = run(state, buffer, 0, kept);
+        }
+        return isAccepting(state);
+    }
+    
+    /**
+     * Procesa un fragmento de la entrada a partir de un estado
+     * @param state estado desde el que se inicia
+     * @param input entrada
+     * @param from índice de inicio (incluido)
+     * @param to índice de fin (excluido)
+     * @return estado alcanzado, o NO_STATE si no existe alguna transición
+     */
+    public int run(int state, CharSequence input, int from, int to) {
+        if (state == NO_STATE) {
+            return NO_STATE;
+        }
+        if (input instanceof String && to - from >= MIN_SKIP_LENGTH) {
+            if (!isValid(input, from, to)) {
+                return NO_STATE;
+            }
+            return runValidated(state, (String) input, from, to);
+        }
+        int i = from;
+        while (i < to && state != NO_STATE) {
+            int symbol = codePointAt(input, i, to);
+            state = step(state, symbol);
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Procesa un bloque de caracteres a partir de un estado (útil para entradas por flujo).
+     * Si el bloque termina en medio de un par sustituto, el carácter suelto se trata como un símbolo.
+     * @param state estado desde el que se inicia
+     * @param buffer bloque de caracteres
+     * @param offset posición de inicio en el bloque
+     * @param length cantidad de caracteres a procesar
+     * @return estado alcanzado, o NO_STATE si no existe alguna transición
+     */
+    public int run(int state, char[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; ) {
+            int symbol = Character.codePointAt(buffer, i, end);
+            if (getColumn(symbol) < 0) {
+                return NO_STATE;
+            }
+            i += Character.charCount(symbol);
+        }
+        int[] exitCache = null;
+        int i = offset;
+        while (i < end && state != NO_STATE) {
+            if (exitSymbols[state] != null && end - i >= MIN_SKIP_LENGTH) {
+                if (exitCache == null) {
+                    exitCache = newExitCache();
+                }
+                i = skipSelfLoop(state, buffer, i, end, exitCache);
+                if (i == end) {
+                    break;
+                }
+            }
+            int symbol = Character.codePointAt(buffer, i, end);
+            state = table.next(state, getColumn(symbol));
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Procesa una entrada ya validada contra el alfabeto, saltando los bucles
+     */
+    private int runValidated(int state, String input, int from, int to) {
+        int[] exitCache = null;
+        int i = from;
+        while (i < to) {
+            if (exitSymbols[state] != null && to - i >= MIN_SKIP_LENGTH) {
+                if (exitCache == null) {
+                    exitCache = newExitCache();
+                }
+                i = skipSelfLoop(state, input, i, to, exitCache);
+                if (i == to) {
+                    break;
+                }
+            }
+            int symbol = codePointAt(input, i, to);
+            state = table.next(state, getColumn(symbol));
+            if (state == NO_STATE) {
+                return NO_STATE;
+            }
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Verifica que todos los símbolos de un rango pertenezcan al alfabeto
+     */
+    private boolean isValid(CharSequence input, int from, int to) {
+        for (int i = from; i < to; ) {
+            int symbol = codePointAt(input, i, to);
+            if (getColumn(symbol) < 0) {
+                return false;
+            }
+            i += Character.charCount(symbol);
+        }
+        return true;
+    }
+    
+    /**
+     * Obtiene el punto de código en una posición sin pasar del límite indicado
+     */
+    private static int codePointAt(CharSequence input, int index, int limit) {
+        char high = input.charAt(index);
+        if (Character.isHighSurrogate(high) && index + 1 < limit) {
+            char low = input.charAt(index + 1);
+            if (Character.isLowSurrogate(low)) {
+                return Character.toCodePoint(high, low);
+            }
+        }
+        return high;
+    }
+    
+    /**
+     * Crea la caché de posiciones de símbolos de salida usada por {@link #skipSelfLoop}
+     * @return arreglo con una posición por símbolo de salida, inicialmente desconocida
+     */
+    int[] newExitCache() {
+        int[] cache = new int[exitSlotCount];
+        Arrays.fill(cache, Integer.MIN_VALUE);
+        return cache;
+    }
+    
+    /**
+     * Salta el bucle de un estado hasta el siguiente símbolo de salida.
+     * La entrada debe estar validada contra el alfabeto. La caché guarda, por símbolo de salida,
+     * la última posición encontrada del símbolo, de modo que cada símbolo se busca
+     * a lo sumo una vez por aparición y el recorrido total sigue siendo lineal.
+     * @param state estado actual
+     * @param input entrada validada
+     * @param from posición actual
+     * @param to fin de la entrada
+     * @param exitCache caché creada con {@link #newExitCache()} para esta entrada
+     * @return posición del siguiente símbolo de salida, to si no hay, o from si el estado no es acelerable
+     */
+    int skipSelfLoop(int state, String input, int from, int to, int[] exitCache) {
+        int[] exits = exitSymbols[state];
+        if (exits == null || to - from < MIN_SKIP_LENGTH) {
+            return from;
+        }
+        int[] slots = exitSlots[state];
+        int next = to;
+        for (int k = 0; k < exits.length; k++) {
+            int position = exitCache[slots[k]];
+            if (position < from) {
+                position = input.indexOf(exits[k], from);
+                if (position < 0) {
+                    position = input.length();
+                }
+                exitCache[slots[k]] = position;
+            }
+            if (position < next) {
+                next = position;
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Salta el bucle de un estado en un bloque de caracteres, igual que
+     * {@link #skipSelfLoop(int, String, int, int, int[])}: cada símbolo de salida se busca
+     * por separado con un recorrido de un solo carácter y su posición se guarda en la caché
+     * (creada para este bloque), así que el bloque se recorre una vez por símbolo de salida
+     * como máximo.
+     */
+    private int skipSelfLoop(int state, char[] buffer, int from, int to, int[] exitCache) {
+        int[] exits = exitSymbols[state];
+        int[] slots = exitSlots[state];
+        int next = to;
+        for (int k = 0; k < exits.length; k++) {
+            int position = exitCache[slots[k]];
+            if (position < from) {
+                position = indexOf(buffer, exits[k], from, to);
+                exitCache[slots[k]] = position;
+            }
+            if (position < next) {
+                next = position;
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Busca un símbolo en un bloque de caracteres
+     * @return posición del símbolo, o to si no aparece
+     */
+    private static int indexOf(char[] buffer, int symbol, int from, int to) {
+        if (symbol <= Character.MAX_VALUE) {
+            char c = (char) symbol;
+            for (int i = from; i < to; i++) {
+                if (buffer[i] == c) {
+                    return i;
+                }
+            }
+            return to;
+        }
+        char high = Character.highSurrogate(symbol);
+        char low = Character.lowSurrogate(symbol);
+        for (int i = from; i < to - 1; i++) {
+            if (buffer[i] == high && buffer[i + 1] == low) {
+                return i;
+            }
+        }
+        return to;
+    }
+    
+    /**
+     * Indica si todos los símbolos del alfabeto ocupan un solo carácter, de modo que en una
+     * entrada válida cada carácter es un símbolo
+     */
+    boolean hasOnlyBmpSymbols() {
+        return maxSymbol <= Character.MAX_VALUE;
+    }
+    
+    /**
+     * Calcula los estados co-alcanzables (desde los que se llega a un estado final).
+     * Un recorrido que entra en un estado no co-alcanzable ya no puede aceptar, aunque
+     * tenga transiciones definidas.
+     * @return arreglo estado -> true si desde él se alcanza un estado final
+     */
+    public boolean[] findLiveStates() {
+        int[] distances = findAcceptDistances();
+        boolean[] live = new boolean[distances.length];
+        for (int s = 0; s < distances.length; s++) {
+            live[s] = distances[s] != NO_STATE;
+        }
+        return live;
+    }
+    
+    /**
+     * Calcula para cada estado la longitud de la palabra más corta que lleva desde él a un
+     * estado final, recorriendo en anchura hacia atrás las transiciones desde los estados finales
+     * @return arreglo estado -> distancia al estado final más cercano, o NO_STATE si no hay camino
+     */
+    public int[] findAcceptDistances() {
+        int stateCount = states.length;
+        int columnCount = table.getColumnCount();
+        int[] edgeCount = new int[stateCount + 1];
+        for (int s = 0; s < stateCount; s++) {
+            for (int c = 0; c < columnCount; c++) {
+                int target = table.next(s, c);
+                if (target != NO_STATE) {
+                    edgeCount[target + 1]++;
+                }
+            }
+        }
+        for (int s = 0; s < stateCount; s++) {
+            edgeCount[s + 1] += edgeCount[s];
+        }
+        int[] sources = new int[edgeCount[stateCount]];
+        int[] filled = Arrays.copyOf(edgeCount, stateCount);
+        for (int s = 0; s < stateCount; s++) {
+            for (int c = 0; c < columnCount; c++) {
+                int target = table.next(s, c);
+                if (target != NO_STATE) {
+                    sources[filled[target]++] = s;
+                }
+            }
+        }
+        int[] distances = new int[stateCount];
+        Arrays.fill(distances, NO_STATE);
+        int[] queue = new int[stateCount];
+        int tail = 0;
+        for (int s = 0; s < stateCount; s++) {
+            if (accepting[s]) {
+                distances[s] = 0;
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int state = queue[head];
+            for (int e = edgeCount[state]; e < edgeCount[state + 1]; e++) {
+                if (distances[sources[e]] == NO_STATE) {
+                    distances[sources[e]] = distances[state] + 1;
+                    queue[tail++] = sources[e];
+                }
+            }
+        }
+        return distances;
+    }
+    
+    /**
+     * Busca la palabra más corta aceptada por este AFD y rechazada por otro, es decir, un
+     * contraejemplo de L(este) ⊆ L(otro).
+     * Recorre en anchura el producto de los dos AFD construyendo solo los pares de estados
+     * que alcanza, y se detiene en el primer par que acepta en este y no en el otro. Cada par
+     * se guarda como un long (estado de este en los 32 bits altos, del otro en los bajos, con
+     * NO_STATE cuando el otro ya no tiene transición). Los pares cuyo estado en este AFD no
+     * puede llegar a un estado final se descartan.
+     * @param other AFD con el que se compara
+     * @return contraejemplo más corto, o null si el lenguaje de este AFD está contenido en el del otro
+     */
+    public String findWordNotIn(CompiledAFD other) {
+        boolean[] live = findLiveStates();
+        if (initialState == NO_STATE || !live[initialState]) {
+            return null; // Lenguaje vacío
+        }
+        
+        // Intervalos comunes: partición del alfabeto de este AFD según los intervalos del otro
+        int[] segmentFirst = new int[lookupFirst.length + other.lookupFirst.length];
+        int[] segmentColumn = new int[segmentFirst.length];
+        int[] segmentOtherColumn = new int[segmentFirst.length];
+        int segmentCount = 0;
+        int j = 0;
+        for (int i = 0; i < lookupFirst.length; i++) {
+            int from = lookupFirst[i];
+            while (from <= lookupLast[i]) {
+                while (j < other.lookupFirst.length && other.lookupLast[j] < from) {
+                    j++;
+                }
+                int to;
+                int otherColumn;
+                if (j < other.lookupFirst.length && other.lookupFirst[j] <= from) {
+                    to = Math.min(lookupLast[i], other.lookupLast[j]);
+                    otherColumn = other.lookupColumn[j];
+                } else {
+                    to = j < other.lookupFirst.length ? Math.min(lookupLast[i], other.lookupFirst[j] - 1) : lookupLast[i];
+                    otherColumn = -1;
+                }
+                if (segmentCount == segmentFirst.length) {
+                    segmentFirst = Arrays.copyOf(segmentFirst, segmentCount * 2);
+                    segmentColumn = Arrays.copyOf(segmentColumn, segmentCount * 2);
+                    segmentOtherColumn = Arrays.copyOf(segmentOtherColumn, segmentCount * 2);
+                }
+                segmentFirst[segmentCount] = from;
+                segmentColumn[segmentCount] = lookupColumn[i];
+                segmentOtherColumn[segmentCount] = otherColumn;
+                segmentCount++;
+                from = to + 1;
+            }
+        }
+        
+        // Recorrido en anchura: pares visitados -> posición en la cola
+        LongIntMap visited = new LongIntMap(-1);
+        long[] queue = new long[64];
+        int[] parent = new int[64];
+        int[] symbol = new int[64];
+        int size = 0;
+        queue[size] = pair(initialState, other.initialState);
+        parent[size] = -1;
+        visited.put(queue[size], size);
+        size++;
+        if (rejectsIn(initialState, other.initialState, other)) {
+            return "";
+        }
+        for (int head = 0; head < size; head++) {
+            int p = (int) (queue[head] >> 32);
+            int q = (int) queue[head];
+            for (int k = 0; k < segmentCount; k++) {
+                int nextP = table.next(p, segmentColumn[k]);
+                if (nextP == NO_STATE || !live[nextP]) {
+                    continue;
+                }
+                int nextQ = q == NO_STATE || segmentOtherColumn[k] < 0
+                        ? NO_STATE : other.table.next(q, segmentOtherColumn[k]);
+                long key = pair(nextP, nextQ);
+                if (visited.containsKey(key)) {
+                    continue;
+                }
+                if (size == queue.length) {
+                    queue = Arrays.copyOf(queue, size * 2);
+                    parent = Arrays.copyOf(parent, size * 2);
+                    symbol = Arrays.copyOf(symbol, size * 2);
+                }
+                queue[size] = key;
+                parent[size] = head;
+                symbol[size] = segmentFirst[k];
+                visited.put(key, size);
+                size++;
+                if (rejectsIn(nextP, nextQ, other)) {
+                    return pathTo(size - 1, parent, symbol);
+                }
+            }
+        }
+        return null;
+    }
+    
+    private static long pair(int state, int otherState) {
+        return ((long) state << 32) | (otherState & 0xffffffffL);
+    }
+    
+    private boolean rejectsIn(int state, int otherState, CompiledAFD other) {
+        return accepting[state] && (otherState == NO_STATE || !other.accepting[otherState]);
+    }
+    
+    /**
+     * Reconstruye la palabra que lleva al nodo indicado del recorrido
+     */
+    private static String pathTo(int node, int[] parent, int[] symbol) {
+        int length = 0;
+        for (int n = node; parent[n] >= 0; n = parent[n]) {
+            length++;
+        }
+        int[] codePoints = new int[length];
+        for (int n = node; parent[n] >= 0; n = parent[n]) {
+            codePoints[--length] = symbol[n];
+        }
+        return new String(codePoints, 0, codePoints.length);
+    }
+    
+    /**
+     * Calcula una huella (FNV-1a de 64 bits) de la estructura compilada: nombres de los estados,
+     * estados finales, estado inicial, intervalos del alfabeto y tabla de transiciones.
+     * Dos AFD con la misma huella numeran igual sus estados, así que sirve para comprobar
+     * que datos guardados con identificadores de estado corresponden a este AFD.
+     * Se calcula una sola vez; las llamadas siguientes devuelven el valor guardado.
+     * @return huella del AFD
+     */
+    public long getFingerprint() {
+        Long cached = fingerprint;
+        if (cached == null) {
+            cached = computeFingerprint();
+            fingerprint = cached;
+        }
+        return cached;
+    }
+    
+    private long computeFingerprint() {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, states.length);
+        for (int s = 0; s < states.length; s++) {
+            String name = states[s].getName();
+            hash = mix(hash, name.length());
+            for (int i = 0; i < name.length(); i++) {
+                hash = mix(hash, name.charAt(i));
+            }
+            hash = mix(hash, accepting[s] ? 1 : 0);
+        }
+        hash = mix(hash, initialState);
+        hash = mix(hash, lookupFirst.length);
+        for (int i = 0; i < lookupFirst.length; i++) {
+            hash = mix(hash, lookupFirst[i]);
+            hash = mix(hash, lookupLast[i]);
+            hash = mix(hash, lookupColumn[i]);
+        }
+        for (int s = 0; s < states.length; s++) {
+            for (int c = 0; c < table.getColumnCount(); c++) {
+                hash = mix(hash, table.next(s, c));
+            }
+        }
+        return hash;
+    }
+    
+    private static long mix(long hash, int value) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            hash ^= (value >>> shift) & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+    
+    @Override
+    public String toString() {
+        return "CompiledAFD{estados=" + states.length + ", símbolos=" + symbolCount
+                + ", intervalos=" + lookupFirst.length + ", clases=" + classes.getClassCount()
+                + ", tabla=" + table + "}";
+    }
+}
@@ -0,0 +1,97 @@
+package co.edu.uptc.model;
+
+import java.util.List;
+
+/**
+ * Tabla para completar palabras rechazadas: para cada estado de un AFD compilado guarda la
+ * longitud de la palabra más corta que lleva a un estado final y el primer símbolo y estado
+ * de esa palabra. Se calcula una vez con un recorrido en anchura hacia atrás desde los
+ * estados finales, y después la palabra más corta desde cualquier estado se reconstruye
+ * siguiendo los punteros en O(longitud de la palabra).
+ *
+ * Entre las palabras más cortas se elige siempre el símbolo menor, así que el resultado es
+ * la primera en orden lexicográfico. La tabla no se modifica y puede usarse desde varios hilos.
+ */
+public class CompletionTable {
+    private final int[] distances;   // estado -> longitud de la palabra más corta, o NO_STATE
+    private final int[] nextSymbol;  // estado -> primer símbolo de esa palabra (punto de código)
+    private final int[] nextState;   // estado -> estado al que lleva ese símbolo
+    
+    /**
+     * Construye la tabla de un AFD compilado
+     * @param afd AFD compilado
+     */
+    public CompletionTable(CompiledAFD afd) {
+        this(afd, afd.findAcceptDistances());
+    }
+    
+    /**
+     * Construye la tabla a partir de las distancias ya calculadas
+     * @param afd AFD compilado
+     * @param distances resultado de {@link CompiledAFD#findAcceptDistances()} para ese AFD
+     */
+    CompletionTable(CompiledAFD afd, int[] distances) {
+        int stateCount = afd.getStateCount();
+        this.distances = distances;
+        this.nextSymbol = new int[stateCount];
+        this.nextState = new int[stateCount];
+        List<int[]> intervals = afd.getIntervals(); // ordenados por símbolo
+        for (int s = 0; s < stateCount; s++) {
+            nextState[s] = CompiledAFD.NO_STATE;
+            if (distances[s] <= 0) {
+                continue; // Estado final o sin camino a uno
+            }
+            for (int[] interval : intervals) {
+                int target = afd.getTransitionTable().next(s, interval[2]);
+                if (target != CompiledAFD.NO_STATE && distances[target] == distances[s] - 1) {
+                    nextSymbol[s] = interval[0];
+                    nextState[s] = target;
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Obtiene la longitud de la palabra más corta que lleva de un estado a un estado final
+     * @param state índice del estado
+     * @return longitud (0 si el estado es final), o NO_STATE si no se puede llegar a uno
+     */
+    public int getDistance(int state) {
+        return distances[state];
+    }
+    
+    /**
+     * Obtiene el primer símbolo de la palabra más corta que lleva de un estado a un estado final
+     * @param state índice del estado
+     * @return punto de código, o NO_STATE si el estado es final o no se puede llegar a uno
+     */
+    public int getNextSymbol(int state) {
+        return nextState[state] != CompiledAFD.NO_STATE ? nextSymbol[state] : CompiledAFD.NO_STATE;
+    }
+    
+    /**
+     * Obtiene el estado al que lleva el primer símbolo de la palabra más corta
+     * @param state índice del estado
+     * @return índice del siguiente estado, o NO_STATE si el estado es final o no se puede llegar a uno
+     */
+    public int getNextState(int state) {
+        return nextState[state];
+    }
+    
+    /**
+     * Obtiene la palabra más corta que lleva de un estado a un estado final
+     * @param state índice del estado
+     * @return palabra (vacía si el estado es final), o null si no se puede llegar a uno
+     */
+    public String complete(int state) {
+        if (state == CompiledAFD.NO_STATE || distances[state] == CompiledAFD.NO_STATE) {
+            return null;
+        }
+        StringBuilder suffix = new StringBuilder(distances[state]);
+        for (int s = state; distances[s] > 0; s = nextState[s]) {
+            suffix.appendCodePoint(nextSymbol[s]);
+        }
+        return suffix.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package co.edu.uptc.model;
+
+/**
+ * Estadísticas de memoria de la compresión de una tabla de transiciones
+ */
+public class CompressionStats {
+    private final long rawBytes;
+    private final long bytesBefore;
+    private final long bytesAfter;
+    private final int rows;
+    private final int templateRows;
+    private final int defaultRows;
+    private final int duplicateRows;
+    
+    /**
+     * Constructor de las estadísticas
+     * @param rawBytes memoria de la tabla completa estados × símbolos, sin clases de símbolos
+     * @param bytesBefore memoria de la tabla por clases de símbolos, antes de comprimir las filas
+     * @param bytesAfter memoria de la tabla comprimida
+     * @param rows número total de filas (estados)
+     * @param templateRows filas guardadas completas (plantillas)
+     * @param defaultRows filas guardadas como diferencias respecto a una plantilla
+     * @param duplicateRows filas idénticas a otra ya vista
+     */
+    public CompressionStats(long rawBytes, long bytesBefore, long bytesAfter, int rows, int templateRows,
+                            int defaultRows, int duplicateRows) {
+        this.rawBytes = rawBytes;
+        this.bytesBefore = bytesBefore;
+        this.bytesAfter = bytesAfter;
+        this.rows = rows;
+        this.templateRows = templateRows;
+        this.defaultRows = defaultRows;
+        this.duplicateRows = duplicateRows;
+    }
+    
+    public long getRawBytes() {
+        return rawBytes;
+    }
+    
+    public long getBytesBefore() {
+        return bytesBefore;
+    }
+    
+    public long getBytesAfter() {
+        return bytesAfter;
+    }
+    
+    public int getRows() {
+        return rows;
+    }
+    
+    public int getTemplateRows() {
+        return templateRows;
+    }
+    
+    public int getDefaultRows() {
+        return defaultRows;
+    }
+    
+    public int getDuplicateRows() {
+        return duplicateRows;
+    }
+    
+    /**
+     * Obtiene la proporción de memoria ahorrada al comprimir las filas de la tabla por clases
+     * @return fracción entre 0 y 1 (negativa si la tabla comprimida es mayor)
+     */
+    public double getSavings() {
+        return bytesBefore == 0 ? 0 : 1.0 - (double) bytesAfter / bytesBefore;
+    }
+    
+    /**
+     * Obtiene la proporción de memoria ahorrada respecto a la tabla completa estados × símbolos
+     * @return fracción entre 0 y 1 (negativa si la tabla comprimida es mayor)
+     */
+    public double getTotalSavings() {
+        return rawBytes == 0 ? 0 : 1.0 - (double) bytesAfter / rawBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("Memoria de la tabla: %d bytes estados × símbolos, %d bytes por clases de símbolos, "
+                + "%d bytes comprimida%n(%.1f%% de ahorro sobre la tabla por clases, %.1f%% sobre la completa)%n"
+                + "Filas: %d (plantillas: %d, con fila por defecto: %d, duplicadas: %d)",
+                rawBytes, bytesBefore, bytesAfter, getSavings() * 100, getTotalSavings() * 100,
+                rows, templateRows, defaultRows, duplicateRows);
+    }
+}
@@ -0,0 +1,57 @@
+package co.edu.uptc.model;
+
+import java.util.Arrays;
+
+/**
+ * Tabla de transiciones densa: un arreglo de estados × columnas
+ * Cada consulta es un único acceso al arreglo.
+ */
+public class DenseTransitionTable implements TransitionTable {
+    private final int stateCount;
+    private final int columnCount;
+    private final int[] table; // estado * columnCount + columna -> estado destino
+    
+    /**
+     * Construye la tabla a partir de una lista de transiciones
+     * @param stateCount número de estados
+     * @param columnCount número de columnas
+     * @param from estado origen de cada transición
+     * @param columns columna de cada transición
+     * @param to estado destino de cada transición
+     * @param count número de transiciones
+     */
+    public DenseTransitionTable(int stateCount, int columnCount, int[] from, int[] columns, int[] to, int count) {
+        this.stateCount = stateCount;
+        this.columnCount = columnCount;
+        this.table = new int[stateCount * columnCount];
+        Arrays.fill(table, CompiledAFD.NO_STATE);
+        for (int i = 0; i < count; i++) {
+            table[from[i] * columnCount + columns[i]] = to[i];
+        }
+    }
+    
+    @Override
+    public int next(int state, int column) {
+        return table[state * columnCount + column];
+    }
+    
+    @Override
+    public int getStateCount() {
+        return stateCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+    
+    @Override
+    public long getMemoryBytes() {
+        return 4L * table.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "DenseTransitionTable{" + stateCount + "×" + columnCount + ", " + getMemoryBytes() + " bytes}";
+    }
+}
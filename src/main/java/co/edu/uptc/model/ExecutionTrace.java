@@ -0,0 +1,164 @@
+package co.edu.uptc.model;
+
+import java.util.Arrays;
+
+/**
+ * Recorrido de una palabra sobre un AFD compilado, guardado de forma compacta
+ * En lugar de guardar el estado de cada paso, guarda solo un punto de control (estado y
+ * posición en la palabra) cada {@link #CHECKPOINT_INTERVAL} pasos: unos 8 bytes cada 64
+ * símbolos. El estado de cualquier paso se recalcula desde el punto de control anterior en
+ * O(CHECKPOINT_INTERVAL), y el texto de la ruta ({@code q0 -a-> q1 ...}) se genera solo cuando
+ * se pide, completo o por tramos, para no construir una cadena enorme con palabras largas.
+ *
+ * El recorrido no se modifica una vez construido y puede usarse desde varios hilos.
+ */
+public class ExecutionTrace {
+    /** Pasos entre dos puntos de control */
+    public static final int CHECKPOINT_INTERVAL = 64;
+    
+    private final CompiledAFD afd;
+    private final String input;
+    private int[] checkpointStates;  // estado tras cada múltiplo de CHECKPOINT_INTERVAL pasos
+    private int[] checkpointOffsets; // carácter de la palabra en el que empieza ese paso
+    private int checkpointCount;
+    private int stepCount;           // símbolos consumidos con transición
+    
+    /**
+     * Empieza un recorrido en el estado inicial; lo completa {@link AFD#processWord(Word)}
+     */
+    ExecutionTrace(CompiledAFD afd, String input, int initialState) {
+        this.afd = afd;
+        this.input = input;
+        this.checkpointStates = new int[1 + input.length() / (CHECKPOINT_INTERVAL * 4)];
+        this.checkpointOffsets = new int[checkpointStates.length];
+        checkpointStates[0] = initialState;
+        checkpointOffsets[0] = 0;
+        checkpointCount = 1;
+    }
+    
+    /**
+     * Registra un paso del recorrido
+     * @param state estado alcanzado
+     * @param end posición en la palabra después del símbolo consumido
+     */
+    void step(int state, int end) {
+        stepCount++;
+        if (stepCount % CHECKPOINT_INTERVAL == 0) {
+            addCheckpoint(state, end);
+        }
+    }
+    
+    /**
+     * Registra de una vez un tramo de pasos en el bucle de un estado, en el que cada símbolo
+     * ocupa un solo carácter. Solo se calculan los puntos de control que caen en el tramo.
+     * @param state estado del bucle
+     * @param start posición en la palabra del primer símbolo del tramo
+     * @param count número de símbolos (y de caracteres) del tramo
+     */
+    void loop(int state, int start, int count) {
+        int first = stepCount + 1;
+        int last = stepCount + count;
+        for (int k = (first + CHECKPOINT_INTERVAL - 1) / CHECKPOINT_INTERVAL * CHECKPOINT_INTERVAL;
+                k <= last; k += CHECKPOINT_INTERVAL) {
+            addCheckpoint(state, start + (k - stepCount));
+        }
+        stepCount = last;
+    }
+    
+    private void addCheckpoint(int state, int offset) {
+        if (checkpointCount == checkpointStates.length) {
+            checkpointStates = Arrays.copyOf(checkpointStates, checkpointCount * 2);
+            checkpointOffsets = Arrays.copyOf(checkpointOffsets, checkpointCount * 2);
+        }
+        checkpointStates[checkpointCount] = state;
+        checkpointOffsets[checkpointCount] = offset;
+        checkpointCount++;
+    }
+    
+    /**
+     * Obtiene el número de pasos del recorrido (símbolos consumidos con transición)
+     * @return número de pasos
+     */
+    public int getStepCount() {
+        return stepCount;
+    }
+    
+    /**
+     * Obtiene el estado alcanzado tras un número de pasos
+     * @param step número de pasos (0 es el estado inicial)
+     * @return identificador del estado en el AFD compilado
+     */
+    public int getStateId(int step) {
+        checkStep(step);
+        int checkpoint = step / CHECKPOINT_INTERVAL;
+        int state = checkpointStates[checkpoint];
+        int offset = checkpointOffsets[checkpoint];
+        for (int k = checkpoint * CHECKPOINT_INTERVAL; k < step; k++) {
+            int symbol = input.codePointAt(offset);
+            state = afd.step(state, symbol);
+            offset += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Obtiene el estado alcanzado tras un número de pasos
+     * @param step número de pasos (0 es el estado inicial)
+     * @return estado
+     */
+    public State getState(int step) {
+        return afd.getState(getStateId(step));
+    }
+    
+    /**
+     * Genera el texto de la ruta completa
+     * @return ruta con la forma {@code q0 -a-> q1 -b-> q2}
+     */
+    public String render() {
+        return render(0, stepCount);
+    }
+    
+    /**
+     * Genera el texto de un tramo de la ruta, desde el estado tras {@code from} pasos hasta
+     * el estado tras {@code to} pasos. Cuesta O(CHECKPOINT_INTERVAL + to - from).
+     * @param from primer paso (incluido)
+     * @param to último paso (incluido)
+     * @return tramo de la ruta con la forma {@code qi -a-> ... qj}
+     */
+    public String render(int from, int to) {
+        checkStep(from);
+        checkStep(to);
+        if (from > to) {
+            throw new IndexOutOfBoundsException("Tramo no válido: " + from + ".." + to);
+        }
+        int checkpoint = from / CHECKPOINT_INTERVAL;
+        int state = checkpointStates[checkpoint];
+        int offset = checkpointOffsets[checkpoint];
+        int k = checkpoint * CHECKPOINT_INTERVAL;
+        for (; k < from; k++) {
+            int symbol = input.codePointAt(offset);
+            state = afd.step(state, symbol);
+            offset += Character.charCount(symbol);
+        }
+        StringBuilder path = new StringBuilder();
+        path.append(afd.getState(state).getName());
+        for (; k < to; k++) {
+            int symbol = input.codePointAt(offset);
+            state = afd.step(state, symbol);
+            offset += Character.charCount(symbol);
+            path.append(" -").appendCodePoint(symbol).append("-> ").append(afd.getState(state).getName());
+        }
+        return path.toString();
+    }
+    
+    private void checkStep(int step) {
+        if (step < 0 || step > stepCount) {
+            throw new IndexOutOfBoundsException("Paso fuera del recorrido: " + step);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ExecutionTrace{pasos=" + stepCount + ", puntosDeControl=" + checkpointCount + "}";
+    }
+}
@@ -0,0 +1,262 @@
+package co.edu.uptc.model;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de claves long a valores int con direccionamiento abierto (sondeo lineal)
+ * Guarda claves y valores en arreglos primitivos, sin objetos por entrada: cada entrada
+ * ocupa 12 bytes más el espacio libre que exige el factor de carga.
+ */
+public class LongIntMap {
+    // Clave que marca una celda vacía; la clave real con este valor se guarda aparte
+    private static final long EMPTY = 0L;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final int MIN_CAPACITY = 16;
+    
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    private int resizeAt;
+    private boolean hasEmptyKey; // si la clave EMPTY está en el mapa
+    private int emptyKeyValue;
+    private final int missingValue;
+    
+    /**
+     * Constructor del mapa
+     * @param expectedSize número de entradas esperado
+     * @param missingValue valor devuelto para claves que no están en el mapa
+     */
+    public LongIntMap(int expectedSize, int missingValue) {
+        this.missingValue = missingValue;
+        allocate(capacityFor(expectedSize));
+    }
+    
+    /**
+     * Constructor de un mapa vacío
+     * @param missingValue valor devuelto para claves que no están en el mapa
+     */
+    public LongIntMap(int missingValue) {
+        this(MIN_CAPACITY, missingValue);
+    }
+    
+    /**
+     * Crea una copia independiente del mapa (copia directa de los arreglos)
+     * @return copia del mapa
+     */
+    public LongIntMap copy() {
+        LongIntMap copy = new LongIntMap(missingValue);
+        copy.keys = keys.clone();
+        copy.values = values.clone();
+        copy.size = size;
+        copy.mask = mask;
+        copy.resizeAt = resizeAt;
+        copy.hasEmptyKey = hasEmptyKey;
+        copy.emptyKeyValue = emptyKeyValue;
+        return copy;
+    }
+    
+    private static int capacityFor(int expectedSize) {
+        long needed = (long) Math.ceil(Math.max(expectedSize, 1) / (double) LOAD_FACTOR);
+        int capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+    
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+    
+    /**
+     * Dispersa una clave (mezcla de bits de MurmurHash3) para repartirla en la tabla
+     */
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+    
+    /**
+     * Busca la celda de una clave
+     * @return índice de la celda con la clave, o -(índice de la celda libre + 1) si no está
+     */
+    private int slot(long key) {
+        int index = hash(key) & mask;
+        while (true) {
+            long current = keys[index];
+            if (current == key) {
+                return index;
+            }
+            if (current == EMPTY) {
+                return -(index + 1);
+            }
+            index = (index + 1) & mask;
+        }
+    }
+    
+    /**
+     * Obtiene el valor de una clave
+     * @param key clave
+     * @return valor asociado, o el valor de ausencia si la clave no está
+     */
+    public int get(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeyValue : missingValue;
+        }
+        int index = slot(key);
+        return index >= 0 ? values[index] : missingValue;
+    }
+    
+    /**
+     * Verifica si una clave está en el mapa
+     * @param key clave
+     * @return true si la clave tiene un valor asociado
+     */
+    public boolean containsKey(long key) {
+        return key == EMPTY ? hasEmptyKey : slot(key) >= 0;
+    }
+    
+    /**
+     * Asocia un valor a una clave
+     * @param key clave
+     * @param value valor
+     * @return valor anterior, o el valor de ausencia si la clave no estaba
+     */
+    public int put(long key, int value) {
+        if (key == EMPTY) {
+            int previous = hasEmptyKey ? emptyKeyValue : missingValue;
+            if (!hasEmptyKey) {
+                hasEmptyKey = true;
+                size++;
+            }
+            emptyKeyValue = value;
+            return previous;
+        }
+        int index = slot(key);
+        if (index >= 0) {
+            int previous = values[index];
+            values[index] = value;
+            return previous;
+        }
+        index = -index - 1;
+        keys[index] = key;
+        values[index] = value;
+        size++;
+        if (size >= resizeAt) {
+            rehash(keys.length << 1);
+        }
+        return missingValue;
+    }
+    
+    /**
+     * Elimina una clave del mapa
+     * @param key clave
+     * @return valor que tenía, o el valor de ausencia si la clave no estaba
+     */
+    public int remove(long key) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) {
+                return missingValue;
+            }
+            hasEmptyKey = false;
+            size--;
+            return emptyKeyValue;
+        }
+        int index = slot(key);
+        if (index < 0) {
+            return missingValue;
+        }
+        int previous = values[index];
+        // Desplazar hacia atrás las claves siguientes del grupo para no dejar huecos
+        int gap = index;
+        int next = (gap + 1) & mask;
+        while (keys[next] != EMPTY) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return previous;
+    }
+    
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int index = hash(oldKeys[i]) & mask;
+                while (keys[index] != EMPTY) {
+                    index = (index + 1) & mask;
+                }
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+    
+    /**
+     * Recorre todas las entradas del mapa
+     * @param consumer acción que recibe cada clave con su valor
+     */
+    public void forEach(Entry consumer) {
+        if (hasEmptyKey) {
+            consumer.accept(EMPTY, emptyKeyValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], values[i]);
+            }
+        }
+    }
+    
+    /**
+     * Elimina todas las entradas conservando la capacidad
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        hasEmptyKey = false;
+        size = 0;
+    }
+    
+    public int getMissingValue() {
+        return missingValue;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    /**
+     * Estima la memoria ocupada por las tablas del mapa
+     * @return tamaño aproximado en bytes
+     */
+    public long getMemoryBytes() {
+        return 8L * keys.length + 4L * values.length;
+    }
+    
+    /**
+     * Acción sobre una entrada del mapa
+     */
+    @FunctionalInterface
+    public interface Entry {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,15 @@
+package co.edu.uptc.model;
+
+/**
+ * Destino de las coincidencias encontradas por {@link TextSearcher}
+ */
+@FunctionalInterface
+public interface MatchSink {
+    /**
+     * Recibe una coincidencia
+     * @param start posición (en caracteres) donde empieza la subcadena aceptada
+     * @param length longitud de la subcadena en caracteres (long: en un Reader puede superar 2^31)
+     * @param state identificador del estado final en el que terminó
+     */
+    void match(long start, long length, int state);
+}
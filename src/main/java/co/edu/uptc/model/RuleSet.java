@@ -0,0 +1,471 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Conjunto de reglas (varios AFD) que se evalúan sobre la misma entrada en una sola lectura
+ * Los AFD se combinan en un autómata producto: cada estado del producto es la tupla de estados
+ * de todas las reglas y acepta para las reglas cuyo componente es final. El producto completo
+ * puede ser enorme, así que se construye de forma perezosa: una transición del producto se
+ * calcula la primera vez que se usa y se guarda en una tabla, de modo que después cada símbolo
+ * cuesta una consulta, sin importar cuántas reglas haya. Si la tabla supera un límite de
+ * estados se vacía y el resto de la entrada se procesa regla por regla (solo las que siguen
+ * vivas), leyendo igualmente cada símbolo una sola vez; si se llena repetidamente, el producto
+ * es demasiado grande (por ejemplo, muchas reglas del tipo "contiene ...") y se deja de usar.
+ *
+ * Los alfabetos de las reglas se unen en una sola partición de intervalos; cada clase de esa
+ * partición guarda la columna que tiene en cada regla. Un símbolo que no pertenece al alfabeto
+ * de una regla hace que esa regla rechace. Las reglas se compilan al crear el conjunto; los
+ * cambios posteriores de los AFD no le afectan. No es seguro para hilos.
+ */
+public class RuleSet {
+    // Máximo de estados del producto guardados antes de vaciar la tabla
+    private static final int MAX_CACHED_STATES = 1 << 14;
+    // Vaciados de la tabla a partir de los cuales el producto se considera demasiado grande
+    private static final int MAX_CACHE_RESETS = 4;
+    // Máximo de celdas de las tablas por regla indexadas por clase global
+    private static final long MAX_RULE_CELLS = 1 << 24;
+    // Máximo de puntos de código cubiertos por la tabla directa símbolo -> clase
+    private static final int DIRECT_LOOKUP_SIZE = 4096;
+    // Tamaño del buffer usado al procesar un Reader
+    private static final int BUFFER_SIZE = 8192;
+    // Marca de transición del producto aún no calculada
+    private static final int UNKNOWN = -1;
+    // Estado del producto en el que todas las reglas han rechazado
+    private static final int DEAD = 0;
+    // Estado fuera de la tabla: la evaluación en curso sigue avanzando la tupla directamente
+    private static final int DETACHED = -2;
+    
+    private final CompiledAFD[] rules;
+    private final int classCount;
+    private final int[][] classColumns;   // clase global -> columna en cada regla (-1 si no pertenece)
+    private final int[] intervalFirst;    // intervalos de la partición unida, ordenados
+    private final int[] intervalLast;
+    private final int[] intervalClass;
+    private final int[] directClasses;    // punto de código -> clase para los primeros símbolos
+    
+    // Autómata producto construido de forma perezosa
+    private final Map<Tuple, Integer> stateIds = new HashMap<>();
+    private final List<int[]> tuples = new ArrayList<>();
+    private final List<BitSet> acceptedBy = new ArrayList<>();
+    private int[] delta = new int[0];     // (estado * clases + clase) -> estado destino, o UNKNOWN
+    private int initialState;
+    private long cacheResets;
+    private boolean productEnabled = true;
+    
+    // Evaluación regla por regla (fuera de la tabla del producto)
+    private final int[] initialTuple;
+    private final int[] detached;         // estado actual de cada regla
+    private final int[] activeRules;      // reglas que siguen vivas
+    private int activeCount;
+    private final int[][] ruleTables;     // por regla: (estado * clases + clase global) -> destino, o null
+    
+    /**
+     * Crea el conjunto de reglas
+     * @param afds AFD de cada regla; el índice de cada regla es su posición en la lista
+     */
+    public RuleSet(List<AFD> afds) {
+        this.rules = new CompiledAFD[afds.size()];
+        for (int r = 0; r < rules.length; r++) {
+            rules[r] = afds.get(r).compile();
+        }
+        
+        // Partir el espacio de símbolos con los límites de los intervalos de todas las reglas
+        List<List<int[]>> ruleIntervals = new ArrayList<>();
+        int boundaryCount = 0;
+        for (CompiledAFD rule : rules) {
+            List<int[]> intervals = rule.getIntervals();
+            ruleIntervals.add(intervals);
+            boundaryCount += 2 * intervals.size();
+        }
+        int[] boundaries = new int[boundaryCount];
+        int b = 0;
+        for (List<int[]> intervals : ruleIntervals) {
+            for (int[] interval : intervals) {
+                boundaries[b++] = interval[0];
+                boundaries[b++] = interval[1] + 1;
+            }
+        }
+        Arrays.sort(boundaries);
+        
+        // Agrupar los segmentos por la tupla de columnas que tienen en las reglas
+        Map<Tuple, Integer> classIds = new HashMap<>();
+        List<int[]> columnsByClass = new ArrayList<>();
+        int[] first = new int[boundaries.length];
+        int[] last = new int[boundaries.length];
+        int[] classOf = new int[boundaries.length];
+        int segmentCount = 0;
+        for (int i = 0; i + 1 < boundaries.length; i++) {
+            if (boundaries[i] == boundaries[i + 1]) {
+                continue;
+            }
+            int[] columns = new int[rules.length];
+            boolean any = false;
+            for (int r = 0; r < rules.length; r++) {
+                columns[r] = rules[r].getColumn(boundaries[i]);
+                any |= columns[r] >= 0;
+            }
+            if (!any) {
+                continue;
+            }
+            Tuple key = new Tuple(columns);
+            Integer id = classIds.get(key);
+            if (id == null) {
+                id = columnsByClass.size();
+                classIds.put(key, id);
+                columnsByClass.add(columns);
+            }
+            // Unir con el segmento anterior si es contiguo y de la misma clase
+            if (segmentCount > 0 && last[segmentCount - 1] + 1 == boundaries[i] && classOf[segmentCount - 1] == id) {
+                last[segmentCount - 1] = boundaries[i + 1] - 1;
+            } else {
+                first[segmentCount] = boundaries[i];
+                last[segmentCount] = boundaries[i + 1] - 1;
+                classOf[segmentCount] = id;
+                segmentCount++;
+            }
+        }
+        this.classCount = columnsByClass.size();
+        this.classColumns = columnsByClass.toArray(new int[0][]);
+        this.intervalFirst = Arrays.copyOf(first, segmentCount);
+        this.intervalLast = Arrays.copyOf(last, segmentCount);
+        this.intervalClass = Arrays.copyOf(classOf, segmentCount);
+        this.directClasses = new int[DIRECT_LOOKUP_SIZE];
+        for (int symbol = 0; symbol < DIRECT_LOOKUP_SIZE; symbol++) {
+            directClasses[symbol] = findClass(symbol);
+        }
+        
+        this.initialTuple = new int[rules.length];
+        for (int r = 0; r < rules.length; r++) {
+            initialTuple[r] = rules[r].getInitialState();
+        }
+        this.detached = new int[rules.length];
+        this.activeRules = new int[rules.length];
+        
+        // Tablas de cada regla indexadas directamente por la clase global, si caben
+        this.ruleTables = new int[rules.length][];
+        long cells = 0;
+        for (CompiledAFD rule : rules) {
+            cells += (long) rule.getStateCount() * classCount;
+        }
+        if (cells <= MAX_RULE_CELLS) {
+            for (int r = 0; r < rules.length; r++) {
+                int[] ruleTable = new int[rules[r].getStateCount() * classCount];
+                for (int s = 0; s < rules[r].getStateCount(); s++) {
+                    for (int c = 0; c < classCount; c++) {
+                        ruleTable[s * classCount + c] = ruleStep(r, s, c);
+                    }
+                }
+                ruleTables[r] = ruleTable;
+            }
+        }
+        resetCache();
+    }
+    
+    /**
+     * Busca la clase global de un símbolo con búsqueda binaria sobre los intervalos
+     * @return clase del símbolo, o -1 si no pertenece a ningún alfabeto
+     */
+    private int findClass(int symbol) {
+        int low = 0;
+        int high = intervalFirst.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (intervalLast[mid] < symbol) {
+                low = mid + 1;
+            } else if (intervalFirst[mid] > symbol) {
+                high = mid - 1;
+            } else {
+                return intervalClass[mid];
+            }
+        }
+        return -1;
+    }
+    
+    private int classOf(int symbol) {
+        return symbol >= 0 && symbol < DIRECT_LOOKUP_SIZE ? directClasses[symbol] : findClass(symbol);
+    }
+    
+    /**
+     * Vacía el producto construido y vuelve a crear los estados muerto e inicial
+     */
+    private void resetCache() {
+        stateIds.clear();
+        tuples.clear();
+        acceptedBy.clear();
+        delta = new int[Math.max(classCount, 1) * 64];
+        Arrays.fill(delta, UNKNOWN);
+        int[] dead = new int[rules.length];
+        Arrays.fill(dead, CompiledAFD.NO_STATE);
+        intern(dead);
+        initialState = intern(initialTuple.clone());
+    }
+    
+    /**
+     * Obtiene el identificador de un estado del producto, creándolo si no existe
+     */
+    private int intern(int[] tuple) {
+        Tuple key = new Tuple(tuple);
+        Integer id = stateIds.get(key);
+        if (id != null) {
+            return id;
+        }
+        id = tuples.size();
+        stateIds.put(key, id);
+        tuples.add(tuple);
+        BitSet accepted = new BitSet(rules.length);
+        for (int r = 0; r < rules.length; r++) {
+            if (rules[r].isAccepting(tuple[r])) {
+                accepted.set(r);
+            }
+        }
+        acceptedBy.add(accepted);
+        int needed = (id + 1) * classCount;
+        if (needed > delta.length) {
+            int oldLength = delta.length;
+            delta = Arrays.copyOf(delta, Math.max(needed, oldLength * 2));
+            Arrays.fill(delta, oldLength, delta.length, UNKNOWN);
+        }
+        return id;
+    }
+    
+    /**
+     * Avanza el producto con un símbolo
+     * @param state estado actual del producto (o DETACHED)
+     * @param symbol punto de código de entrada
+     * @return estado siguiente
+     */
+    private int step(int state, int symbol) {
+        int symbolClass = classOf(symbol);
+        if (symbolClass < 0) {
+            return DEAD;
+        }
+        if (state == DETACHED) {
+            return stepDetached(symbolClass);
+        }
+        int next = delta[state * classCount + symbolClass];
+        if (next != UNKNOWN) {
+            return next;
+        }
+        // Transición nueva: avanzar cada regla con su propia columna
+        int[] from = tuples.get(state);
+        int[] to = new int[rules.length];
+        for (int r = 0; r < rules.length; r++) {
+            to[r] = from[r] == CompiledAFD.NO_STATE ? CompiledAFD.NO_STATE : ruleStep(r, from[r], symbolClass);
+        }
+        if (tuples.size() >= MAX_CACHED_STATES) {
+            // Tabla llena: se vacía y el resto de esta entrada se procesa regla por regla.
+            // Si se llena una y otra vez el producto es demasiado grande y se deja de usar.
+            cacheResets++;
+            productEnabled = cacheResets < MAX_CACHE_RESETS;
+            resetCache();
+            return detach(to);
+        }
+        next = intern(to);
+        delta[state * classCount + symbolClass] = next;
+        return next;
+    }
+    
+    /**
+     * Avanza una regla con una clase global
+     */
+    private int ruleStep(int rule, int state, int symbolClass) {
+        int column = classColumns[symbolClass][rule];
+        return column < 0 ? CompiledAFD.NO_STATE : rules[rule].getTransitionTable().next(state, column);
+    }
+    
+    /**
+     * Estado con el que empieza una evaluación
+     */
+    private int start() {
+        return productEnabled ? initialState : detach(initialTuple);
+    }
+    
+    /**
+     * Pasa a evaluar regla por regla a partir de una tupla de estados
+     * @return DETACHED, o DEAD si todas las reglas rechazaron
+     */
+    private int detach(int[] tuple) {
+        activeCount = 0;
+        for (int r = 0; r < rules.length; r++) {
+            detached[r] = tuple[r];
+            if (tuple[r] != CompiledAFD.NO_STATE) {
+                activeRules[activeCount++] = r;
+            }
+        }
+        return activeCount > 0 ? DETACHED : DEAD;
+    }
+    
+    /**
+     * Avanza las reglas vivas con su propia columna; las que rechazan salen de la lista
+     */
+    private int stepDetached(int symbolClass) {
+        int i = 0;
+        while (i < activeCount) {
+            int r = activeRules[i];
+            int[] ruleTable = ruleTables[r];
+            int next = ruleTable != null ? ruleTable[detached[r] * classCount + symbolClass] : ruleStep(r, detached[r], symbolClass);
+            detached[r] = next;
+            if (next == CompiledAFD.NO_STATE) {
+                activeRules[i] = activeRules[--activeCount];
+            } else {
+                i++;
+            }
+        }
+        return activeCount > 0 ? DETACHED : DEAD;
+    }
+    
+    /**
+     * Obtiene las reglas que aceptan en un estado del producto
+     */
+    private BitSet accepted(int state) {
+        if (state != DETACHED) {
+            return (BitSet) acceptedBy.get(state).clone();
+        }
+        BitSet accepted = new BitSet(rules.length);
+        for (int r = 0; r < rules.length; r++) {
+            if (rules[r].isAccepting(detached[r])) {
+                accepted.set(r);
+            }
+        }
+        return accepted;
+    }
+    
+    /**
+     * Evalúa una entrada con todas las reglas leyéndola una sola vez
+     * @param input palabra de entrada
+     * @return conjunto con el índice de cada regla que acepta la entrada
+     */
+    public BitSet evaluate(CharSequence input) {
+        int state = run(start(), input, 0, input.length());
+        return accepted(state);
+    }
+    
+    /**
+     * Evalúa una entrada leída por bloques con todas las reglas
+     * @param reader fuente de la entrada
+     * @return conjunto con el índice de cada regla que acepta la entrada
+     * @throws IOException si hay error al leer
+     */
+    public BitSet evaluate(Reader reader) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        int state = start();
+        int kept = 0;
+        int read;
+        while (state != DEAD && (read = reader.read(buffer, kept, buffer.length - kept)) != -1) {
+            int end = kept + read;
+            int usable = end > 0 && Character.isHighSurrogate(buffer[end - 1]) ? end - 1 : end;
+            state = run(state, buffer, usable);
+            kept = end - usable;
+            if (kept > 0) {
+                buffer[0] = buffer[end - 1];
+            }
+        }
+        if (kept > 0) {
+            state = run(state, buffer, kept);
+        }
+        return accepted(state);
+    }
+    
+    private int run(int state, char[] buffer, int end) {
+        int i = 0;
+        while (i < end && state != DEAD) {
+            int symbol = Character.codePointAt(buffer, i, end);
+            state = step(state, symbol);
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    private int run(int state, CharSequence input, int from, int to) {
+        int i = from;
+        while (i < to && state != DEAD) {
+            char c = input.charAt(i);
+            int symbol = c;
+            if (Character.isHighSurrogate(c) && i + 1 < to && Character.isLowSurrogate(input.charAt(i + 1))) {
+                symbol = Character.toCodePoint(c, input.charAt(i + 1));
+            }
+            state = step(state, symbol);
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Verifica si una regla acepta una entrada
+     * @param rule índice de la regla
+     * @param input palabra de entrada
+     * @return true si la regla acepta la entrada
+     */
+    public boolean accepts(int rule, CharSequence input) {
+        return rules[rule].accepts(input);
+    }
+    
+    public int getRuleCount() {
+        return rules.length;
+    }
+    
+    public CompiledAFD getRule(int rule) {
+        return rules[rule];
+    }
+    
+    /**
+     * Obtiene el número de clases de símbolos de la partición unida de los alfabetos
+     * @return número de columnas de la tabla del producto
+     */
+    public int getClassCount() {
+        return classCount;
+    }
+    
+    /**
+     * Obtiene el número de estados del producto construidos hasta ahora
+     * @return estados en la tabla
+     */
+    public int getCachedStateCount() {
+        return tuples.size();
+    }
+    
+    /**
+     * Obtiene cuántas veces se vació la tabla del producto por superar el límite de estados
+     * @return número de vaciados
+     */
+    public long getCacheResets() {
+        return cacheResets;
+    }
+    
+    @Override
+    public String toString() {
+        return "RuleSet{reglas=" + rules.length + ", clases=" + classCount
+                + ", estadosProducto=" + tuples.size() + "}";
+    }
+    
+    /**
+     * Tupla de enteros usada como clave (estados del producto o columnas de una clase)
+     */
+    private static final class Tuple {
+        private final int[] values;
+        private final int hash;
+        
+        Tuple(int[] values) {
+            this.values = values;
+            this.hash = Arrays.hashCode(values);
+        }
+        
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Tuple && Arrays.equals(values, ((Tuple) other).values);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
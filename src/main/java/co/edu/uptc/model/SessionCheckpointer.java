@@ -0,0 +1,282 @@
+package co.edu.uptc.model;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Puntos de control del estado de un {@link SessionMonitor} en un directorio
+ * El primer punto de control es completo y los siguientes son incrementales: solo contienen
+ * las sesiones modificadas desde el anterior. Tomar un punto de control incremental cuesta O(1)
+ * en el hilo que procesa eventos (se entrega el mapa de cambios y se empieza uno nuevo); la
+ * escritura se hace en un hilo propio. Cada archivo incluye la huella del AFD para que la
+ * restauración compruebe que los identificadores de estado corresponden al mismo autómata.
+ * Un punto de control completo tampoco copia las sesiones en el hilo de eventos: el monitor
+ * congela su mapa hasta que termina la escritura.
+ *
+ * Si una escritura falla, los cambios que contenía ya no están en el monitor: los puntos de
+ * control incrementales siguientes no se escriben (su futuro falla) y el siguiente que se
+ * pida es completo, de modo que los archivos en disco siempre forman una cadena restaurable.
+ *
+ * Formato de cada archivo: magia, versión, huella del AFD, número de secuencia, tipo
+ * (completo o incremental), número de entradas y pares (clave long, estado int).
+ */
+public class SessionCheckpointer implements AutoCloseable {
+    /** Extensión de los archivos de punto de control */
+    public static final String EXTENSION = ".afdk";
+    
+    private static final int MAGIC = 0x41464B43; // "AFKC"
+    private static final int FORMAT_VERSION = 1;
+    private static final String PREFIX = "checkpoint-";
+    
+    private final Path directory;
+    private final ExecutorService writer;
+    private long nextSequence;
+    private long lastFullSequence;                 // último completo pedido (hilo de eventos)
+    private volatile long failedSequence = -1;     // última escritura que falló
+    private boolean chainBroken;                   // hay un fallo sin completo posterior (hilo de escritura)
+    
+    /**
+     * Constructor del gestor de puntos de control
+     * @param directory directorio donde se guardan los archivos
+     * @throws IOException si no se puede crear o leer el directorio
+     */
+    public SessionCheckpointer(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        List<Path> existing = listCheckpoints(directory);
+        this.nextSequence = existing.isEmpty() ? 1 : sequenceOf(existing.get(existing.size() - 1)) + 1;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "afd-checkpoint-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+    
+    /**
+     * Toma un punto de control del monitor. Debe llamarse desde el hilo que procesa sus eventos.
+     * Es incremental si el monitor ya registraba cambios, o completo si no los registraba o si
+     * falló alguna escritura desde el último completo.
+     * @param monitor monitor de sesiones
+     * @return futuro con el archivo escrito
+     */
+    public CompletableFuture<Path> checkpoint(SessionMonitor monitor) {
+        if (failedSequence >= lastFullSequence) {
+            return checkpointFull(monitor);
+        }
+        LongIntMap changes = monitor.takeChanges();
+        if (changes == null) {
+            return checkpointFull(monitor);
+        }
+        return write(monitor, changes, null);
+    }
+    
+    /**
+     * Toma un punto de control completo (copia de todas las sesiones). Cuando termina de
+     * escribirse se eliminan los archivos anteriores, que ya no hacen falta para restaurar.
+     * Debe llamarse desde el hilo que procesa los eventos del monitor.
+     * @param monitor monitor de sesiones
+     * @return futuro con el archivo escrito
+     */
+    public CompletableFuture<Path> checkpointFull(SessionMonitor monitor) {
+        lastFullSequence = nextSequence;
+        SessionMonitor.Snapshot snapshot = monitor.snapshotSessions();
+        return write(monitor, snapshot.getSessions(), snapshot);
+    }
+    
+    /**
+     * Escribe un punto de control en el hilo de escritura
+     * @param entries sesiones a escribir
+     * @param snapshot copia congelada si es un punto de control completo, o null si es incremental
+     */
+    private CompletableFuture<Path> write(SessionMonitor monitor, LongIntMap entries, SessionMonitor.Snapshot snapshot) {
+        long sequence = nextSequence++;
+        long fingerprint = monitor.getCompiledAFD().getFingerprint();
+        boolean full = snapshot != null;
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                Path file;
+                try {
+                    if (!full && chainBroken) {
+                        throw new IOException("Un punto de control anterior falló; el siguiente será completo");
+                    }
+                    file = writeFile(sequence, fingerprint, entries, full);
+                } catch (IOException | RuntimeException e) {
+                    chainBroken = true;
+                    failedSequence = sequence;
+                    throw e;
+                } finally {
+                    if (snapshot != null) {
+                        snapshot.release();
+                    }
+                }
+                if (full) {
+                    chainBroken = false;
+                    deleteBefore(sequence);
+                }
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, writer);
+    }
+    
+    /**
+     * Escribe un archivo de punto de control en un temporal y lo mueve a su nombre final,
+     * de modo que nunca queda un archivo a medio escribir
+     */
+    private Path writeFile(long sequence, long fingerprint, LongIntMap entries, boolean full) throws IOException {
+        Path file = directory.resolve(String.format("%s%012d%s", PREFIX, sequence, EXTENSION));
+        Path temporary = directory.resolve(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(fingerprint);
+            out.writeLong(sequence);
+            out.writeBoolean(full);
+            out.writeInt(entries.size());
+            entries.forEach((key, state) -> {
+                try {
+                    out.writeLong(key);
+                    out.writeInt(state);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | UncheckedIOException e) {
+            Files.deleteIfExists(temporary);
+            throw e instanceof UncheckedIOException ? ((UncheckedIOException) e).getCause() : (IOException) e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return file;
+    }
+    
+    private void deleteBefore(long sequence) throws IOException {
+        for (Path file : listCheckpoints(directory)) {
+            if (sequenceOf(file) < sequence) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+    
+    /**
+     * Restaura un monitor desde los puntos de control de un directorio: el último completo
+     * y los incrementales posteriores, en orden. El monitor sigue registrando cambios desde
+     * el estado restaurado, así que el siguiente punto de control es incremental.
+     * @param monitor monitor recién creado sobre el mismo AFD
+     * @param directory directorio de los puntos de control
+     * @return número de sesiones restauradas
+     * @throws IOException si hay error al leer o los archivos no corresponden al AFD del monitor
+     */
+    public static int restore(SessionMonitor monitor, Path directory) throws IOException {
+        CompiledAFD afd = monitor.getCompiledAFD();
+        long fingerprint = afd.getFingerprint();
+        List<Path> files = listCheckpoints(directory);
+        
+        // Empezar por el último punto de control completo
+        int start = -1;
+        for (int i = files.size() - 1; i >= 0 && start < 0; i--) {
+            if (isFull(files.get(i))) {
+                start = i;
+            }
+        }
+        if (start < 0) {
+            if (!files.isEmpty()) {
+                throw new IOException("No hay un punto de control completo en " + directory);
+            }
+            monitor.trackChanges();
+            return 0;
+        }
+        
+        for (int i = start; i < files.size(); i++) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(files.get(i)), 1 << 16))) {
+                readHeader(in, files.get(i));
+                if (in.readLong() != fingerprint) {
+                    throw new IOException("El punto de control " + files.get(i).getFileName()
+                            + " pertenece a otro AFD");
+                }
+                in.readLong();
+                in.readBoolean();
+                int count = in.readInt();
+                for (int e = 0; e < count; e++) {
+                    long key = in.readLong();
+                    int state = in.readInt();
+                    if (state < CompiledAFD.NO_STATE || state >= afd.getStateCount()) {
+                        throw new IOException("Estado no válido en " + files.get(i).getFileName() + ": " + state);
+                    }
+                    monitor.restore(key, state);
+                }
+            }
+        }
+        monitor.trackChanges();
+        return monitor.getSessionCount();
+    }
+    
+    private static void readHeader(DataInputStream in, Path file) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("El archivo no es un punto de control: " + file.getFileName());
+        }
+        int version = in.readInt();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Versión de punto de control no soportada: " + version);
+        }
+    }
+    
+    private static boolean isFull(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            readHeader(in, file);
+            in.readLong();
+            in.readLong();
+            return in.readBoolean();
+        }
+    }
+    
+    /**
+     * Lista los archivos de punto de control de un directorio ordenados por secuencia
+     */
+    private static List<Path> listCheckpoints(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (Stream<Path> stream = Files.list(directory)) {
+            stream.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(EXTENSION);
+            }).forEach(files::add);
+        }
+        files.sort((a, b) -> Long.compare(sequenceOf(a), sequenceOf(b)));
+        return files;
+    }
+    
+    private static long sequenceOf(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(), name.length() - EXTENSION.length()));
+    }
+    
+    /**
+     * Espera a que terminen las escrituras pendientes y detiene el hilo de escritura
+     */
+    @Override
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package co.edu.uptc.model;
+
+/**
+ * Monitor que ejecuta un AFD de forma independiente para muchas sesiones (usuarios, conexiones...)
+ * Cada evento (clave, símbolo) avanza la copia del AFD de su sesión. El estado actual de cada
+ * sesión se guarda como un entero en un {@link LongIntMap}, por lo que una sesión ocupa unos
+ * pocos bytes en lugar de un objeto State y una clave en caja.
+ *
+ * Las sesiones sin eventos están en el estado inicial y no ocupan memoria, igual que las que
+ * vuelven a él. Una sesión que recibe un símbolo sin transición queda en estado muerto hasta
+ * que se reinicia. El monitor trabaja sobre la versión compilada del AFD en el momento de
+ * crearlo; los cambios posteriores del AFD no le afectan. No es seguro para hilos.
+ *
+ * Para un punto de control completo el mapa de sesiones no se copia: se congela y se entrega
+ * al hilo que lo escribe, y mientras tanto los cambios van a un mapa superpuesto que se
+ * consulta primero. Cuando la escritura termina, los cambios superpuestos se aplican al mapa
+ * en el siguiente evento, con un costo proporcional a las sesiones modificadas.
+ */
+public class SessionMonitor {
+    // Valor de ausencia del mapa superpuesto (distinto de cualquier estado y de NO_STATE)
+    private static final int NOT_OVERLAID = Integer.MIN_VALUE;
+    
+    private final CompiledAFD afd;
+    private LongIntMap sessions;       // clave de sesión -> estado actual (congelado si frozen != null)
+    private LongIntMap overlay;        // cambios hechos mientras sessions está congelado, o null
+    private Snapshot frozen;           // copia entregada para escribir que todavía usa sessions
+    private int sessionCount;          // sesiones fuera del estado inicial
+    private LongIntMap changes;        // claves modificadas desde el último punto de control (null si no se registran)
+    private final AcceptListener listener;
+    private long events;
+    private long acceptances;
+    
+    /**
+     * Constructor del monitor
+     * @param afd AFD que se ejecuta en cada sesión
+     * @param listener acción a ejecutar cuando una sesión entra en un estado de aceptación (puede ser null)
+     */
+    public SessionMonitor(AFD afd, AcceptListener listener) {
+        this(afd.compile(), listener, 0);
+    }
+    
+    /**
+     * Constructor del monitor
+     * @param afd AFD compilado que se ejecuta en cada sesión
+     * @param listener acción a ejecutar cuando una sesión entra en un estado de aceptación (puede ser null)
+     * @param expectedSessions número de sesiones esperado, para dimensionar el mapa
+     */
+    public SessionMonitor(CompiledAFD afd, AcceptListener listener, int expectedSessions) {
+        this.afd = afd;
+        this.listener = listener;
+        this.sessions = new LongIntMap(expectedSessions, afd.getInitialState());
+    }
+    
+    /**
+     * Procesa un evento de una sesión
+     * @param key clave de la sesión
+     * @param symbol símbolo (punto de código) del evento
+     * @return estado de la sesión tras el evento, o CompiledAFD.NO_STATE si quedó muerta
+     */
+    public int process(long key, int symbol) {
+        int state = getStateId(key);
+        int next = afd.step(state, symbol);
+        events++;
+        if (next == state) {
+            return next;
+        }
+        store(key, state, next);
+        if (changes != null) {
+            changes.put(key, next);
+        }
+        // Solo se avisa al entrar: permanecer en un estado de aceptación no vuelve a avisar
+        if (afd.isAccepting(next)) {
+            acceptances++;
+            if (listener != null) {
+                listener.onAccept(key, afd.getState(next));
+            }
+        }
+        return next;
+    }
+    
+    /**
+     * Procesa un lote de eventos en orden
+     * @param keys clave de sesión de cada evento
+     * @param symbols símbolo de cada evento
+     * @param offset posición del primer evento en los arreglos
+     * @param count número de eventos
+     */
+    public void process(long[] keys, int[] symbols, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            process(keys[i], symbols[i]);
+        }
+    }
+    
+    /**
+     * Procesa una secuencia de símbolos de una misma sesión
+     * @param key clave de la sesión
+     * @param input símbolos en orden
+     * @return estado de la sesión tras el último símbolo
+     */
+    public int process(long key, CharSequence input) {
+        int state = getStateId(key);
+        for (int i = 0; i < input.length(); ) {
+            int symbol = Character.codePointAt(input, i);
+            state = process(key, symbol);
+            i += Character.charCount(symbol);
+        }
+        return state;
+    }
+    
+    /**
+     * Obtiene el identificador del estado actual de una sesión
+     * @param key clave de la sesión
+     * @return estado actual (el inicial si la sesión no tiene eventos), o CompiledAFD.NO_STATE si está muerta
+     */
+    public int getStateId(long key) {
+        if (overlay != null) {
+            int state = overlay.get(key);
+            if (state != NOT_OVERLAID) {
+                return state;
+            }
+        }
+        return sessions.get(key);
+    }
+    
+    /**
+     * Cambia el estado de una sesión en el mapa (o en el superpuesto si está congelado)
+     * @param key clave de la sesión
+     * @param previous estado actual
+     * @param next nuevo estado
+     */
+    private void store(long key, int previous, int next) {
+        int initial = afd.getInitialState();
+        if (previous == initial && next != initial) {
+            sessionCount++;
+        } else if (previous != initial && next == initial) {
+            sessionCount--;
+        }
+        if (frozen != null && frozen.released) {
+            mergeOverlay();
+        }
+        if (overlay != null) {
+            overlay.put(key, next); // El estado inicial queda anotado para ocultar el del mapa congelado
+        } else if (next == initial) {
+            sessions.remove(key); // Las sesiones en el estado inicial no ocupan memoria
+        } else {
+            sessions.put(key, next);
+        }
+    }
+    
+    /**
+     * Aplica al mapa de sesiones los cambios superpuestos, una vez que ya no se está escribiendo
+     */
+    private void mergeOverlay() {
+        int initial = afd.getInitialState();
+        overlay.forEach((key, state) -> {
+            if (state == initial) {
+                sessions.remove(key);
+            } else {
+                sessions.put(key, state);
+            }
+        });
+        overlay = null;
+        frozen = null;
+    }
+    
+    /**
+     * Obtiene el estado actual de una sesión
+     * @param key clave de la sesión
+     * @return estado actual, o null si la sesión está muerta
+     */
+    public State getState(long key) {
+        int state = getStateId(key);
+        return state == CompiledAFD.NO_STATE ? null : afd.getState(state);
+    }
+    
+    /**
+     * Verifica si una sesión está en un estado de aceptación
+     * @param key clave de la sesión
+     * @return true si el estado actual es final
+     */
+    public boolean isAccepting(long key) {
+        return afd.isAccepting(getStateId(key));
+    }
+    
+    /**
+     * Devuelve una sesión al estado inicial y libera su entrada
+     * @param key clave de la sesión
+     */
+    public void reset(long key) {
+        int state = getStateId(key);
+        if (state != afd.getInitialState()) {
+            store(key, state, afd.getInitialState());
+            if (changes != null) {
+                changes.put(key, afd.getInitialState());
+            }
+        }
+    }
+    
+    /**
+     * Elimina todas las sesiones. El siguiente punto de control será completo.
+     */
+    public void clear() {
+        if (frozen != null) {
+            // El mapa congelado sigue siendo de la escritura en curso
+            sessions = new LongIntMap(afd.getInitialState());
+            overlay = null;
+            frozen = null;
+        } else {
+            sessions.clear();
+        }
+        sessionCount = 0;
+        changes = null;
+    }
+    
+    /**
+     * Entrega las sesiones modificadas desde la llamada anterior y empieza a registrar de nuevo.
+     * El mapa entregado ya no lo modifica el monitor, por lo que puede escribirse en otro hilo.
+     * @return clave -> estado actual de cada sesión modificada, o null si no se estaban
+     *         registrando cambios (hace falta un punto de control completo)
+     */
+    LongIntMap takeChanges() {
+        LongIntMap taken = changes;
+        changes = new LongIntMap(taken != null ? taken.size() : 0, afd.getInitialState());
+        return taken;
+    }
+    
+    /**
+     * Congela el estado de todas las sesiones para escribirlo en otro hilo y empieza a
+     * registrar cambios desde este momento. Cuesta O(1) salvo que la copia anterior no se
+     * haya liberado todavía; en ese caso el mapa se copia con los cambios superpuestos.
+     * @return copia de las sesiones; quien la recibe debe llamar a {@link Snapshot#release()}
+     *         cuando deje de leerla
+     */
+    Snapshot snapshotSessions() {
+        changes = new LongIntMap(afd.getInitialState());
+        if (frozen != null) {
+            if (frozen.released) {
+                mergeOverlay();
+            } else {
+                LongIntMap current = sessions.copy();
+                int initial = afd.getInitialState();
+                overlay.forEach((key, state) -> {
+                    if (state == initial) {
+                        current.remove(key);
+                    } else {
+                        current.put(key, state);
+                    }
+                });
+                sessions = current;
+            }
+        }
+        frozen = new Snapshot(sessions);
+        overlay = new LongIntMap(NOT_OVERLAID);
+        return frozen;
+    }
+    
+    /**
+     * Restaura el estado de una sesión desde un punto de control, sin avisar a la acción
+     * @param key clave de la sesión
+     * @param state estado guardado
+     */
+    void restore(long key, int state) {
+        store(key, getStateId(key), state);
+    }
+    
+    /**
+     * Empieza a registrar cambios sobre el estado actual (tras restaurar un punto de control)
+     */
+    void trackChanges() {
+        changes = new LongIntMap(afd.getInitialState());
+    }
+    
+    /**
+     * Obtiene el número de sesiones que no están en el estado inicial
+     * @return número de sesiones registradas
+     */
+    public int getSessionCount() {
+        return sessionCount;
+    }
+    
+    public long getEventCount() {
+        return events;
+    }
+    
+    public long getAcceptanceCount() {
+        return acceptances;
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+    
+    /**
+     * Estima la memoria ocupada por las sesiones
+     * @return tamaño aproximado en bytes
+     */
+    public long getMemoryBytes() {
+        return sessions.getMemoryBytes() + (overlay != null ? overlay.getMemoryBytes() : 0)
+                + (changes != null ? changes.getMemoryBytes() : 0);
+    }
+    
+    @Override
+    public String toString() {
+        return "SessionMonitor{sesiones=" + sessionCount + ", eventos=" + events
+                + ", aceptaciones=" + acceptances + "}";
+    }
+    
+    /**
+     * Estado de todas las sesiones congelado para un punto de control completo.
+     * El monitor no modifica el mapa hasta que se llama a {@link #release()}.
+     */
+    static final class Snapshot {
+        private final LongIntMap sessions;
+        private volatile boolean released;
+        
+        Snapshot(LongIntMap sessions) {
+            this.sessions = sessions;
+        }
+        
+        /**
+         * Obtiene las sesiones congeladas; solo pueden leerse hasta llamar a release()
+         * @return clave -> estado de cada sesión fuera del estado inicial
+         */
+        LongIntMap getSessions() {
+            return sessions;
+        }
+        
+        /**
+         * Avisa al monitor de que la copia ya no se lee (puede llamarse desde cualquier hilo)
+         */
+        void release() {
+            released = true;
+        }
+    }
+    
+    /**
+     * Acción que se ejecuta cuando una sesión entra en un estado de aceptación
+     */
+    @FunctionalInterface
+    public interface AcceptListener {
+        /**
+         * @param key clave de la sesión
+         * @param state estado de aceptación alcanzado
+         */
+        void onAccept(long key, State state);
+    }
+}
@@ -0,0 +1,335 @@
+package co.edu.uptc.model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Monitor de sesiones repartido entre varios hilos
+ * Las claves se reparten entre N particiones; cada partición tiene su propio
+ * {@link SessionMonitor} (y por tanto su propio mapa de estados) y un hilo que es el único
+ * que lo modifica, así que no hay bloqueos compartidos. Los eventos llegan a cada partición
+ * por un buffer circular de varios productores y un consumidor.
+ *
+ * Todos los eventos de una clave van a la misma partición y se procesan en el orden en que
+ * se publicaron. Las acciones de aceptación se ejecutan en los hilos de las particiones, por
+ * lo que deben ser seguras para hilos; si una lanza una excepción, su partición se detiene y
+ * las siguientes publicaciones, flush() y close() en esa partición lanzan
+ * IllegalStateException con el error como causa. Las consultas de estado solo son coherentes
+ * después de {@link #flush()} y mientras no se publiquen eventos nuevos.
+ */
+public class ShardedSessionMonitor implements AutoCloseable {
+    // Capacidad por defecto del buffer de cada partición (potencia de 2)
+    private static final int DEFAULT_RING_CAPACITY = 1 << 14;
+    // Eventos que un hilo procesa antes de publicar su avance
+    private static final int DRAIN_BATCH = 256;
+    // Vueltas de espera activa antes de dormir cuando no hay eventos
+    private static final int IDLE_SPINS = 100;
+    private static final long PARK_NANOS = 50_000;
+    
+    private final CompiledAFD afd;
+    private final Shard[] shards;
+    private volatile boolean running = true;  // Se aceptan eventos nuevos
+    private volatile boolean stopping;        // Ya no hay publicaciones en curso: los hilos pueden terminar
+    
+    /**
+     * Constructor con una partición por procesador disponible
+     * @param afd AFD que se ejecuta en cada sesión
+     * @param listener acción a ejecutar cuando una sesión entra en un estado de aceptación (puede ser null)
+     */
+    public ShardedSessionMonitor(AFD afd, SessionMonitor.AcceptListener listener) {
+        this(afd, listener, Runtime.getRuntime().availableProcessors(), DEFAULT_RING_CAPACITY);
+    }
+    
+    /**
+     * Constructor del monitor
+     * @param afd AFD que se ejecuta en cada sesión
+     * @param listener acción a ejecutar cuando una sesión entra en un estado de aceptación (puede ser null)
+     * @param shardCount número de particiones (hilos)
+     * @param ringCapacity capacidad del buffer de cada partición (se redondea a potencia de 2)
+     */
+    public ShardedSessionMonitor(AFD afd, SessionMonitor.AcceptListener listener, int shardCount, int ringCapacity) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Se necesita al menos una partición");
+        }
+        this.afd = afd.compile();
+        int capacity = Integer.highestOneBit(Math.max(ringCapacity, 2) - 1) << 1;
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(new SessionMonitor(this.afd, listener, 0), capacity);
+        }
+        for (int i = 0; i < shardCount; i++) {
+            Thread worker = new Thread(shards[i]::run, "afd-session-shard-" + i);
+            worker.setDaemon(true);
+            shards[i].worker = worker;
+            worker.start();
+        }
+    }
+    
+    /**
+     * Obtiene la partición de una clave
+     */
+    private Shard shardOf(long key) {
+        int hash = (int) ((key * 0x9E3779B97F4A7C15L) >>> 32);
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+    
+    /**
+     * Publica un evento. Si el buffer de la partición está lleno espera a que haya espacio.
+     * @param key clave de la sesión
+     * @param symbol símbolo (punto de código) del evento
+     * @throws IllegalStateException si el monitor está cerrado o la partición se detuvo por un error
+     */
+    public void submit(long key, int symbol) {
+        Shard shard = shardOf(key);
+        // La reserva se anota antes de comprobar running: close() espera a que terminen
+        // las publicaciones que vieron el monitor abierto
+        shard.producers.incrementAndGet();
+        try {
+            if (!running) {
+                throw new IllegalStateException("El monitor de sesiones está cerrado");
+            }
+            shard.ring.put(key, symbol);
+        } finally {
+            shard.producers.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Publica un lote de eventos en orden
+     * @param keys clave de sesión de cada evento
+     * @param symbols símbolo de cada evento
+     * @param offset posición del primer evento en los arreglos
+     * @param count número de eventos
+     */
+    public void submit(long[] keys, int[] symbols, int offset, int count) {
+        for (int i = offset; i < offset + count; i++) {
+            submit(keys[i], symbols[i]);
+        }
+    }
+    
+    /**
+     * Espera a que se procesen todos los eventos publicados antes de la llamada
+     * @throws IllegalStateException si una partición se detuvo por un error
+     */
+    public void flush() {
+        for (Shard shard : shards) {
+            long target = shard.ring.tail.get();
+            while (shard.ring.head < target) {
+                shard.ring.checkConsumer();
+                if (!shard.worker.isAlive()) {
+                    throw new IllegalStateException("La partición terminó con eventos pendientes");
+                }
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+            shard.ring.checkConsumer();
+        }
+    }
+    
+    /**
+     * Obtiene el estado actual de una sesión (ver {@link #flush()})
+     * @param key clave de la sesión
+     * @return estado actual, o null si la sesión está muerta
+     */
+    public State getState(long key) {
+        return shardOf(key).monitor.getState(key);
+    }
+    
+    /**
+     * Verifica si una sesión está en un estado de aceptación (ver {@link #flush()})
+     * @param key clave de la sesión
+     * @return true si el estado actual es final
+     */
+    public boolean isAccepting(long key) {
+        return shardOf(key).monitor.isAccepting(key);
+    }
+    
+    public int getShardCount() {
+        return shards.length;
+    }
+    
+    /**
+     * Obtiene el número de sesiones fuera del estado inicial en todas las particiones
+     * @return número de sesiones
+     */
+    public long getSessionCount() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.monitor.getSessionCount();
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene el número de eventos procesados
+     * @return eventos procesados por todas las particiones
+     */
+    public long getEventCount() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.ring.head;
+        }
+        return total;
+    }
+    
+    /**
+     * Obtiene el número de veces que una sesión entró en un estado de aceptación
+     * @return aceptaciones en todas las particiones (ver {@link #flush()})
+     */
+    public long getAcceptanceCount() {
+        long total = 0;
+        for (Shard shard : shards) {
+            total += shard.monitor.getAcceptanceCount();
+        }
+        return total;
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+    
+    /**
+     * Rechaza eventos nuevos, espera a que terminen las publicaciones en curso, procesa los
+     * eventos pendientes y detiene los hilos de las particiones
+     * @throws IllegalStateException si una partición se detuvo por un error
+     */
+    @Override
+    public void close() {
+        running = false;
+        for (Shard shard : shards) {
+            while (shard.producers.get() > 0) {
+                LockSupport.parkNanos(PARK_NANOS);
+            }
+        }
+        stopping = true;
+        for (Shard shard : shards) {
+            LockSupport.unpark(shard.worker);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+        for (Shard shard : shards) {
+            shard.ring.checkConsumer();
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return "ShardedSessionMonitor{particiones=" + shards.length + ", eventos=" + getEventCount() + "}";
+    }
+    
+    /**
+     * Partición: monitor propio, buffer de entrada y el hilo que lo procesa
+     */
+    private final class Shard {
+        private final SessionMonitor monitor;
+        private final EventRing ring;
+        private final AtomicInteger producers = new AtomicInteger(); // publicaciones en curso
+        private Thread worker;
+        
+        Shard(SessionMonitor monitor, int capacity) {
+            this.monitor = monitor;
+            this.ring = new EventRing(capacity);
+        }
+        
+        void run() {
+            int idle = 0;
+            try {
+                while (true) {
+                    int processed = ring.drain(monitor, DRAIN_BATCH);
+                    if (processed > 0) {
+                        idle = 0;
+                    } else if (stopping && ring.head >= ring.tail.get()) {
+                        return;
+                    } else if (++idle < IDLE_SPINS) {
+                        Thread.onSpinWait();
+                    } else {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                }
+            } catch (RuntimeException | Error e) {
+                // Sin consumidor, los productores que esperan espacio fallan en lugar de esperar siempre
+                ring.consumerFailure = e;
+            }
+        }
+    }
+    
+    /**
+     * Buffer circular de eventos con varios productores y un consumidor
+     * Cada productor reserva una posición con un contador atómico, escribe el evento y lo
+     * publica marcando la posición con su número de secuencia; el consumidor lee en orden
+     * de secuencia y solo avanza sobre posiciones ya publicadas.
+     */
+    private static final class EventRing {
+        private final long[] keys;
+        private final int[] symbols;
+        private final AtomicLongArray published; // posición -> secuencia + 1 del último evento publicado
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong(); // siguiente secuencia a reservar
+        private volatile long head;                       // siguiente secuencia a consumir
+        private volatile Throwable consumerFailure;       // error que detuvo al consumidor
+        
+        EventRing(int capacity) {
+            this.keys = new long[capacity];
+            this.symbols = new int[capacity];
+            this.published = new AtomicLongArray(capacity);
+            this.mask = capacity - 1;
+        }
+        
+        void put(long key, int symbol) {
+            checkConsumer();
+            long sequence = tail.getAndIncrement();
+            int spins = 0;
+            while (sequence - head >= keys.length) {
+                // Buffer lleno: esperar activamente un poco y luego ceder el procesador
+                checkConsumer();
+                if (++spins < IDLE_SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    Thread.yield();
+                }
+            }
+            int index = (int) sequence & mask;
+            keys[index] = key;
+            symbols[index] = symbol;
+            published.lazySet(index, sequence + 1);
+        }
+        
+        /**
+         * Lanza IllegalStateException si el consumidor se detuvo por un error
+         */
+        void checkConsumer() {
+            Throwable failure = consumerFailure;
+            if (failure != null) {
+                throw new IllegalStateException("La partición se detuvo por un error: " + failure, failure);
+            }
+        }
+        
+        int drain(SessionMonitor monitor, int max) {
+            long sequence = head;
+            int count = 0;
+            try {
+                while (count < max) {
+                    int index = (int) sequence & mask;
+                    if (published.get(index) != sequence + 1) {
+                        break;
+                    }
+                    monitor.process(keys[index], symbols[index]);
+                    sequence++;
+                    count++;
+                }
+            } finally {
+                if (count > 0) {
+                    head = sequence;
+                }
+            }
+            return count;
+        }
+    }
+}
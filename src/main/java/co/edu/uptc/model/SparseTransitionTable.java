@@ -0,0 +1,121 @@
+package co.edu.uptc.model;
+
+/**
+ * Tabla de transiciones dispersa en formato CSR (compressed sparse row)
+ * Para cada estado se guardan solo sus transiciones definidas, ordenadas por columna:
+ * offsets[s]..offsets[s+1] delimita la fila del estado s dentro de columns/targets.
+ * Pensada para alfabetos grandes donde cada estado tiene pocas transiciones salientes.
+ */
+public class SparseTransitionTable implements TransitionTable {
+    // Filas con a lo sumo esta cantidad de transiciones se recorren linealmente
+    private static final int LINEAR_SCAN_LIMIT = 8;
+    
+    private final int stateCount;
+    private final int columnCount;
+    private final int[] offsets; // estado -> inicio de su fila (longitud stateCount + 1)
+    private final int[] columns; // columnas ordenadas dentro de cada fila
+    private final int[] targets; // estado destino de cada transición
+    
+    /**
+     * Construye la tabla a partir de una lista de transiciones (en cualquier orden)
+     * @param stateCount número de estados
+     * @param columnCount número de columnas
+     * @param from estado origen de cada transición
+     * @param columns columna de cada transición
+     * @param to estado destino de cada transición
+     * @param count número de transiciones
+     */
+    public SparseTransitionTable(int stateCount, int columnCount, int[] from, int[] columns, int[] to, int count) {
+        this.stateCount = stateCount;
+        this.columnCount = columnCount;
+        this.offsets = new int[stateCount + 1];
+        this.columns = new int[count];
+        this.targets = new int[count];
+        
+        // Ordenar las transiciones por columna (conteo estable) para que cada fila quede ordenada
+        int[] columnStart = new int[columnCount + 1];
+        for (int i = 0; i < count; i++) {
+            columnStart[columns[i] + 1]++;
+        }
+        for (int c = 0; c < columnCount; c++) {
+            columnStart[c + 1] += columnStart[c];
+        }
+        int[] byColumn = new int[count];
+        for (int i = 0; i < count; i++) {
+            byColumn[columnStart[columns[i]]++] = i;
+        }
+        
+        // Contar transiciones por estado y calcular el inicio de cada fila
+        for (int i = 0; i < count; i++) {
+            offsets[from[i] + 1]++;
+        }
+        for (int s = 0; s < stateCount; s++) {
+            offsets[s + 1] += offsets[s];
+        }
+        
+        // Repartir por estado en orden de columna
+        int[] fill = new int[stateCount];
+        for (int i : byColumn) {
+            int position = offsets[from[i]] + fill[from[i]]++;
+            this.columns[position] = columns[i];
+            this.targets[position] = to[i];
+        }
+    }
+    
+    @Override
+    public int next(int state, int column) {
+        int low = offsets[state];
+        int high = offsets[state + 1] - 1;
+        if (high - low < LINEAR_SCAN_LIMIT) {
+            for (int i = low; i <= high; i++) {
+                if (columns[i] == column) {
+                    return targets[i];
+                }
+            }
+            return CompiledAFD.NO_STATE;
+        }
+        // Búsqueda binaria en filas largas
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int value = columns[middle];
+            if (value < column) {
+                low = middle + 1;
+            } else if (value > column) {
+                high = middle - 1;
+            } else {
+                return targets[middle];
+            }
+        }
+        return CompiledAFD.NO_STATE;
+    }
+    
+    /**
+     * Obtiene el número de transiciones definidas para un estado
+     * @param state estado a consultar
+     * @return número de transiciones salientes
+     */
+    public int getRowLength(int state) {
+        return offsets[state + 1] - offsets[state];
+    }
+    
+    @Override
+    public int getStateCount() {
+        return stateCount;
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return columnCount;
+    }
+    
+    @Override
+    public long getMemoryBytes() {
+        return 4L * (offsets.length + columns.length + targets.length);
+    }
+    
+    @Override
+    public String toString() {
+        return "SparseTransitionTable{" + stateCount + "×" + columnCount + ", " + targets.length
+                + " transiciones, " + getMemoryBytes() + " bytes}";
+    }
+}
@@ -0,0 +1,121 @@
+package co.edu.uptc.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Clases de equivalencia de símbolos de un AFD
+ * Dos símbolos son equivalentes si en todos los estados llevan al mismo destino
+ * (por ejemplo, todos los dígitos en un AFD que reconoce números). La tabla compilada
+ * usa una columna por clase en lugar de una por símbolo.
+ */
+public class SymbolClasses {
+    private final int[] classOf;         // índice de símbolo -> clase
+    private final int[] representatives; // clase -> índice del primer símbolo de la clase
+    private final int[] sizes;           // clase -> cantidad de símbolos
+    
+    private SymbolClasses(int[] classOf, int classCount) {
+        this.classOf = classOf;
+        this.representatives = new int[classCount];
+        this.sizes = new int[classCount];
+        Arrays.fill(representatives, -1);
+        for (int i = 0; i < classOf.length; i++) {
+            int c = classOf[i];
+            if (representatives[c] < 0) {
+                representatives[c] = i;
+            }
+            sizes[c]++;
+        }
+    }
+    
+    /**
+     * Calcula las clases por refinamiento de particiones: se parte de una única clase y,
+     * estado por estado, se separan los símbolos de una misma clase que van a destinos distintos.
+     * El costo es proporcional al número de transiciones.
+     * @param symbolCount número de símbolos
+     * @param from estado origen de cada transición, agrupadas por estado
+     * @param symbols índice de símbolo de cada transición
+     * @param to estado destino de cada transición
+     * @param count número de transiciones
+     * @return clases de equivalencia numeradas en orden de primera aparición
+     */
+    public static SymbolClasses compute(int symbolCount, int[] from, int[] symbols, int[] to, int count) {
+        int[] classOf = new int[symbolCount];
+        int nextClass = 1;
+        Map<Long, Integer> split = new HashMap<>();
+        int start = 0;
+        while (start < count) {
+            int end = start;
+            while (end < count && from[end] == from[start]) {
+                end++;
+            }
+            // Los símbolos sin transición en este estado conservan su clase; el resto se
+            // reparte en clases nuevas según (clase anterior, destino)
+            split.clear();
+            for (int i = start; i < end; i++) {
+                long key = ((long) classOf[symbols[i]] << 32) | (to[i] & 0xffffffffL);
+                Integer refined = split.get(key);
+                if (refined == null) {
+                    refined = nextClass++;
+                    split.put(key, refined);
+                }
+                classOf[symbols[i]] = refined;
+            }
+            start = end;
+        }
+        
+        // Renumerar las clases de forma compacta en orden de primer símbolo
+        int[] renumber = new int[nextClass];
+        Arrays.fill(renumber, -1);
+        int classCount = 0;
+        for (int i = 0; i < symbolCount; i++) {
+            int c = classOf[i];
+            if (renumber[c] < 0) {
+                renumber[c] = classCount++;
+            }
+            classOf[i] = renumber[c];
+        }
+        return new SymbolClasses(classOf, classCount);
+    }
+    
+    /**
+     * Obtiene la clase de un símbolo
+     * @param symbol índice del símbolo
+     * @return clase del símbolo
+     */
+    public int getClassOf(int symbol) {
+        return classOf[symbol];
+    }
+    
+    /**
+     * Obtiene el primer símbolo de una clase
+     * @param equivalenceClass clase
+     * @return índice del símbolo representante
+     */
+    public int getRepresentative(int equivalenceClass) {
+        return representatives[equivalenceClass];
+    }
+    
+    /**
+     * Obtiene la cantidad de símbolos de una clase
+     * @param equivalenceClass clase
+     * @return número de símbolos en la clase
+     */
+    public int getSize(int equivalenceClass) {
+        return sizes[equivalenceClass];
+    }
+    
+    public int getClassCount() {
+        return representatives.length;
+    }
+    
+    public int getSymbolCount() {
+        return classOf.length;
+    }
+    
+    @Override
+    public String toString() {
+        return "SymbolClasses{símbolos=" + classOf.length + ", clases=" + representatives.length + "}";
+    }
+}
@@ -0,0 +1,195 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Búsqueda de todas las subcadenas de un texto aceptadas por un AFD, en una sola pasada
+ * Equivale a recorrer el autómata no anclado (Σ*·L) construido por subconjuntos, pero sin
+ * construirlo: en cada posición se mantiene el conjunto de estados activos de los recorridos
+ * que empezaron en posiciones anteriores, y como el AFD es determinista dos recorridos que
+ * llegan al mismo estado siguen juntos a partir de ahí. De cada estado se guarda solo el
+ * inicio más a la izquierda, así que el costo es O(n·k), con k el número de estados activos
+ * (a lo sumo el número de estados), en lugar de procesar O(n²) subcadenas.
+ *
+ * Para cada posición del texto en la que termina alguna subcadena aceptada se informa la
+ * más larga (la que empieza más a la izquierda). Las subcadenas vacías no se informan.
+ */
+public class TextSearcher {
+    // Tamaño del buffer usado al leer de un Reader
+    private static final int BUFFER_SIZE = 8192;
+    
+    private final CompiledAFD afd;
+    private final TransitionTable table;
+    private final boolean[] accepting;
+    private final boolean[] live;
+    private final int initialState;
+    
+    /**
+     * Constructor del buscador
+     * @param afd AFD compilado cuyo lenguaje se busca
+     */
+    public TextSearcher(CompiledAFD afd) {
+        this.afd = afd;
+        this.table = afd.getTransitionTable();
+        this.live = afd.findLiveStates();
+        this.accepting = new boolean[afd.getStateCount()];
+        for (int s = 0; s < accepting.length; s++) {
+            accepting[s] = afd.isAccepting(s);
+        }
+        int initial = afd.getInitialState();
+        this.initialState = initial != CompiledAFD.NO_STATE && live[initial] ? initial : CompiledAFD.NO_STATE;
+    }
+    
+    /**
+     * Busca todas las coincidencias en un texto
+     * @param input texto donde buscar
+     * @param sink destino de las coincidencias, en orden de posición final
+     * @return número de coincidencias
+     */
+    public long findAll(CharSequence input, MatchSink sink) {
+        return scan(input, sink, false);
+    }
+    
+    /**
+     * Recorre un texto símbolo a símbolo
+     * @param stopAtFirst si es true se detiene en la primera coincidencia
+     * @return número de coincidencias informadas
+     */
+    private long scan(CharSequence input, MatchSink sink, boolean stopAtFirst) {
+        Scan scan = new Scan();
+        int end = input.length();
+        for (int i = 0; i < end; ) {
+            char c = input.charAt(i);
+            int symbol = c;
+            if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(input.charAt(i + 1))) {
+                symbol = Character.toCodePoint(c, input.charAt(i + 1));
+            }
+            scan.advance(symbol, i, i + Character.charCount(symbol), sink);
+            if (stopAtFirst && scan.matches > 0) {
+                break;
+            }
+            i += Character.charCount(symbol);
+        }
+        return scan.matches;
+    }
+    
+    /**
+     * Busca todas las coincidencias en una entrada leída por bloques. La memoria usada no
+     * depende del tamaño de la entrada ni de la longitud de las coincidencias.
+     * @param reader fuente del texto
+     * @param sink destino de las coincidencias, en orden de posición final
+     * @return número de coincidencias
+     * @throws IOException si hay error al leer
+     */
+    public long findAll(Reader reader, MatchSink sink) throws IOException {
+        Scan scan = new Scan();
+        char[] buffer = new char[BUFFER_SIZE];
+        long base = 0; // posición en el flujo de buffer[0]
+        int kept = 0;
+        int read;
+        while ((read = reader.read(buffer, kept, buffer.length - kept)) != -1) {
+            int end = kept + read;
+            // Un sustituto alto al final del bloque espera al bloque siguiente
+            int usable = end > 0 && Character.isHighSurrogate(buffer[end - 1]) ? end - 1 : end;
+            base = scanBlock(scan, buffer, usable, base, sink);
+            kept = end - usable;
+            if (kept > 0) {
+                buffer[0] = buffer[end - 1];
+            }
+        }
+        scanBlock(scan, buffer, kept, base, sink);
+        return scan.matches;
+    }
+    
+    private static long scanBlock(Scan scan, char[] buffer, int end, long base, MatchSink sink) {
+        for (int i = 0; i < end; ) {
+            int symbol = Character.codePointAt(buffer, i, end);
+            int width = Character.charCount(symbol);
+            scan.advance(symbol, base + i, base + i + width, sink);
+            i += width;
+        }
+        return base + end;
+    }
+    
+    /**
+     * Cuenta las posiciones del texto en las que termina alguna subcadena aceptada
+     * @param input texto donde buscar
+     * @return número de coincidencias
+     */
+    public long count(CharSequence input) {
+        return findAll(input, (start, length, state) -> { });
+    }
+    
+    /**
+     * Verifica si alguna subcadena no vacía del texto es aceptada. Deja de leer el texto
+     * en cuanto encuentra la primera coincidencia.
+     * @param input texto donde buscar
+     * @return true si hay al menos una coincidencia
+     */
+    public boolean containsMatch(CharSequence input) {
+        return scan(input, (start, length, state) -> { }, true) > 0;
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+    
+    /**
+     * Estado de una búsqueda: estados activos ordenados por inicio (el más antiguo primero)
+     * Al avanzar se recorren en ese orden, de modo que si dos recorridos llegan al mismo
+     * estado se conserva el que empezó antes y la lista sigue ordenada.
+     */
+    private final class Scan {
+        private int[] states = new int[accepting.length + 1];
+        private long[] starts = new long[accepting.length + 1];
+        private int[] nextStates = new int[accepting.length + 1];
+        private long[] nextStarts = new long[accepting.length + 1];
+        private final int[] seen = new int[accepting.length]; // estado -> última ronda en que se añadió
+        private int count;
+        private int round = 1;
+        private long matches;
+        
+        /**
+         * Procesa un símbolo que ocupa las posiciones [position, next)
+         */
+        void advance(int symbol, long position, long next, MatchSink sink) {
+            // Un recorrido nuevo empieza en esta posición si el estado inicial no está ya activo
+            if (initialState != CompiledAFD.NO_STATE && seen[initialState] != round) {
+                states[count] = initialState;
+                starts[count] = position;
+                count++;
+            }
+            round++;
+            int column = afd.getColumn(symbol);
+            int nextCount = 0;
+            if (column >= 0) {
+                for (int j = 0; j < count; j++) {
+                    int target = table.next(states[j], column);
+                    if (target != CompiledAFD.NO_STATE && live[target] && seen[target] != round) {
+                        seen[target] = round;
+                        nextStates[nextCount] = target;
+                        nextStarts[nextCount] = starts[j];
+                        nextCount++;
+                    }
+                }
+            }
+            int[] swapStates = states;
+            states = nextStates;
+            nextStates = swapStates;
+            long[] swapStarts = starts;
+            starts = nextStarts;
+            nextStarts = swapStarts;
+            count = nextCount;
+            
+            // El primer estado final de la lista es la coincidencia que empieza más a la izquierda
+            for (int j = 0; j < count; j++) {
+                if (accepting[states[j]]) {
+                    matches++;
+                    sink.match(starts[j], next - starts[j], states[j]);
+                    break;
+                }
+            }
+        }
+    }
+}
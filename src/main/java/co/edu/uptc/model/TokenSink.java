@@ -0,0 +1,17 @@
+package co.edu.uptc.model;
+
+/**
+ * Destino de los tokens reconocidos por {@link Tokenizer}
+ * Cada token se entrega como un intervalo de la entrada, sin crear objetos por token.
+ */
+@FunctionalInterface
+public interface TokenSink {
+    /**
+     * Recibe un token
+     * @param offset posición (en caracteres) del token en la entrada
+     * @param length longitud del token en caracteres
+     * @param type tipo del token: identificador del estado final en el que terminó,
+     *             o {@link Tokenizer#ERROR} si en esa posición no empieza ningún token
+     */
+    void token(long offset, int length, int type);
+}
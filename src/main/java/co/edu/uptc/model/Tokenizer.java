@@ -0,0 +1,241 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+/**
+ * Analizador léxico de coincidencia más larga sobre un AFD compilado
+ * En cada posición recorre el AFD mientras exista transición y recuerda la última posición
+ * en la que estuvo en un estado final; el token es el prefijo más largo aceptado y su tipo es
+ * el estado final alcanzado, de modo que cada estado final representa un tipo de token.
+ * Tras el token el análisis continúa justo después de él (solo se retrocede hasta la última
+ * aceptación). Si en una posición no empieza ningún token se emite un símbolo de tipo
+ * {@link #ERROR} y se continúa con el siguiente.
+ *
+ * El recorrido se detiene en cuanto el AFD entra en un estado desde el que no se puede llegar
+ * a ningún estado final, así que la búsqueda no avanza más de lo necesario. Los tokens
+ * vacíos no se emiten aunque el estado inicial sea final.
+ */
+public class Tokenizer {
+    /** Tipo de los símbolos que no forman parte de ningún token */
+    public static final int ERROR = -1;
+    
+    // Tamaño inicial del buffer al leer de un Reader (crece si un token no cabe)
+    private static final int BUFFER_SIZE = 8192;
+    // Máximo de celdas para copiar la tabla de transiciones en un arreglo plano
+    private static final int MAX_FLAT_CELLS = 1 << 22;
+    // Caracteres con columna precalculada (el resto se busca en el AFD compilado)
+    private static final int DIRECT_COLUMNS = 256;
+    
+    private final CompiledAFD afd;
+    private final TransitionTable table;
+    private final int initialState;
+    private final boolean[] accepting;
+    private final boolean[] live;   // estados desde los que se alcanza un estado final
+    private final int[] flat;       // (estado * columnas + columna) -> destino vivo, o null si es muy grande
+    private final int columnCount;
+    private final int[] directColumns; // carácter -> columna para los primeros caracteres
+    
+    /**
+     * Constructor del analizador
+     * @param afd AFD compilado cuyos estados finales son los tipos de token
+     */
+    public Tokenizer(CompiledAFD afd) {
+        this.afd = afd;
+        this.table = afd.getTransitionTable();
+        this.columnCount = afd.getClassCount();
+        int stateCount = afd.getStateCount();
+        this.accepting = new boolean[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            accepting[s] = afd.isAccepting(s);
+        }
+        this.live = afd.findLiveStates();
+        this.directColumns = new int[DIRECT_COLUMNS];
+        for (int symbol = 0; symbol < DIRECT_COLUMNS; symbol++) {
+            directColumns[symbol] = afd.getColumn(symbol);
+        }
+        this.initialState = afd.getInitialState() != CompiledAFD.NO_STATE && live[afd.getInitialState()]
+                ? afd.getInitialState() : CompiledAFD.NO_STATE;
+        
+        // Copia plana de la tabla con las transiciones a estados sin salida ya eliminadas
+        if ((long) stateCount * columnCount <= MAX_FLAT_CELLS) {
+            this.flat = new int[stateCount * columnCount];
+            for (int s = 0; s < stateCount; s++) {
+                for (int c = 0; c < columnCount; c++) {
+                    flat[s * columnCount + c] = liveTarget(s, c);
+                }
+            }
+        } else {
+            this.flat = null;
+        }
+    }
+    
+    private int liveTarget(int state, int column) {
+        int target = table.next(state, column);
+        return target != CompiledAFD.NO_STATE && live[target] ? target : CompiledAFD.NO_STATE;
+    }
+    
+    private int columnOf(int symbol) {
+        return symbol < DIRECT_COLUMNS ? directColumns[symbol] : afd.getColumn(symbol);
+    }
+    
+    /**
+     * Transición que solo lleva a estados vivos
+     */
+    private int next(int state, int column) {
+        return flat != null ? flat[state * columnCount + column] : liveTarget(state, column);
+    }
+    
+    /**
+     * Divide un texto en tokens
+     * @param input texto de entrada
+     * @param sink destino de los tokens
+     * @return número de tokens emitidos (incluidos los de error)
+     */
+    public long tokenize(CharSequence input, TokenSink sink) {
+        int end = input.length();
+        int start = 0;
+        long count = 0;
+        while (start < end) {
+            int state = initialState;
+            int i = start;
+            int matchEnd = -1;
+            int matchType = ERROR;
+            while (i < end && state != CompiledAFD.NO_STATE) {
+                char c = input.charAt(i);
+                int symbol = c;
+                int width = 1;
+                if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(input.charAt(i + 1))) {
+                    symbol = Character.toCodePoint(c, input.charAt(i + 1));
+                    width = 2;
+                }
+                int column = columnOf(symbol);
+                if (column < 0) {
+                    break;
+                }
+                state = next(state, column);
+                if (state == CompiledAFD.NO_STATE) {
+                    break;
+                }
+                i += width;
+                if (accepting[state]) {
+                    matchEnd = i;
+                    matchType = state;
+                }
+            }
+            if (matchEnd < 0) {
+                matchEnd = start + Character.charCount(Character.codePointAt(input, start));
+            }
+            sink.token(start, matchEnd - start, matchType);
+            count++;
+            start = matchEnd;
+        }
+        return count;
+    }
+    
+    /**
+     * Divide en tokens una entrada leída por bloques. Solo se conserva en memoria el token
+     * en curso; el buffer crece si un token (o una búsqueda sin aceptar) no cabe en él.
+     * @param reader fuente de la entrada
+     * @param sink destino de los tokens; los desplazamientos son relativos al inicio del flujo
+     * @return número de tokens emitidos (incluidos los de error)
+     * @throws IOException si hay error al leer
+     */
+    public long tokenize(Reader reader, TokenSink sink) throws IOException {
+        char[] buffer = new char[BUFFER_SIZE];
+        long base = 0;      // posición en el flujo de buffer[0]
+        int filled = 0;
+        boolean eof = false;
+        int start = 0;
+        long count = 0;
+        while (true) {
+            int state = initialState;
+            int i = start;
+            int matchEnd = -1;
+            int matchType = ERROR;
+            int firstEnd = -1; // fin del primer símbolo, para emitirlo como error si no hay token
+            while (true) {
+                // Leer más si queda menos de un par sustituto por procesar
+                if (filled - i < 2 && !eof) {
+                    if (start > 0) {
+                        System.arraycopy(buffer, start, buffer, 0, filled - start);
+                        filled -= start;
+                        i -= start;
+                        matchEnd -= matchEnd >= 0 ? start : 0;
+                        firstEnd -= firstEnd >= 0 ? start : 0;
+                        base += start;
+                        start = 0;
+                    }
+                    if (filled == buffer.length) {
+                        buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                    }
+                    int read = reader.read(buffer, filled, buffer.length - filled);
+                    if (read < 0) {
+                        eof = true;
+                    } else {
+                        filled += read;
+                    }
+                    continue;
+                }
+                if (i >= filled) {
+                    break;
+                }
+                char c = buffer[i];
+                int symbol = c;
+                int width = 1;
+                if (Character.isHighSurrogate(c) && i + 1 < filled && Character.isLowSurrogate(buffer[i + 1])) {
+                    symbol = Character.toCodePoint(c, buffer[i + 1]);
+                    width = 2;
+                }
+                if (i == start) {
+                    firstEnd = i + width;
+                }
+                int column = columnOf(symbol);
+                if (state == CompiledAFD.NO_STATE || column < 0) {
+                    break;
+                }
+                state = next(state, column);
+                if (state == CompiledAFD.NO_STATE) {
+                    break;
+                }
+                i += width;
+                if (accepting[state]) {
+                    matchEnd = i;
+                    matchType = state;
+                }
+            }
+            if (start >= filled) {
+                return count;
+            }
+            if (matchEnd < 0) {
+                matchEnd = firstEnd;
+            }
+            sink.token(base + start, matchEnd - start, matchType);
+            count++;
+            start = matchEnd;
+        }
+    }
+    
+    /**
+     * Obtiene el estado final que corresponde a un tipo de token
+     * @param type tipo recibido en {@link TokenSink#token}
+     * @return estado final, o null para {@link #ERROR}
+     */
+    public State getTokenState(int type) {
+        return type == ERROR ? null : afd.getState(type);
+    }
+    
+    /**
+     * Obtiene el nombre de un tipo de token
+     * @param type tipo recibido en {@link TokenSink#token}
+     * @return nombre del estado final, o "ERROR"
+     */
+    public String getTypeName(int type) {
+        return type == ERROR ? "ERROR" : afd.getState(type).getName();
+    }
+    
+    public CompiledAFD getCompiledAFD() {
+        return afd;
+    }
+}
@@ -1,21 +1,30 @@
 package co.edu.uptc.model;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
 
 /**
  * Representa la función de transición de un Autómata Finito Determinista (AFD)
  * Mapea (estado_actual, símbolo) -> estado_siguiente
+ * También admite transiciones etiquetadas con un rango de puntos de código; una transición
+ * de símbolo individual tiene prioridad sobre un rango que lo contenga.
  */
 public class TransitionFunction {
     private Map<TransitionKey, State> transitions;
+    private Map<State, TreeMap<Integer, RangeTransition>> rangeTransitions; // por estado: inicio -> rango
+    private long modCount; // Número de modificaciones (para invalidar versiones compiladas)
     
     /**
      * Constructor que inicializa la función de transición vacía
      */
     public TransitionFunction() {
         this.transitions = new HashMap<>();
+        this.rangeTransitions = new HashMap<>();
     }
     
     /**
@@ -27,6 +36,91 @@ public class TransitionFunction {
     public void addTransition(State fromState, char symbol, State toState) {
         TransitionKey key = new TransitionKey(fromState, symbol);
         transitions.put(key, toState);
+        modCount++;
+    }
+    
+    /**
+     * Añade una transición para todos los puntos de código de un rango.
+     * Reemplaza la parte de rangos anteriores del mismo estado que se solape con este.
+     * @param fromState estado origen
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @param toState estado destino
+     */
+    public void addRangeTransition(State fromState, int first, int last, State toState) {
+        TreeMap<Integer, RangeTransition> stateRanges = rangeTransitions.computeIfAbsent(fromState, s -> new TreeMap<>());
+        
+        // Recortar los rangos existentes que se solapan con el nuevo
+        Map.Entry<Integer, RangeTransition> entry = stateRanges.floorEntry(first);
+        if (entry == null || entry.getValue().getLast() < first) {
+            entry = stateRanges.ceilingEntry(first);
+        }
+        while (entry != null && entry.getKey() <= last) {
+            RangeTransition existing = stateRanges.remove(entry.getKey());
+            if (existing.getFirst() < first) {
+                stateRanges.put(existing.getFirst(), new RangeTransition(fromState, existing.getFirst(), first - 1, existing.getTarget()));
+            }
+            if (existing.getLast() > last) {
+                stateRanges.put(last + 1, new RangeTransition(fromState, last + 1, existing.getLast(), existing.getTarget()));
+            }
+            entry = stateRanges.ceilingEntry(first);
+        }
+        stateRanges.put(first, new RangeTransition(fromState, first, last, toState));
+        modCount++;
+    }
+    
+    /**
+     * Cuenta, por destino actual, los puntos de código de un rango que dependen de las
+     * transiciones por rango. Los que tienen una transición de símbolo individual hacia un
+     * estado vigente no se cuentan, porque esta tiene prioridad y un rango nuevo no les cambia
+     * el destino; como en {@link CompiledAFD}, una hacia un estado quitado no cuenta.
+     * @param fromState estado origen
+     * @param first primer punto de código (incluido)
+     * @param last último punto de código (incluido)
+     * @param states estados vigentes del AFD
+     * @return destino -> número de puntos de código; la clave null reúne los que no tienen destino
+     */
+    Map<State, Long> countRangeTargets(State fromState, int first, int last, Set<State> states) {
+        Map<State, Long> counts = new HashMap<>();
+        long uncovered = last - first + 1L;
+        TreeMap<Integer, RangeTransition> stateRanges = rangeTransitions.get(fromState);
+        if (stateRanges != null) {
+            Map.Entry<Integer, RangeTransition> entry = stateRanges.floorEntry(first);
+            if (entry == null || entry.getValue().getLast() < first) {
+                entry = stateRanges.ceilingEntry(first);
+            }
+            while (entry != null && entry.getKey() <= last) {
+                RangeTransition range = entry.getValue();
+                long width = Math.min(last, range.getLast()) - Math.max(first, range.getFirst()) + 1L;
+                counts.merge(range.getTarget(), width, Long::sum);
+                uncovered -= width;
+                entry = stateRanges.higherEntry(entry.getKey());
+            }
+        }
+        if (uncovered > 0) {
+            counts.put(null, uncovered);
+        }
+        if (first <= Character.MAX_VALUE && !transitions.isEmpty()) {
+            // Se recorre lo más corto: los caracteres del rango o las transiciones individuales
+            int bmpLast = Math.min(last, Character.MAX_VALUE);
+            if (bmpLast - first + 1 <= transitions.size()) {
+                for (int c = first; c <= bmpLast; c++) {
+                    if (states.contains(transitions.get(new TransitionKey(fromState, (char) c)))) {
+                        counts.merge(getRangeTarget(fromState, c), -1L, Long::sum);
+                    }
+                }
+            } else {
+                for (Map.Entry<TransitionKey, State> entry : transitions.entrySet()) {
+                    TransitionKey key = entry.getKey();
+                    if (key.getState().equals(fromState) && key.getSymbol() >= first && key.getSymbol() <= bmpLast
+                            && states.contains(entry.getValue())) {
+                        counts.merge(getRangeTarget(fromState, key.getSymbol()), -1L, Long::sum);
+                    }
+                }
+            }
+            counts.values().removeIf(count -> count == 0);
+        }
+        return counts;
     }
     
     /**
@@ -37,7 +131,34 @@ public class TransitionFunction {
      */
     public State getNextState(State fromState, char symbol) {
         TransitionKey key = new TransitionKey(fromState, symbol);
-        return transitions.get(key);
+        State target = transitions.get(key);
+        return target != null || rangeTransitions.isEmpty() ? target : getRangeTarget(fromState, symbol);
+    }
+    
+    /**
+     * Obtiene el estado destino para un punto de código (incluye caracteres fuera del plano básico)
+     * @param fromState estado origen
+     * @param codePoint punto de código de entrada
+     * @return estado destino, o null si no existe la transición
+     */
+    public State getNextStateForCodePoint(State fromState, int codePoint) {
+        if (codePoint <= Character.MAX_VALUE) {
+            return getNextState(fromState, (char) codePoint);
+        }
+        return getRangeTarget(fromState, codePoint);
+    }
+    
+    /**
+     * Obtiene el destino que da solo la parte de rangos, sin mirar los símbolos individuales
+     * @return estado destino, o null si ningún rango contiene el punto de código
+     */
+    State getRangeTarget(State fromState, int codePoint) {
+        TreeMap<Integer, RangeTransition> stateRanges = rangeTransitions.get(fromState);
+        if (stateRanges == null) {
+            return null;
+        }
+        Map.Entry<Integer, RangeTransition> entry = stateRanges.floorEntry(codePoint);
+        return entry != null && entry.getValue().getLast() >= codePoint ? entry.getValue().getTarget() : null;
     }
     
     /**
@@ -59,7 +180,11 @@ public class TransitionFunction {
      */
     public boolean removeTransition(State fromState, char symbol) {
         TransitionKey key = new TransitionKey(fromState, symbol);
-        return transitions.remove(key) != null;
+        boolean removed = transitions.remove(key) != null;
+        if (removed) {
+            modCount++;
+        }
+        return removed;
     }
     
     /**
@@ -70,12 +195,28 @@ public class TransitionFunction {
         return new HashMap<>(transitions);
     }
     
+    /**
+     * Obtiene todas las transiciones por rango
+     * @return lista de transiciones por rango, ordenadas por inicio dentro de cada estado
+     */
+    public List<RangeTransition> getRangeTransitions() {
+        List<RangeTransition> result = new ArrayList<>();
+        for (TreeMap<Integer, RangeTransition> stateRanges : rangeTransitions.values()) {
+            result.addAll(stateRanges.values());
+        }
+        return result;
+    }
+    
     /**
      * Obtiene el número de transiciones definidas
-     * @return número de transiciones
+     * @return número de transiciones (cada rango cuenta como una)
      */
     public int size() {
-        return transitions.size();
+        int size = transitions.size();
+        for (TreeMap<Integer, RangeTransition> stateRanges : rangeTransitions.values()) {
+            size += stateRanges.size();
+        }
+        return size;
     }
     
     /**
@@ -83,7 +224,15 @@ public class TransitionFunction {
      * @return true si no hay transiciones, false en caso contrario
      */
     public boolean isEmpty() {
-        return transitions.isEmpty();
+        return size() == 0;
+    }
+    
+    /**
+     * Verifica si hay transiciones por rango
+     * @return true si hay al menos una
+     */
+    boolean hasRangeTransitions() {
+        return !rangeTransitions.isEmpty();
     }
     
     /**
@@ -91,6 +240,16 @@ public class TransitionFunction {
      */
     public void clear() {
         transitions.clear();
+        rangeTransitions.clear();
+        modCount++;
+    }
+    
+    /**
+     * Obtiene el contador de modificaciones de la función de transición
+     * @return número de cambios realizados desde su creación
+     */
+    public long getModCount() {
+        return modCount;
     }
     
     @Override
@@ -100,6 +259,9 @@ public class TransitionFunction {
         for (Map.Entry<TransitionKey, State> entry : transitions.entrySet()) {
             sb.append("  ").append(entry.getKey()).append(" -> ").append(entry.getValue().getName()).append("\n");
         }
+        for (RangeTransition range : getRangeTransitions()) {
+            sb.append("  ").append(range).append("\n");
+        }
         sb.append("}");
         return sb.toString();
     }
@@ -142,4 +304,42 @@ public class TransitionFunction {
             return "(" + state.getName() + ", '" + symbol + "')";
         }
     }
+    
+    /**
+     * Clase interna que representa una transición etiquetada con un rango de puntos de código
+     */
+    public static class RangeTransition {
+        private final State state;
+        private final int first;
+        private final int last;
+        private final State target;
+        
+        public RangeTransition(State state, int first, int last, State target) {
+            this.state = state;
+            this.first = first;
+            this.last = last;
+            this.target = target;
+        }
+        
+        public State getState() {
+            return state;
+        }
+        
+        public int getFirst() {
+            return first;
+        }
+        
+        public int getLast() {
+            return last;
+        }
+        
+        public State getTarget() {
+            return target;
+        }
+        
+        @Override
+        public String toString() {
+            return "(" + state.getName() + ", " + Alphabet.formatRange(first, last) + ") -> " + target.getName();
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,58 @@
+package co.edu.uptc.model;
+
+/**
+ * Almacenamiento de la función de transición compilada
+ * Los estados y las columnas (símbolos) se identifican con enteros y las transiciones
+ * inexistentes se representan con {@link CompiledAFD#NO_STATE}.
+ */
+public interface TransitionTable {
+    /** Densidad (transiciones / celdas) por debajo de la cual se usa la representación dispersa */
+    double SPARSE_DENSITY_THRESHOLD = 0.1;
+    /** Tamaño mínimo (estados × columnas) para considerar la representación dispersa */
+    int MIN_SPARSE_CELLS = 4096;
+    
+    /**
+     * Obtiene el estado destino de una transición
+     * @param state estado origen
+     * @param column columna del símbolo
+     * @return estado destino, o NO_STATE si no existe la transición
+     */
+    int next(int state, int column);
+    
+    /**
+     * Obtiene el número de estados (filas) de la tabla
+     * @return número de estados
+     */
+    int getStateCount();
+    
+    /**
+     * Obtiene el número de columnas de la tabla
+     * @return número de columnas
+     */
+    int getColumnCount();
+    
+    /**
+     * Estima la memoria ocupada por la tabla
+     * @return tamaño aproximado en bytes
+     */
+    long getMemoryBytes();
+    
+    /**
+     * Construye la tabla más adecuada para un conjunto de transiciones: densa si la mayoría
+     * de las celdas están definidas, o dispersa (CSR) si la densidad es baja.
+     * @param stateCount número de estados
+     * @param columnCount número de columnas
+     * @param from estado origen de cada transición
+     * @param columns columna de cada transición
+     * @param to estado destino de cada transición
+     * @param count número de transiciones
+     * @return tabla de transiciones
+     */
+    static TransitionTable create(int stateCount, int columnCount, int[] from, int[] columns, int[] to, int count) {
+        long cells = (long) stateCount * columnCount;
+        if (cells >= MIN_SPARSE_CELLS && count < cells * SPARSE_DENSITY_THRESHOLD) {
+            return new SparseTransitionTable(stateCount, columnCount, from, columns, to, count);
+        }
+        return new DenseTransitionTable(stateCount, columnCount, from, columns, to, count);
+    }
+}
@@ -0,0 +1,358 @@
+package co.edu.uptc.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Enumera en paralelo todas las palabras aceptadas por un AFD hasta una longitud máxima
+ * El árbol de prefijos se reparte entre los hilos de un ForkJoinPool: cada tarea cubre un
+ * tramo de los símbolos de una clase que llevan al mismo estado. Los tramos grandes se parten
+ * por la mitad y los pequeños se recorren en profundidad escribiendo cada palabra
+ * directamente en un {@link WordSink}, sin crear objetos por palabra. Cada hilo usa un solo
+ * destino durante toda la enumeración.
+ *
+ * Antes de enumerar se calcula cuántas palabras aceptadas cuelgan de cada estado para cada
+ * longitud restante; las ramas sin palabras (estados muertos o demasiado lejos de un estado
+ * final) se descartan sin recorrerlas. Las palabras no se entregan en un orden definido.
+ */
+public class WordEnumerator {
+    // Palabras por debajo de las cuales un subárbol se recorre en un solo hilo
+    private static final long SPLIT_THRESHOLD = 1 << 16;
+    
+    private final CompiledAFD afd;
+    private final int[][] classSymbols; // columna -> puntos de código de la clase
+    private final int[][] edgeColumns;  // por estado: columnas con transición
+    private final int[][] edgeTargets;  // por estado: destino de cada columna
+    private final ForkJoinPool pool;
+    
+    /**
+     * Constructor que usa el pool común de fork-join
+     * @param afd AFD compilado
+     */
+    public WordEnumerator(CompiledAFD afd) {
+        this(afd, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Constructor del enumerador
+     * @param afd AFD compilado
+     * @param pool pool donde se ejecuta la enumeración
+     */
+    public WordEnumerator(CompiledAFD afd, ForkJoinPool pool) {
+        this.afd = afd;
+        this.pool = pool;
+        
+        // Símbolos de cada clase, a partir de los intervalos del alfabeto
+        int columnCount = afd.getClassCount();
+        int[] sizes = new int[columnCount];
+        List<int[]> intervals = afd.getIntervals();
+        for (int[] interval : intervals) {
+            sizes[interval[2]] += interval[1] - interval[0] + 1;
+        }
+        this.classSymbols = new int[columnCount][];
+        for (int c = 0; c < columnCount; c++) {
+            classSymbols[c] = new int[sizes[c]];
+        }
+        int[] filled = new int[columnCount];
+        for (int[] interval : intervals) {
+            for (int symbol = interval[0]; symbol <= interval[1]; symbol++) {
+                classSymbols[interval[2]][filled[interval[2]]++] = symbol;
+            }
+        }
+        
+        // Transiciones existentes de cada estado
+        TransitionTable table = afd.getTransitionTable();
+        int stateCount = afd.getStateCount();
+        this.edgeColumns = new int[stateCount][];
+        this.edgeTargets = new int[stateCount][];
+        int[] columns = new int[columnCount];
+        int[] targets = new int[columnCount];
+        for (int s = 0; s < stateCount; s++) {
+            int count = 0;
+            for (int c = 0; c < columnCount; c++) {
+                int target = table.next(s, c);
+                if (target != CompiledAFD.NO_STATE && classSymbols[c].length > 0) {
+                    columns[count] = c;
+                    targets[count] = target;
+                    count++;
+                }
+            }
+            edgeColumns[s] = Arrays.copyOf(columns, count);
+            edgeTargets[s] = Arrays.copyOf(targets, count);
+        }
+    }
+    
+    /**
+     * Cuenta las palabras aceptadas de longitud menor o igual a maxLength sin enumerarlas
+     * @param maxLength longitud máxima en símbolos
+     * @return número de palabras (Long.MAX_VALUE si no cabe en un long)
+     * @throws IllegalArgumentException si la longitud máxima es negativa
+     */
+    public long count(int maxLength) {
+        checkLength(maxLength);
+        if (afd.getInitialState() == CompiledAFD.NO_STATE) {
+            return 0;
+        }
+        return countWords(maxLength)[maxLength][afd.getInitialState()];
+    }
+    
+    /**
+     * Enumera las palabras aceptadas entregándolas a un único destino.
+     * El destino se llama desde varios hilos a la vez, por lo que debe ser seguro para hilos.
+     * @param maxLength longitud máxima en símbolos
+     * @param sink destino de las palabras
+     * @return número de palabras enumeradas
+     */
+    public long enumerate(int maxLength, WordSink sink) {
+        return enumerate(maxLength, () -> sink);
+    }
+    
+    /**
+     * Enumera las palabras aceptadas pidiendo un destino para cada hilo que participa.
+     * Cada destino lo usa un solo hilo y recibe flush() al terminar la enumeración.
+     * @param maxLength longitud máxima en símbolos
+     * @param sinks fábrica de destinos
+     * @return número de palabras enumeradas
+     */
+    public long enumerate(int maxLength, Supplier<? extends WordSink> sinks) {
+        checkLength(maxLength);
+        int initial = afd.getInitialState();
+        if (initial == CompiledAFD.NO_STATE) {
+            return 0;
+        }
+        long[][] words = countWords(maxLength);
+        if (words[maxLength][initial] == 0) {
+            return 0;
+        }
+        Enumeration enumeration = new Enumeration(words, sinks);
+        char[] prefix = new char[2 * maxLength];
+        long count = 0;
+        if (afd.isAccepting(initial)) {
+            enumeration.sink().accept(prefix, 0);
+            count++;
+        }
+        if (maxLength > 0) {
+            count += pool.invoke(new ExpandTask(enumeration, initial, prefix, 0, maxLength));
+        }
+        for (WordSink sink : enumeration.threadSinks.values()) {
+            sink.flush();
+        }
+        return count;
+    }
+    
+    private static void checkLength(int maxLength) {
+        if (maxLength < 0) {
+            throw new IllegalArgumentException("La longitud máxima no puede ser negativa");
+        }
+    }
+    
+    /**
+     * Enumera las palabras aceptadas escribiéndolas en un archivo, una por línea en UTF-8.
+     * Cada subárbol escribe bloques completos en el canal con su propio buffer.
+     * @param maxLength longitud máxima en símbolos
+     * @param channel canal del archivo de salida
+     * @return número de palabras escritas
+     * @throws IOException si hay error al escribir
+     */
+    public long enumerate(int maxLength, FileChannel channel) throws IOException {
+        try {
+            return enumerate(maxLength, () -> new ChannelWordSink(channel));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+    
+    /**
+     * Calcula, para cada longitud restante r y estado s, cuántas palabras aceptadas de
+     * longitud menor o igual a r parten de s
+     * @param maxLength longitud máxima
+     * @return tabla [r][s] con los conteos, saturados en Long.MAX_VALUE
+     */
+    private long[][] countWords(int maxLength) {
+        int stateCount = afd.getStateCount();
+        long[][] words = new long[maxLength + 1][stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            words[0][s] = afd.isAccepting(s) ? 1 : 0;
+        }
+        for (int r = 1; r <= maxLength; r++) {
+            long[] previous = words[r - 1];
+            for (int s = 0; s < stateCount; s++) {
+                long total = words[0][s];
+                for (int e = 0; e < edgeColumns[s].length; e++) {
+                    long below = previous[edgeTargets[s][e]];
+                    if (below != 0) {
+                        long branch = multiply(classSymbols[edgeColumns[s][e]].length, below);
+                        total = total > Long.MAX_VALUE - branch ? Long.MAX_VALUE : total + branch;
+                    }
+                }
+                words[r][s] = total;
+            }
+        }
+        return words;
+    }
+    
+    private static long multiply(long a, long b) {
+        return b > Long.MAX_VALUE / a ? Long.MAX_VALUE : a * b;
+    }
+    
+    /**
+     * Datos compartidos por las tareas de una enumeración
+     */
+    private static final class Enumeration {
+        private final long[][] words;
+        private final Supplier<? extends WordSink> sinks;
+        private final Map<Thread, WordSink> threadSinks = new ConcurrentHashMap<>();
+        
+        Enumeration(long[][] words, Supplier<? extends WordSink> sinks) {
+            this.words = words;
+            this.sinks = sinks;
+        }
+        
+        /**
+         * Obtiene el destino del hilo actual, creándolo la primera vez
+         */
+        WordSink sink() {
+            return threadSinks.computeIfAbsent(Thread.currentThread(), thread -> sinks.get());
+        }
+    }
+    
+    /**
+     * Tarea que enumera las palabras que siguen a un prefijo que termina en un estado:
+     * crea una tarea por cada clase con transición hacia palabras aceptadas
+     */
+    @SuppressWarnings("serial") // Las tareas no se serializan
+    private final class ExpandTask extends RecursiveTask<Long> {
+        private final Enumeration enumeration;
+        private final int state;
+        private final char[] prefix;
+        private final int length;    // caracteres del prefijo
+        private final int remaining; // símbolos que aún se pueden añadir (al menos uno)
+        
+        ExpandTask(Enumeration enumeration, int state, char[] prefix, int length, int remaining) {
+            this.enumeration = enumeration;
+            this.state = state;
+            this.prefix = prefix;
+            this.length = length;
+            this.remaining = remaining;
+        }
+        
+        @Override
+        protected Long compute() {
+            List<BatchTask> children = new ArrayList<>();
+            long[] below = enumeration.words[remaining - 1];
+            for (int e = 0; e < edgeColumns[state].length; e++) {
+                int target = edgeTargets[state][e];
+                if (below[target] == 0) {
+                    continue;
+                }
+                // La primera tarea reutiliza el prefijo; las demás escriben en una copia
+                char[] buffer = children.isEmpty() ? prefix : prefix.clone();
+                int[] symbols = classSymbols[edgeColumns[state][e]];
+                children.add(new BatchTask(enumeration, target, symbols, 0, symbols.length,
+                        buffer, length, remaining - 1));
+            }
+            long count = 0;
+            for (BatchTask child : invokeAll(children)) {
+                count += child.join();
+            }
+            return count;
+        }
+    }
+    
+    /**
+     * Tarea que enumera las palabras formadas por el prefijo, uno de los símbolos
+     * symbols[from..to) de una clase (todos llevan al mismo estado) y las continuaciones
+     * desde ese estado
+     */
+    @SuppressWarnings("serial") // Las tareas no se serializan
+    private final class BatchTask extends RecursiveTask<Long> {
+        private final Enumeration enumeration;
+        private final int target;
+        private final int[] symbols;
+        private final int from;
+        private final int to;
+        private final char[] prefix;
+        private final int length;    // caracteres del prefijo
+        private final int remaining; // símbolos que se pueden añadir después del tramo
+        
+        BatchTask(Enumeration enumeration, int target, int[] symbols, int from, int to,
+                  char[] prefix, int length, int remaining) {
+            this.enumeration = enumeration;
+            this.target = target;
+            this.symbols = symbols;
+            this.from = from;
+            this.to = to;
+            this.prefix = prefix;
+            this.length = length;
+            this.remaining = remaining;
+        }
+        
+        @Override
+        protected Long compute() {
+            long perSymbol = enumeration.words[remaining][target];
+            if (multiply(to - from, perSymbol) <= SPLIT_THRESHOLD) {
+                WordSink sink = enumeration.sink();
+                long count = 0;
+                for (int i = from; i < to; i++) {
+                    int next = length + Character.toChars(symbols[i], prefix, length);
+                    count += visit(target, prefix, next, remaining, sink);
+                }
+                return count;
+            }
+            if (to - from > 1) {
+                // Partir el tramo por la mitad; la segunda mitad escribe en una copia del prefijo
+                int middle = (from + to) >>> 1;
+                BatchTask second = new BatchTask(enumeration, target, symbols, middle, to,
+                        prefix.clone(), length, remaining);
+                second.fork();
+                long count = new BatchTask(enumeration, target, symbols, from, middle,
+                        prefix, length, remaining).compute();
+                return count + second.join();
+            }
+            // Un solo símbolo con un subárbol grande: seguir dividiendo desde el estado destino
+            int next = length + Character.toChars(symbols[from], prefix, length);
+            long count = 0;
+            if (afd.isAccepting(target)) {
+                enumeration.sink().accept(prefix, next);
+                count++;
+            }
+            return count + new ExpandTask(enumeration, target, prefix, next, remaining).compute();
+        }
+        
+        /**
+         * Recorre en profundidad un subárbol escribiendo las palabras aceptadas
+         */
+        private long visit(int current, char[] buffer, int used, int left, WordSink sink) {
+            long count = 0;
+            if (afd.isAccepting(current)) {
+                sink.accept(buffer, used);
+                count++;
+            }
+            if (left == 0) {
+                return count;
+            }
+            long[] below = enumeration.words[left - 1];
+            int[] columns = edgeColumns[current];
+            int[] targets = edgeTargets[current];
+            for (int e = 0; e < columns.length; e++) {
+                if (below[targets[e]] == 0) {
+                    continue;
+                }
+                for (int symbol : classSymbols[columns[e]]) {
+                    int next = used + Character.toChars(symbol, buffer, used);
+                    count += visit(targets[e], buffer, next, left - 1, sink);
+                }
+            }
+            return count;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package co.edu.uptc.model;
+
+/**
+ * Destino de las palabras generadas por {@link WordEnumerator}
+ * Cada palabra se entrega en un buffer reutilizado, sin crear un String por palabra.
+ */
+public interface WordSink {
+    /**
+     * Recibe una palabra
+     * @param buffer caracteres de la palabra; solo son válidos durante la llamada
+     * @param length número de caracteres de la palabra
+     */
+    void accept(char[] buffer, int length);
+    
+    /**
+     * Entrega lo que el destino tenga pendiente; se llama una sola vez por destino,
+     * al terminar la enumeración y desde el hilo que la inició
+     */
+    default void flush() {
+    }
+}
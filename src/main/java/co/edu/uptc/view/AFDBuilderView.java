@@ -2,11 +2,21 @@ package co.edu.uptc.view;
 
 import co.edu.uptc.controller.AFDController;
 import co.edu.uptc.model.AFD;
+import co.edu.uptc.model.AFDCursor;
+import co.edu.uptc.model.Alphabet;
+import co.edu.uptc.model.AutocompleteIndex;
+import co.edu.uptc.model.CompiledAFD;
+import co.edu.uptc.model.CompletionTable;
+import co.edu.uptc.model.CompressionStats;
+import co.edu.uptc.model.ExecutionTrace;
 import co.edu.uptc.model.State;
+import javafx.concurrent.Task;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
@@ -18,18 +28,25 @@ import java.io.File;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
  * Vista principal para construir y probar un AFD paso a paso
  */
 public class AFDBuilderView {
+    // Número de cadenas generadas en el paso 7
+    private static final int WORDS_TO_GENERATE = 10;
+    // Intervalos de símbolos sugeridos como máximo mientras se escribe una palabra
+    private static final int SYMBOLS_TO_SUGGEST = 10;
+    // Pasos de la ruta que se muestran al principio y al final en palabras largas
+    private static final int PATH_STEPS_TO_SHOW = 100;
+    
     private Stage primaryStage;
     private AFDController controller;
     
     // Componentes de la interfaz
     private VBox mainContainer;
     private Label statusLabel;
+    private TaskBar taskBar; // Progreso y cancelación de las operaciones en segundo plano
     
     // Paso 1: Definir alfabeto
     private VBox alphabetSection;
@@ -57,7 +74,7 @@ public class AFDBuilderView {
     
     // Paso 5: Matriz de transiciones
     private VBox transitionsSection;
-    private GridPane transitionMatrix;
+    private TransitionTableEditor transitionMatrix;
     private Button buildMatrixButton;
     private Button saveTransitionsButton;
     private Label transitionsStatusLabel;
@@ -65,6 +82,10 @@ public class AFDBuilderView {
     // Paso 6: Probar palabras
     private VBox testSection;
     private TextField wordField;
+    private Label liveStateLabel;
+    private AFDCursor wordCursor; // Evaluación incremental de la palabra mientras se escribe
+    private Label suggestionsLabel;
+    private String suggestedCompletion; // Sufijo que se agrega con Tab, o null
     private Button testWordButton;
     private TextArea resultArea;
     
@@ -72,11 +93,17 @@ public class AFDBuilderView {
     private VBox generateSection;
     private Button generateWordsButton;
     private TextArea validWordsArea;
+    private Task<Integer> generateTask;
+    private TaskBar.TextBatcher generateOutput;
+    private Task<Void> testTask;
+    private TaskBar.TextBatcher testOutput;
+    private Task<List<String>> completionsTask; // Búsqueda de sugerencias del estado actual
     
     // Guardar/Cargar
     private HBox fileButtons;
     private Button saveButton;
     private Button loadButton;
+    private Button diagramButton;
     
     // Botones de navegación
     private HBox navigationButtons;
@@ -105,6 +132,8 @@ public class AFDBuilderView {
         statusLabel.setFont(Font.font("Arial", FontWeight.BOLD, 16));
         statusLabel.setTextFill(Color.DARKGREEN);
         
+        taskBar = new TaskBar();
+        
         // Inicializar secciones
         initializeAlphabetSection();
         initializeStatesSection();
@@ -130,7 +159,7 @@ public class AFDBuilderView {
         
         Label instructionLabel = new Label("Ingresa los símbolos del alfabeto separados por comas (ej: a,b,c o 0,1,2):");
         alphabetField = new TextField();
-        alphabetField.setPromptText("Ejemplo: a,b,c");
+        alphabetField.setPromptText("Ejemplo: a,b,c o un rango U+0041..U+005A");
         alphabetField.setPrefWidth(200);
         
         defineAlphabetButton = new Button("Definir Alfabeto");
@@ -230,10 +259,8 @@ public class AFDBuilderView {
         buildMatrixButton = new Button("Construir Matriz");
         buildMatrixButton.setStyle("-fx-background-color: #e67e22; -fx-text-fill: white; -fx-font-weight: bold;");
         
-        transitionMatrix = new GridPane();
-        transitionMatrix.setHgap(5);
-        transitionMatrix.setVgap(5);
-        transitionMatrix.setPadding(new Insets(10));
+        transitionMatrix = new TransitionTableEditor();
+        transitionMatrix.setPrefHeight(360);
         transitionMatrix.setStyle("-fx-background-color: #f9f9f9; -fx-border-color: #ccc;");
         
         saveTransitionsButton = new Button("Guardar Transiciones");
@@ -261,6 +288,27 @@ public class AFDBuilderView {
         wordField = new TextField();
         wordField.setPromptText("Ejemplo: aba");
         wordField.setPrefWidth(200);
+        // Cada edición actualiza el cursor solo desde la posición modificada
+        wordField.setTextFormatter(new TextFormatter<String>(change -> {
+            if (change.isContentChange()) {
+                updateLiveState(change.getRangeStart(), change.getControlNewText());
+            }
+            return change;
+        }));
+        // Tab agrega al final la palabra más corta que completa la palabra
+        wordField.addEventFilter(KeyEvent.KEY_PRESSED, e -> {
+            if (e.getCode() == KeyCode.TAB && suggestedCompletion != null) {
+                wordField.appendText(suggestedCompletion);
+                wordField.end();
+                e.consume();
+            }
+        });
+        
+        liveStateLabel = new Label("Estado actual: -");
+        liveStateLabel.setFont(Font.font("Arial", FontWeight.BOLD, 12));
+        
+        suggestionsLabel = new Label();
+        suggestionsLabel.setTextFill(Color.GRAY);
         
         testWordButton = new Button("Probar Palabra");
         testWordButton.setStyle("-fx-background-color: #c0392b; -fx-text-fill: white; -fx-font-weight: bold;");
@@ -271,7 +319,7 @@ public class AFDBuilderView {
         resultArea.setStyle("-fx-font-family: 'Courier New'; -fx-font-size: 12px;");
         
         testSection.getChildren().addAll(
-            sectionTitle, instructionLabel, wordField, 
+            sectionTitle, instructionLabel, wordField, liveStateLabel, suggestionsLabel,
             testWordButton, new Label("Resultado:"), resultArea
         );
     }
@@ -314,7 +362,11 @@ public class AFDBuilderView {
         loadButton.setStyle("-fx-background-color: #16a085; -fx-text-fill: white; -fx-font-weight: bold;");
         loadButton.setPrefWidth(120);
         
-        fileButtons.getChildren().addAll(saveButton, loadButton);
+        diagramButton = new Button("Ver Diagrama");
+        diagramButton.setStyle("-fx-background-color: #2980b9; -fx-text-fill: white; -fx-font-weight: bold;");
+        diagramButton.setPrefWidth(120);
+        
+        fileButtons.getChildren().addAll(saveButton, loadButton, diagramButton);
     }
     
     private void initializeNavigationButtons() {
@@ -361,6 +413,7 @@ public class AFDBuilderView {
         generateWordsButton.setOnAction(e -> handleGenerateWords());
         saveButton.setOnAction(e -> handleSaveAFD());
         loadButton.setOnAction(e -> handleLoadAFD());
+        diagramButton.setOnAction(e -> handleShowDiagram());
     }
     
     private void showOnlySection(VBox sectionToShow) {
@@ -370,7 +423,7 @@ public class AFDBuilderView {
         titleLabel.setFont(Font.font("Arial", FontWeight.BOLD, 24));
         titleLabel.setTextFill(Color.DARKBLUE);
         
-        mainContainer.getChildren().addAll(titleLabel, statusLabel, sectionToShow, navigationButtons);
+        mainContainer.getChildren().addAll(titleLabel, statusLabel, taskBar, sectionToShow, navigationButtons);
     }
     
     private void showAllSections() {
@@ -381,7 +434,7 @@ public class AFDBuilderView {
         titleLabel.setTextFill(Color.DARKBLUE);
         
         mainContainer.getChildren().addAll(
-            titleLabel, statusLabel, alphabetSection, statesSection, 
+            titleLabel, statusLabel, taskBar, alphabetSection, statesSection, 
             initialStateSection, finalStatesSection, transitionsSection, 
             testSection, generateSection, fileButtons, navigationButtons
         );
@@ -427,7 +480,7 @@ public class AFDBuilderView {
             return "Máximo " + MAX_SYMBOLS + " símbolos permitidos";
         }
         
-        Set<Character> uniqueSymbols = new HashSet<>();
+        Set<Integer> uniqueSymbols = new HashSet<>();
         
         for (String symbol : symbolArray) {
             String trimmedSymbol = symbol.trim();
@@ -437,12 +490,21 @@ public class AFDBuilderView {
                 return "No puede haber símbolos vacíos";
             }
             
-            // Validar que sea un solo carácter
-            if (trimmedSymbol.length() != 1) {
+            // Rango de puntos de código (una sola columna de la matriz)
+            try {
+                if (Alphabet.parseRange(trimmedSymbol) != null) {
+                    continue;
+                }
+            } catch (IllegalArgumentException e) {
+                return e.getMessage();
+            }
+            
+            // Validar que sea un solo carácter (un punto de código)
+            if (trimmedSymbol.codePointCount(0, trimmedSymbol.length()) != 1) {
                 return "Cada símbolo debe ser un solo carácter";
             }
             
-            char symbolChar = trimmedSymbol.charAt(0);
+            int symbolChar = trimmedSymbol.codePointAt(0);
             
             // Validar caracteres permitidos (letras y números)
             if (!Character.isLetterOrDigit(symbolChar)) {
@@ -456,7 +518,7 @@ public class AFDBuilderView {
             
             // Verificar duplicados
             if (uniqueSymbols.contains(symbolChar)) {
-                return "El símbolo '" + symbolChar + "' está duplicado";
+                return "El símbolo '" + trimmedSymbol + "' está duplicado";
             }
             
             uniqueSymbols.add(symbolChar);
@@ -469,19 +531,20 @@ public class AFDBuilderView {
         // Límite máximo de longitud de palabra
         final int MAX_WORD_LENGTH = 50;
         
-        if (word.length() > MAX_WORD_LENGTH) {
+        if (word.codePointCount(0, word.length()) > MAX_WORD_LENGTH) {
             return "La palabra es demasiado larga (máximo " + MAX_WORD_LENGTH + " caracteres)";
         }
         
-        // Obtener símbolos válidos del alfabeto
-        Set<Character> validSymbols = controller.getCurrentAFD().getAlphabet().getSymbols();
+        Alphabet alphabet = controller.getCurrentAFD().getAlphabet();
         
-        // Verificar cada carácter de la palabra
-        for (int i = 0; i < word.length(); i++) {
-            char symbol = word.charAt(i);
-            if (!validSymbols.contains(symbol)) {
-                return "El símbolo '" + symbol + "' no pertenece al alfabeto " + validSymbols;
+        // Verificar cada símbolo (punto de código) de la palabra
+        for (int i = 0; i < word.length(); ) {
+            int symbol = word.codePointAt(i);
+            if (!alphabet.containsCodePoint(symbol)) {
+                return "El símbolo '" + new String(Character.toChars(symbol)) + "' no pertenece al alfabeto {"
+                        + alphabet.formatSymbols() + "}";
             }
+            i += Character.charCount(symbol);
         }
         
         return "VALID";
@@ -591,119 +654,145 @@ public class AFDBuilderView {
     }
     
     private void handleBuildMatrix() {
-        buildTransitionMatrix();
-        buildMatrixButton.setVisible(false);
-        saveTransitionsButton.setVisible(true);
+        buildMatrixButton.setDisable(true);
+        // La tarea trabaja sobre una copia fija: el AFD solo se lee en el hilo de JavaFX
+        AFD afd = controller.getCurrentAFD();
+        int[] symbols = matrixColumns(afd.getAlphabet());
+        CompiledAFD engine = afd.compile();
+        Task<MatrixData> task = new Task<>() {
+            @Override
+            protected MatrixData call() {
+                updateMessage("Construyendo la matriz de transiciones...");
+                return buildTransitionMatrix(engine, symbols);
+            }
+        };
+        taskBar.run(task, matrix -> {
+            transitionMatrix.setModel(matrix.states, matrix.symbols);
+            int columns = matrix.symbols.length / 2;
+            for (int i = 0; i < matrix.targets.length; i++) {
+                if (matrix.targets[i] != TransitionTableEditor.UNDEFINED) {
+                    transitionMatrix.setTarget(i / columns, i % columns, matrix.targets[i]);
+                }
+            }
+            buildMatrixButton.setDisable(false);
+            buildMatrixButton.setVisible(false);
+            saveTransitionsButton.setVisible(true);
+        }, error -> {
+            buildMatrixButton.setDisable(false);
+            transitionsStatusLabel.setText("Error: " + error.getMessage());
+            transitionsStatusLabel.setTextFill(Color.RED);
+        }, () -> buildMatrixButton.setDisable(false));
     }
     
-    private void buildTransitionMatrix() {
-        transitionMatrix.getChildren().clear();
-        
-        // Obtener símbolos del alfabeto y estados
-        Character[] symbolsArray = controller.getCurrentAFD().getAlphabet().getSymbols().toArray(new Character[0]);
-        char[] symbols = new char[symbolsArray.length];
-        for (int i = 0; i < symbolsArray.length; i++) {
-            symbols[i] = symbolsArray[i];
+    /**
+     * Obtiene las columnas de la matriz: cada símbolo y cada rango del alfabeto
+     * @return intervalos {primero0, último0, primero1, último1, ...}
+     */
+    private static int[] matrixColumns(Alphabet alphabet) {
+        java.util.List<int[]> intervals = alphabet.getSymbolIntervals();
+        int[] columns = new int[2 * intervals.size()];
+        for (int i = 0; i < intervals.size(); i++) {
+            columns[2 * i] = intervals.get(i)[0];
+            columns[2 * i + 1] = intervals.get(i)[1];
         }
-        String[] states = controller.getCurrentAFD().getStates().stream()
-                .map(state -> state.getName())
-                .sorted()
-                .toArray(String[]::new);
-        
-        // Crear encabezados
-        Label emptyCell = new Label("");
-        transitionMatrix.add(emptyCell, 0, 0);
-        
-        for (int i = 0; i < symbols.length; i++) {
-            Label symbolLabel = new Label(String.valueOf(symbols[i]));
-            symbolLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
-            transitionMatrix.add(symbolLabel, i + 1, 0);
+        return columns;
+    }
+    
+    /**
+     * Calcula los estados y las transiciones ya definidas de la matriz a partir de la versión
+     * compilada del AFD, cuyos estados ya están ordenados por nombre
+     * (se ejecuta fuera del hilo de JavaFX)
+     * @param symbols columnas de la matriz, de {@link #matrixColumns(Alphabet)}
+     */
+    private static MatrixData buildTransitionMatrix(CompiledAFD engine, int[] symbols) {
+        int columns = symbols.length / 2;
+        String[] states = new String[engine.getStateCount()];
+        for (int s = 0; s < states.length; s++) {
+            states[s] = engine.getState(s).getName();
         }
         
-        // Crear filas para cada estado
-        for (int i = 0; i < states.length; i++) {
-            Label stateLabel = new Label(states[i]);
-            stateLabel.setFont(Font.font("Arial", FontWeight.BOLD, 14));
-            transitionMatrix.add(stateLabel, 0, i + 1);
-            
-            for (int j = 0; j < symbols.length; j++) {
-                ComboBox<String> combo = new ComboBox<>();
-                combo.getItems().addAll(states);
-                combo.setPrefWidth(80);
-                combo.setPromptText("Estado");
-                transitionMatrix.add(combo, j + 1, i + 1);
+        // Transiciones que el AFD ya tenga definidas
+        int[] targets = new int[states.length * columns];
+        java.util.Arrays.fill(targets, TransitionTableEditor.UNDEFINED);
+        for (int s = 0; s < states.length; s++) {
+            for (int j = 0; j < columns; j++) {
+                // Un rango se muestra con el destino de su primer símbolo
+                int target = engine.step(s, symbols[2 * j]);
+                if (target != CompiledAFD.NO_STATE) {
+                    targets[s * columns + j] = target;
+                }
             }
         }
+        return new MatrixData(states, symbols, targets);
+    }
+    
+    /**
+     * Contenido calculado de la matriz de transiciones
+     */
+    private static class MatrixData {
+        private final String[] states;
+        private final int[] symbols; // intervalos {primero, último} de cada columna
+        private final int[] targets; // (estado * columnas + columna) -> estado destino
+        
+        MatrixData(String[] states, int[] symbols, int[] targets) {
+            this.states = states;
+            this.symbols = symbols;
+            this.targets = targets;
+        }
     }
     
     private void handleSaveTransitions() {
         try {
-            // Obtener símbolos del alfabeto y estados
-            Character[] symbolsArray = controller.getCurrentAFD().getAlphabet().getSymbols().toArray(new Character[0]);
-            char[] symbols = new char[symbolsArray.length];
-            for (int i = 0; i < symbolsArray.length; i++) {
-                symbols[i] = symbolsArray[i];
-            }
-            String[] states = controller.getCurrentAFD().getStates().stream()
-                    .map(state -> state.getName())
-                    .sorted()
-                    .toArray(String[]::new);
+            // Obtener símbolos del alfabeto y estados (las filas de la matriz van ordenadas por nombre)
+            AFD afd = controller.getCurrentAFD();
+            int[] symbols = matrixColumns(afd.getAlphabet());
+            int columns = symbols.length / 2;
+            State[] rows = afd.getStates().stream()
+                    .sorted((a, b) -> a.getName().compareTo(b.getName()))
+                    .toArray(State[]::new);
+            String[] states = new String[rows.length];
+            for (int i = 0; i < rows.length; i++) {
+                states[i] = rows[i].getName();
+            }
             
             boolean allTransitionsDefined = true;
-            java.util.List<ComboBox<String>> combos = new java.util.ArrayList<>();
-            
-            // Buscar todos los ComboBox en la matriz
-            for (javafx.scene.Node node : transitionMatrix.getChildren()) {
-                if (node instanceof ComboBox) {
-                    @SuppressWarnings("unchecked")
-                    ComboBox<String> combo = (ComboBox<String>) node;
-                    combos.add(combo);
-                }
-            }
             
-            // Verificar que tenemos el número correcto de ComboBox
-            int expectedCombos = states.length * symbols.length;
-            if (combos.size() != expectedCombos) {
-                transitionsStatusLabel.setText("Error: Matriz de transiciones incompleta (" + combos.size() + "/" + expectedCombos + ")");
+            // Verificar que la matriz corresponde a los estados y símbolos actuales
+            if (!java.util.Arrays.equals(transitionMatrix.getStates(), states)
+                    || !java.util.Arrays.equals(transitionMatrix.getSymbols(), symbols)) {
+                transitionsStatusLabel.setText("Error: Matriz de transiciones incompleta (" + transitionMatrix.getStates().length
+                        + "x" + transitionMatrix.getSymbols().length / 2 + "/" + states.length + "x" + columns + ")");
                 transitionsStatusLabel.setTextFill(javafx.scene.paint.Color.RED);
                 return;
             }
             
             // Validar que todas las transiciones estén definidas
-            int emptyTransitions = 0;
-            for (ComboBox<String> combo : combos) {
-                if (combo.getValue() == null || combo.getValue().isEmpty()) {
-                    emptyTransitions++;
-                    allTransitionsDefined = false;
-                }
-            }
-            
-            if (!allTransitionsDefined) {
+            int emptyTransitions = transitionMatrix.getUndefinedCount();
+            if (emptyTransitions > 0) {
+                transitionMatrix.focusFirstUndefined();
                 transitionsStatusLabel.setText("Error: " + emptyTransitions + " transiciones sin definir");
                 transitionsStatusLabel.setTextFill(javafx.scene.paint.Color.RED);
                 return;
             }
             
-            // Procesar las transiciones en orden
-            int comboIndex = 0;
-            for (int i = 0; i < states.length; i++) {
-                for (int j = 0; j < symbols.length; j++) {
-                    ComboBox<String> combo = combos.get(comboIndex);
-                    String toState = combo.getValue();
-                    
-                    if (toState == null || toState.isEmpty()) {
+            // Procesar las transiciones en orden, con los estados ya resueltos por índice
+            int rejectedTransitions = 0;
+            for (int i = 0; i < rows.length; i++) {
+                for (int j = 0; j < columns; j++) {
+                    int target = transitionMatrix.getTarget(i, j);
+                    if (target == TransitionTableEditor.UNDEFINED) {
                         allTransitionsDefined = false;
-                        combo.setStyle("-fx-border-color: red;");
-                    } else {
-                        combo.setStyle("");
-                        controller.addTransition(states[i], symbols[j], toState);
+                    } else if (!controller.addTransition(rows[i], symbols[2 * j], symbols[2 * j + 1], rows[target])) {
+                        rejectedTransitions++;
                     }
-                    comboIndex++;
                 }
             }
             
-            if (allTransitionsDefined) {
-                transitionsStatusLabel.setText("✓ Transiciones definidas correctamente");
+            if (rejectedTransitions > 0) {
+                transitionsStatusLabel.setText("Error: " + rejectedTransitions + " transiciones no válidas");
+                transitionsStatusLabel.setTextFill(javafx.scene.paint.Color.RED);
+            } else if (allTransitionsDefined) {
+                transitionsStatusLabel.setText(withAnalysis("✓ Transiciones definidas correctamente"));
                 transitionsStatusLabel.setTextFill(javafx.scene.paint.Color.GREEN);
                 statusLabel.setText("¡AFD completo! Ahora puedes probar palabras");
                 showAllSections();
@@ -738,46 +827,243 @@ public class AFDBuilderView {
                 return;
             }
             
-            AFD.AFDResult result = controller.processWord(word);
-            
-            StringBuilder output = new StringBuilder();
-            output.append("PALABRA: ").append(word).append("\n");
-            output.append("====================\n");
-            output.append("RESULTADO: ").append(result.isAccepted() ? "ACEPTADA" : "RECHAZADA").append("\n");
-            output.append("MENSAJE: ").append(result.getMessage()).append("\n");
-            if (result.getPath() != null) {
-                output.append("RUTA DE EJECUCIÓN:\n").append(result.getPath()).append("\n");
-            }
-            output.append("\n");
-            output.append("INFORMACIÓN DEL AFD:\n");
-            output.append("- Alfabeto: ").append(controller.getAlphabetInfo()).append("\n");
-            output.append("- Estados: ").append(controller.getStatesInfo()).append("\n");
-            output.append("- Estado inicial: ").append(controller.getInitialStateInfo()).append("\n");
-            output.append("- Estados finales: ").append(controller.getFinalStatesInfo()).append("\n");
-            
-            resultArea.setText(output.toString());
-            wordField.clear();
+            // Una prueba anterior que siga en curso ya no debe escribir en el área
+            taskBar.cancel(testTask);
+            if (testOutput != null) {
+                testOutput.close();
+            }
             
+            // Procesar en segundo plano sobre una copia fija del AFD tomada en este hilo;
+            // el resultado se agrega al área por partes
+            CompiledAFD engine = controller.getCurrentAFD().compile();
+            CompletionTable completions = controller.getCurrentAFD().getArtifact(AFD.COMPLETIONS);
+            StringBuilder info = new StringBuilder("\n");
+            info.append("INFORMACIÓN DEL AFD:\n");
+            info.append("- Alfabeto: ").append(controller.getAlphabetInfo()).append("\n");
+            info.append("- Estados: ").append(controller.getStatesInfo()).append("\n");
+            info.append("- Estado inicial: ").append(controller.getInitialStateInfo()).append("\n");
+            info.append("- Estados finales: ").append(controller.getFinalStatesInfo()).append("\n");
+            resultArea.clear();
+            TaskBar.TextBatcher output = new TaskBar.TextBatcher(resultArea);
+            Task<Void> task = new Task<>() {
+                @Override
+                protected Void call() {
+                    updateMessage("Probando la palabra...");
+                    output.append("PALABRA: " + word + "\n");
+                    output.append("====================\n");
+                    AFD.AFDResult result = AFD.processWord(engine, completions, word);
+                    if (isCancelled()) {
+                        return null;
+                    }
+                    output.append("RESULTADO: " + (result.isAccepted() ? "ACEPTADA" : "RECHAZADA") + "\n");
+                    output.append("MENSAJE: " + result.getMessage() + "\n");
+                    if (result.getTrace() != null) {
+                        output.append("RUTA DE EJECUCIÓN:\n");
+                        appendPath(output, result.getTrace());
+                    }
+                    if (!isCancelled() && !result.isAccepted() && result.getFinalState() != null) {
+                        String completion = result.getShortestCompletion();
+                        output.append(completion != null
+                            ? "SUFIJO MÁS CORTO PARA ACEPTAR: \"" + completion + "\" (" + word + completion + ")\n"
+                            : "Ningún sufijo hace que la palabra sea aceptada\n");
+                    }
+                    output.append(info);
+                    return null;
+                }
+            };
+            testTask = task;
+            testOutput = output;
+            // Solo se borra la palabra probada, no lo que se haya escrito mientras tanto
+            taskBar.run(task, ignored -> {
+                if (wordField.getText().trim().equals(word)) {
+                    wordField.clear();
+                }
+            }, error -> {
+                output.close();
+                showTestWordError(error);
+            }, output::close);
         } catch (Exception e) {
-            StringBuilder errorOutput = new StringBuilder();
-            errorOutput.append("ERROR AL PROBAR PALABRA:\n");
-            errorOutput.append("========================\n");
-            errorOutput.append("Mensaje: ").append(e.getMessage()).append("\n");
-            errorOutput.append("Tipo: ").append(e.getClass().getSimpleName()).append("\n");
-            errorOutput.append("\nVerifica que:\n");
-            errorOutput.append("- El alfabeto esté definido\n");
-            errorOutput.append("- Los estados estén creados\n");
-            errorOutput.append("- El estado inicial esté configurado\n");
-            errorOutput.append("- Los estados finales estén seleccionados\n");
-            errorOutput.append("- Las transiciones estén completas\n");
-            errorOutput.append("- La palabra solo contenga símbolos del alfabeto\n");
-            
-            resultArea.setText(errorOutput.toString());
-            e.printStackTrace(); // Para debugging en consola
+            showTestWordError(e);
+        }
+    }
+    
+    /**
+     * Agrega la ruta de ejecución al resultado; en palabras largas solo el principio y el
+     * final, generados por tramos a partir del recorrido compacto
+     */
+    private static void appendPath(TaskBar.TextBatcher output, ExecutionTrace trace) {
+        int steps = trace.getStepCount();
+        if (steps <= PATH_STEPS_TO_SHOW * 2) {
+            output.append(trace.render() + "\n");
+            return;
+        }
+        output.append(trace.render(0, PATH_STEPS_TO_SHOW) + "\n");
+        output.append("... (" + (steps - PATH_STEPS_TO_SHOW * 2) + " pasos omitidos) ...\n");
+        output.append(trace.render(steps - PATH_STEPS_TO_SHOW, steps) + "\n");
+    }
+    
+    /**
+     * Agrega a un mensaje de estado el resumen del análisis del AFD, si hay algo que señalar
+     */
+    private String withAnalysis(String message) {
+        String analysis = controller.getAnalysisInfo();
+        return analysis.isEmpty() ? message : message + " (" + analysis + ")";
+    }
+    
+    private void showTestWordError(Throwable e) {
+        StringBuilder errorOutput = new StringBuilder();
+        errorOutput.append("ERROR AL PROBAR PALABRA:\n");
+        errorOutput.append("========================\n");
+        errorOutput.append("Mensaje: ").append(e.getMessage()).append("\n");
+        errorOutput.append("Tipo: ").append(e.getClass().getSimpleName()).append("\n");
+        errorOutput.append("\nVerifica que:\n");
+        errorOutput.append("- El alfabeto esté definido\n");
+        errorOutput.append("- Los estados estén creados\n");
+        errorOutput.append("- El estado inicial esté configurado\n");
+        errorOutput.append("- Los estados finales estén seleccionados\n");
+        errorOutput.append("- Las transiciones estén completas\n");
+        errorOutput.append("- La palabra solo contenga símbolos del alfabeto\n");
+        
+        resultArea.setText(errorOutput.toString());
+        e.printStackTrace(); // Para debugging en consola
+    }
+    
+    /**
+     * Actualiza el estado actual y el veredicto mostrados mientras se escribe la palabra.
+     * Escribir al final de la palabra cuesta O(1) por carácter.
+     * @param editStart primer carácter modificado
+     * @param text texto completo del campo tras la edición
+     */
+    private void updateLiveState(int editStart, String text) {
+        if (!controller.isAFDComplete()) {
+            wordCursor = null;
+            liveStateLabel.setText("Estado actual: -");
+            liveStateLabel.setTextFill(Color.GRAY);
+            updateSuggestions(CompiledAFD.NO_STATE);
+            return;
+        }
+        
+        // Si el AFD cambió se recompila y se procesa de nuevo todo el texto
+        CompiledAFD engine = controller.getCurrentAFD().compile();
+        if (wordCursor == null || wordCursor.getCompiledAFD() != engine) {
+            wordCursor = new AFDCursor(engine);
+            editStart = 0;
         }
+        wordCursor.update(editStart, text);
+        
+        if (wordCursor.getInvalidPosition() >= 0) {
+            int position = wordCursor.getInvalidPosition();
+            liveStateLabel.setText("El símbolo '" + new String(Character.toChars(wordCursor.getSymbol(position)))
+                    + "' (posición " + position + ") no pertenece al alfabeto");
+            liveStateLabel.setTextFill(Color.RED);
+        } else if (wordCursor.getDeadPosition() >= 0) {
+            int position = wordCursor.getDeadPosition();
+            liveStateLabel.setText("Sin transición desde " + wordCursor.getStateBefore(position).getName()
+                    + " con '" + new String(Character.toChars(wordCursor.getSymbol(position)))
+                    + "' (posición " + position + "): RECHAZADA");
+            liveStateLabel.setTextFill(Color.RED);
+        } else {
+            boolean accepted = wordCursor.isAccepting();
+            liveStateLabel.setText("Estado actual: " + wordCursor.getCurrentState().getName()
+                    + (accepted ? " (ACEPTADA)" : " (RECHAZADA)"));
+            liveStateLabel.setTextFill(accepted ? Color.GREEN : Color.RED);
+        }
+        updateSuggestions(wordCursor.getState());
+    }
+    
+    /**
+     * Muestra con qué símbolos puede seguir la palabra y las palabras más cortas que la
+     * completan. Los datos de cada estado se calculan una vez, así que cuesta O(sugerencias).
+     * Las palabras de un estado que todavía no se buscaron se buscan en segundo plano y se
+     * muestran cuando terminan, si la palabra sigue en ese estado.
+     * @param state estado alcanzado por la palabra, o CompiledAFD.NO_STATE
+     */
+    private void updateSuggestions(int state) {
+        suggestedCompletion = null;
+        if (state == CompiledAFD.NO_STATE) {
+            suggestionsLabel.setText("");
+            return;
+        }
+        AutocompleteIndex index = controller.getCurrentAFD().getArtifact(AFD.AUTOCOMPLETE);
+        int[] symbols = index.getLiveSymbols(state);
+        if (symbols.length == 0 && !index.getCompiledAFD().isAccepting(state)) {
+            suggestionsLabel.setText("Ninguna continuación hace que la palabra sea aceptada");
+            return;
+        }
+        
+        StringBuilder text = new StringBuilder("Puede seguir con: ");
+        for (int i = 0; i < symbols.length && i < SYMBOLS_TO_SUGGEST * 2; i += 2) {
+            if (i > 0) {
+                text.append(", ");
+            }
+            text.appendCodePoint(symbols[i]);
+            if (symbols[i + 1] > symbols[i]) {
+                text.append('-').appendCodePoint(symbols[i + 1]);
+            }
+        }
+        if (symbols.length == 0) {
+            text.append("ningún símbolo");
+        } else if (symbols.length > SYMBOLS_TO_SUGGEST * 2) {
+            text.append(", …");
+        }
+        
+        List<String> completions = index.getCompletionsIfPresent(state);
+        if (completions == null) {
+            searchCompletions(index, state);
+            completions = List.of();
+        }
+        StringBuilder words = new StringBuilder();
+        for (String completion : completions) {
+            if (completion.isEmpty()) {
+                continue; // La palabra ya se acepta
+            }
+            if (suggestedCompletion == null) {
+                suggestedCompletion = completion;
+            } else {
+                words.append(", ");
+            }
+            words.append(completion);
+        }
+        if (suggestedCompletion != null) {
+            text.append("\nCompletar con: ").append(words).append("  (Tab agrega \"")
+                .append(suggestedCompletion).append("\")");
+        }
+        suggestionsLabel.setText(text.toString());
+    }
+    
+    /**
+     * Busca en segundo plano las palabras que completan un estado y actualiza las
+     * sugerencias al terminar. Una búsqueda anterior que siga en curso se cancela.
+     */
+    private void searchCompletions(AutocompleteIndex index, int state) {
+        taskBar.cancel(completionsTask);
+        Task<List<String>> task = new Task<>() {
+            @Override
+            protected List<String> call() {
+                updateMessage("Buscando sugerencias...");
+                return index.getCompletions(state);
+            }
+        };
+        completionsTask = task;
+        taskBar.run(task, ignored -> {
+            if (wordCursor != null && wordCursor.getCompiledAFD() == index.getCompiledAFD()
+                    && wordCursor.getState() == state) {
+                updateSuggestions(state);
+            }
+        }, error -> suggestionsLabel.setText("Error al buscar sugerencias: " + error.getMessage()));
     }
     
     private void handleReset() {
+        if (!confirmDiscardChanges("reiniciar")) {
+            return;
+        }
+        taskBar.cancelAll();
+        if (generateOutput != null) {
+            generateOutput.close();
+        }
+        if (testOutput != null) {
+            testOutput.close();
+        }
         controller = new AFDController();
         
         // Limpiar todos los campos
@@ -800,9 +1086,10 @@ public class AFDBuilderView {
         // Limpiar componentes
         initialStateCombo.getItems().clear();
         finalStatesCheckBoxes.getChildren().clear();
-        transitionMatrix.getChildren().clear();
+        transitionMatrix.clear();
         
         buildMatrixButton.setVisible(true);
+        buildMatrixButton.setDisable(false);
         saveTransitionsButton.setVisible(false);
         
         statusLabel.setText("Paso 1: Define el alfabeto del AFD");
@@ -815,21 +1102,42 @@ public class AFDBuilderView {
             return;
         }
         
-        List<String> validWords = controller.generateShortestValidWords(10);
-        if (validWords.isEmpty()) {
-            validWordsArea.setText("No se encontraron palabras válidas en el lenguaje del AFD.\n(El AFD podría no aceptar ninguna palabra)");
-        } else {
-            StringBuilder result = new StringBuilder();
-            for (int i = 0; i < validWords.size(); i++) {
-                String word = validWords.get(i);
-                if (word.isEmpty()) {
-                    result.append((i + 1)).append(". λ (cadena vacía)\n");
-                } else {
-                    result.append((i + 1)).append(". ").append(word).append("\n");
-                }
-            }
-            validWordsArea.setText(result.toString());
+        // Una nueva generación reemplaza a la anterior si todavía no había terminado
+        taskBar.cancel(generateTask);
+        if (generateOutput != null) {
+            generateOutput.close();
         }
+        validWordsArea.clear();
+        
+        // Las palabras se agregan al área a medida que se encuentran; la búsqueda usa la
+        // versión compilada tomada en este hilo, no el AFD que se sigue editando
+        CompiledAFD engine = controller.getCurrentAFD().compile();
+        int[] acceptDistances = controller.getCurrentAFD().getArtifact(AFD.ACCEPT_DISTANCES);
+        TaskBar.TextBatcher output = new TaskBar.TextBatcher(validWordsArea);
+        Task<Integer> task = new Task<>() {
+            @Override
+            protected Integer call() {
+                updateMessage("Generando cadenas válidas...");
+                int[] count = {0};
+                return AFDController.generateShortestValidWords(engine, acceptDistances, WORDS_TO_GENERATE, word -> {
+                    count[0]++;
+                    if (word.isEmpty()) {
+                        output.append(count[0] + ". λ (cadena vacía)\n");
+                    } else {
+                        output.append(count[0] + ". " + word + "\n");
+                    }
+                    updateProgress(count[0], WORDS_TO_GENERATE);
+                    return !isCancelled();
+                });
+            }
+        };
+        generateTask = task;
+        generateOutput = output;
+        taskBar.run(task, count -> {
+            if (count == 0) {
+                validWordsArea.setText("No se encontraron palabras válidas en el lenguaje del AFD.\n(El AFD podría no aceptar ninguna palabra)");
+            }
+        }, error -> validWordsArea.appendText("Error al generar las cadenas: " + error.getMessage() + "\n"));
     }
     
     private void handleSaveAFD() {
@@ -840,39 +1148,60 @@ public class AFDBuilderView {
         
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Guardar AFD");
-        fileChooser.getExtensionFilters().add(
-            new FileChooser.ExtensionFilter("Archivos AFD", "*.json")
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Archivos AFD", "*.json"),
+            new FileChooser.ExtensionFilter("AFD compilado", "*.afdc")
         );
         fileChooser.setInitialFileName("mi_automata.json");
         
         File file = fileChooser.showSaveDialog(primaryStage);
         if (file != null) {
-            try {
-                controller.saveAFD(file);
-                showAlert("Éxito", "AFD guardado correctamente en: " + file.getAbsolutePath());
-            } catch (Exception e) {
-                showAlert("Error", "Error al guardar el AFD: " + e.getMessage());
-            }
+            // Lo que se escribe se copia aquí; la tarea no lee el AFD que se sigue editando
+            java.util.concurrent.Callable<CompressionStats> save = controller.prepareSave(file);
+            Task<String> task = new Task<>() {
+                @Override
+                protected String call() throws Exception {
+                    updateMessage("Guardando " + file.getName() + "...");
+                    String message = "AFD guardado correctamente en: " + file.getAbsolutePath();
+                    // Las estadísticas son las de la tabla que se acaba de escribir (solo .afdc)
+                    CompressionStats stats = save.call();
+                    return stats != null ? message + "\n\n" + stats : message;
+                }
+            };
+            taskBar.run(task, message -> showAlert("Éxito", message),
+                    error -> showAlert("Error", "Error al guardar el AFD: " + error.getMessage()));
         }
     }
     
     private void handleLoadAFD() {
+        if (!confirmDiscardChanges("cargar otro AFD")) {
+            return;
+        }
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Cargar AFD");
-        fileChooser.getExtensionFilters().add(
-            new FileChooser.ExtensionFilter("Archivos AFD", "*.json")
+        fileChooser.getExtensionFilters().addAll(
+            new FileChooser.ExtensionFilter("Archivos AFD", "*.json"),
+            new FileChooser.ExtensionFilter("AFD compilado", "*.afdc")
         );
         
         File file = fileChooser.showOpenDialog(primaryStage);
         if (file != null) {
-            try {
-                controller.loadAFD(file);
-                refreshUIFromLoadedAFD();
-                showAlert("Éxito", "AFD cargado correctamente desde: " + file.getAbsolutePath());
-            } catch (Exception e) {
-                showAlert("Error", "Error al cargar el AFD: " + e.getMessage());
-            }
+            loadAFDFromFile(file);
+        }
+    }
+    
+    private void handleShowDiagram() {
+        AFD afd = controller.getCurrentAFD();
+        if (afd == null || afd.getStates().isEmpty()) {
+            showAlert("Error", "No hay estados para dibujar. Construye el AFD primero.");
+            return;
         }
+        StateDiagramView diagram = new StateDiagramView(afd.compile());
+        Stage diagramStage = new Stage();
+        diagramStage.setTitle("Diagrama de estados (" + afd.getStates().size() + " estados)");
+        diagramStage.setScene(new Scene(diagram, 900, 650));
+        diagramStage.setOnHidden(e -> diagram.dispose());
+        diagramStage.show();
     }
     
     private void refreshUIFromLoadedAFD() {
@@ -880,11 +1209,8 @@ public class AFDBuilderView {
         if (afd == null) return;
         
         // Actualizar alfabeto
-        String alphabetStr = afd.getAlphabet().getSymbols().stream()
-            .map(String::valueOf)
-            .collect(Collectors.joining(", "));
-        alphabetField.setText(alphabetStr);
-        alphabetStatusLabel.setText("✓ Alfabeto definido: " + afd.getAlphabet().getSymbols());
+        alphabetField.setText(afd.getAlphabet().formatSymbols());
+        alphabetStatusLabel.setText("✓ Alfabeto definido: " + controller.getAlphabetInfo());
         alphabetStatusLabel.setTextFill(Color.GREEN);
         
         // Actualizar estados
@@ -904,7 +1230,7 @@ public class AFDBuilderView {
         finalStatesStatusLabel.setTextFill(Color.GREEN);
         
         // Actualizar transiciones
-        transitionsStatusLabel.setText("✓ Matriz de transiciones configurada");
+        transitionsStatusLabel.setText(withAnalysis("✓ Matriz de transiciones configurada"));
         transitionsStatusLabel.setTextFill(Color.GREEN);
         
         statusLabel.setText("AFD cargado - Puedes probar palabras o generar cadenas válidas");
@@ -919,17 +1245,54 @@ public class AFDBuilderView {
         alert.showAndWait();
     }
     
+    /**
+     * Pide confirmación antes de descartar un AFD modificado desde que se guardó o se cargó
+     * por última vez; el mensaje indica si además cambió el lenguaje aceptado
+     * @param action acción que descartaría los cambios (ej: "reiniciar")
+     * @return true si no hay cambios o el usuario acepta descartarlos
+     */
+    private boolean confirmDiscardChanges(String action) {
+        if (!controller.hasUnsavedChanges()) {
+            return true;
+        }
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("Cambios sin guardar");
+        alert.setHeaderText(null);
+        String changes = controller.hasLanguageChanged() ?
+                "El AFD tiene cambios sin guardar que modifican el lenguaje aceptado." :
+                "El AFD tiene cambios sin guardar (el lenguaje aceptado es el mismo).";
+        alert.setContentText(changes + " ¿Deseas " + action + " de todos modos?");
+        return alert.showAndWait().filter(ButtonType.OK::equals).isPresent();
+    }
+    
+    /**
+     * Carga un AFD en segundo plano y actualiza la vista cuando termina
+     * @param file archivo JSON o .afdc
+     */
     public void loadAFDFromFile(File file) {
-        try {
-            controller.loadAFD(file);
+        AFDController current = controller;
+        Task<AFD> task = new Task<>() {
+            @Override
+            protected AFD call() throws Exception {
+                updateMessage("Cargando " + file.getName() + "...");
+                // Nadie más ve el AFD leído hasta que se publica, así que puede prepararse aquí
+                AFD loaded = current.readAFD(file);
+                loaded.compile();
+                loaded.canonicalForm();
+                return loaded;
+            }
+        };
+        taskBar.run(task, loaded -> {
+            controller.setLoadedAFD(loaded);
             refreshUIFromLoadedAFD();
             showAlert("Éxito", "AFD cargado correctamente desde: " + file.getAbsolutePath());
-        } catch (Exception e) {
-            showAlert("Error", "Error al cargar el AFD: " + e.getMessage());
-        }
+        }, error -> showAlert("Error", "Error al cargar el AFD: " + error.getMessage()));
     }
     
     private void handleBackToMenu() {
+        if (!confirmDiscardChanges("volver al menú")) {
+            return;
+        }
         try {
             // Crear nueva instancia del menú principal
             Stage menuStage = new Stage();
@@ -0,0 +1,330 @@
+package co.edu.uptc.view;
+
+import co.edu.uptc.model.CompiledAFD;
+import co.edu.uptc.model.LongIntMap;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Distribución de los estados de un AFD en el plano para dibujar su diagrama
+ * Parte de una distribución por capas (distancia en anchura desde el estado inicial) y la
+ * refina paso a paso con un modelo de fuerzas: los estados se repelen y las transiciones los
+ * atraen. La repulsión solo se calcula entre estados de celdas vecinas de una cuadrícula, así
+ * que cada paso cuesta O(estados + transiciones) y se puede ejecutar fuera del hilo de JavaFX
+ * publicando copias de las posiciones a medida que mejoran.
+ *
+ * Las transiciones entre el mismo par de estados se agrupan en una sola arista con todos sus
+ * símbolos. Los estados y las aristas no cambian y se pueden consultar desde cualquier hilo;
+ * las posiciones solo las modifica el hilo que ejecuta los pasos, y los demás trabajan con
+ * las copias devueltas por {@link #snapshot()}.
+ */
+public class DiagramLayout {
+    /** Distancia ideal entre estados conectados */
+    public static final float NODE_GAP = 80f;
+    
+    // Temperatura (desplazamiento máximo por paso) inicial y final
+    private static final float START_TEMPERATURE = NODE_GAP * 2;
+    private static final float MIN_TEMPERATURE = NODE_GAP * 0.02f;
+    private static final float COOLING = 0.97f;
+    
+    private final int stateCount;
+    private final String[] names;
+    private final boolean[] accepting;
+    private final int initialState;
+    private final int[] edgeFrom;        // aristas entre estados distintos
+    private final int[] edgeTo;
+    private final String[] edgeLabels;
+    private final String[] loopLabels;   // por estado: símbolos del bucle, o null
+    
+    private final float[] x;
+    private final float[] y;
+    private final float[] forceX;
+    private final float[] forceY;
+    private final int[] cellNext;        // siguiente estado en la misma celda
+    private final LongIntMap cellHead = new LongIntMap(-1);
+    private float temperature = START_TEMPERATURE;
+    private int steps;
+    
+    /**
+     * Crea la distribución inicial por capas de un AFD
+     * @param afd AFD compilado
+     */
+    public DiagramLayout(CompiledAFD afd) {
+        this.stateCount = afd.getStateCount();
+        this.names = new String[stateCount];
+        this.accepting = new boolean[stateCount];
+        this.initialState = afd.getInitialState();
+        for (int s = 0; s < stateCount; s++) {
+            names[s] = afd.getState(s).getName();
+            accepting[s] = afd.isAccepting(s);
+        }
+        
+        // Agrupar las transiciones por par de estados, con sus intervalos de símbolos
+        List<int[]> intervals = afd.getIntervals();
+        int[] slot = new int[stateCount];
+        Arrays.fill(slot, -1);
+        int[] targets = new int[stateCount];
+        StringBuilder[] labels = new StringBuilder[stateCount];
+        int[] from = new int[stateCount];
+        int[] to = new int[stateCount];
+        String[] edgeLabels = new String[stateCount];
+        int edgeCount = 0;
+        this.loopLabels = new String[stateCount];
+        for (int s = 0; s < stateCount; s++) {
+            int targetCount = 0;
+            for (int[] interval : intervals) {
+                int target = afd.getTransitionTable().next(s, interval[2]);
+                if (target == CompiledAFD.NO_STATE) {
+                    continue;
+                }
+                if (slot[target] < 0) {
+                    slot[target] = targetCount;
+                    targets[targetCount] = target;
+                    labels[targetCount] = new StringBuilder();
+                    targetCount++;
+                }
+                appendSymbols(labels[slot[target]], interval[0], interval[1]);
+            }
+            for (int i = 0; i < targetCount; i++) {
+                int target = targets[i];
+                slot[target] = -1;
+                if (target == s) {
+                    loopLabels[s] = labels[i].toString();
+                    continue;
+                }
+                if (edgeCount == from.length) {
+                    from = Arrays.copyOf(from, edgeCount * 2);
+                    to = Arrays.copyOf(to, edgeCount * 2);
+                    edgeLabels = Arrays.copyOf(edgeLabels, edgeCount * 2);
+                }
+                from[edgeCount] = s;
+                to[edgeCount] = target;
+                edgeLabels[edgeCount] = labels[i].toString();
+                edgeCount++;
+            }
+        }
+        this.edgeFrom = Arrays.copyOf(from, edgeCount);
+        this.edgeTo = Arrays.copyOf(to, edgeCount);
+        this.edgeLabels = Arrays.copyOf(edgeLabels, edgeCount);
+        
+        this.x = new float[stateCount];
+        this.y = new float[stateCount];
+        this.forceX = new float[stateCount];
+        this.forceY = new float[stateCount];
+        this.cellNext = new int[stateCount];
+        placeInLayers();
+    }
+    
+    private static void appendSymbols(StringBuilder label, int first, int last) {
+        if (label.length() > 0) {
+            label.append(',');
+        }
+        label.appendCodePoint(first);
+        if (last > first) {
+            label.append(last == first + 1 ? "," : "-").appendCodePoint(last);
+        }
+    }
+    
+    /**
+     * Distribución inicial: una columna por distancia desde el estado inicial; los estados
+     * inalcanzables van en una columna adicional
+     */
+    private void placeInLayers() {
+        int[] start = new int[stateCount + 1];
+        for (int e = 0; e < edgeFrom.length; e++) {
+            start[edgeFrom[e] + 1]++;
+        }
+        for (int s = 0; s < stateCount; s++) {
+            start[s + 1] += start[s];
+        }
+        int[] adjacent = new int[edgeFrom.length];
+        int[] filled = Arrays.copyOf(start, stateCount);
+        for (int e = 0; e < edgeFrom.length; e++) {
+            adjacent[filled[edgeFrom[e]]++] = edgeTo[e];
+        }
+        
+        int[] layer = new int[stateCount];
+        Arrays.fill(layer, -1);
+        int maxLayer = 0;
+        if (initialState != CompiledAFD.NO_STATE) {
+            ArrayDeque<Integer> pending = new ArrayDeque<>();
+            layer[initialState] = 0;
+            pending.add(initialState);
+            while (!pending.isEmpty()) {
+                int s = pending.poll();
+                for (int e = start[s]; e < start[s + 1]; e++) {
+                    if (layer[adjacent[e]] < 0) {
+                        layer[adjacent[e]] = layer[s] + 1;
+                        maxLayer = Math.max(maxLayer, layer[s] + 1);
+                        pending.add(adjacent[e]);
+                    }
+                }
+            }
+        }
+        int[] layerSize = new int[maxLayer + 2];
+        for (int s = 0; s < stateCount; s++) {
+            if (layer[s] < 0) {
+                layer[s] = maxLayer + 1;
+            }
+            layerSize[layer[s]]++;
+        }
+        int[] placed = new int[layerSize.length];
+        for (int s = 0; s < stateCount; s++) {
+            int l = layer[s];
+            x[s] = l * NODE_GAP * 1.5f;
+            y[s] = (placed[l]++ - (layerSize[l] - 1) / 2f) * NODE_GAP;
+        }
+    }
+    
+    /**
+     * Ejecuta un paso de refinamiento del modelo de fuerzas
+     * @return true si la distribución todavía puede mejorar, false si ya se estabilizó
+     */
+    public boolean step() {
+        if (isStable()) {
+            return false;
+        }
+        Arrays.fill(forceX, 0);
+        Arrays.fill(forceY, 0);
+        float gap2 = NODE_GAP * NODE_GAP;
+        
+        // Repulsión entre estados cercanos: cuadrícula con celdas del doble de la distancia ideal
+        float cellSize = NODE_GAP * 2;
+        cellHead.clear();
+        for (int s = 0; s < stateCount; s++) {
+            long key = cellKey((int) Math.floor(x[s] / cellSize), (int) Math.floor(y[s] / cellSize));
+            cellNext[s] = cellHead.put(key, s);
+        }
+        for (int s = 0; s < stateCount; s++) {
+            int cx = (int) Math.floor(x[s] / cellSize);
+            int cy = (int) Math.floor(y[s] / cellSize);
+            for (int i = -1; i <= 1; i++) {
+                for (int j = -1; j <= 1; j++) {
+                    for (int t = cellHead.get(cellKey(cx + i, cy + j)); t >= 0; t = cellNext[t]) {
+                        if (t == s) {
+                            continue;
+                        }
+                        float dx = x[s] - x[t];
+                        float dy = y[s] - y[t];
+                        float d2 = dx * dx + dy * dy;
+                        if (d2 < 1e-4f) {
+                            // Estados en la misma posición: separarlos en una dirección fija
+                            dx = (s - t) * 0.01f;
+                            dy = ((s * 31 + t) % 7 - 3) * 0.01f;
+                            d2 = dx * dx + dy * dy;
+                        }
+                        if (d2 < cellSize * cellSize) {
+                            float factor = gap2 / d2;
+                            forceX[s] += dx * factor;
+                            forceY[s] += dy * factor;
+                        }
+                    }
+                }
+            }
+        }
+        
+        // Atracción a lo largo de las aristas
+        for (int e = 0; e < edgeFrom.length; e++) {
+            int a = edgeFrom[e];
+            int b = edgeTo[e];
+            float dx = x[a] - x[b];
+            float dy = y[a] - y[b];
+            float d = (float) Math.sqrt(dx * dx + dy * dy);
+            float factor = d / NODE_GAP;
+            forceX[a] -= dx * factor;
+            forceY[a] -= dy * factor;
+            forceX[b] += dx * factor;
+            forceY[b] += dy * factor;
+        }
+        
+        // Mover cada estado como máximo la temperatura actual
+        for (int s = 0; s < stateCount; s++) {
+            float length = (float) Math.sqrt(forceX[s] * forceX[s] + forceY[s] * forceY[s]);
+            if (length > 0) {
+                float move = Math.min(length, temperature) / length;
+                x[s] += forceX[s] * move;
+                y[s] += forceY[s] * move;
+            }
+        }
+        temperature *= COOLING;
+        steps++;
+        return !isStable();
+    }
+    
+    private static long cellKey(int cx, int cy) {
+        return ((long) cx) << 32 | (cy & 0xffffffffL);
+    }
+    
+    /**
+     * Verifica si la distribución ya no cambia apreciablemente
+     * @return true si la temperatura llegó al mínimo
+     */
+    public boolean isStable() {
+        return temperature <= MIN_TEMPERATURE || stateCount < 2;
+    }
+    
+    /**
+     * Copia las posiciones actuales
+     * @return arreglo con x en las posiciones pares e y en las impares
+     */
+    public float[] snapshot() {
+        float[] positions = new float[stateCount * 2];
+        for (int s = 0; s < stateCount; s++) {
+            positions[2 * s] = x[s];
+            positions[2 * s + 1] = y[s];
+        }
+        return positions;
+    }
+    
+    public int getStateCount() {
+        return stateCount;
+    }
+    
+    public String getName(int state) {
+        return names[state];
+    }
+    
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+    
+    public int getInitialState() {
+        return initialState;
+    }
+    
+    public int getEdgeCount() {
+        return edgeFrom.length;
+    }
+    
+    public int getEdgeFrom(int edge) {
+        return edgeFrom[edge];
+    }
+    
+    public int getEdgeTo(int edge) {
+        return edgeTo[edge];
+    }
+    
+    /**
+     * Obtiene los símbolos de una arista, separados por comas (los rangos como a-z)
+     * @param edge índice de la arista
+     * @return símbolos de la arista
+     */
+    public String getEdgeLabel(int edge) {
+        return edgeLabels[edge];
+    }
+    
+    /**
+     * Obtiene los símbolos con los que un estado permanece en sí mismo
+     * @param state índice del estado
+     * @return símbolos del bucle, o null si no tiene
+     */
+    public String getLoopLabel(int state) {
+        return loopLabels[state];
+    }
+    
+    public int getSteps() {
+        return steps;
+    }
+}
@@ -0,0 +1,374 @@
+package co.edu.uptc.view;
+
+import co.edu.uptc.model.CompiledAFD;
+import co.edu.uptc.model.LongIntMap;
+import javafx.animation.AnimationTimer;
+import javafx.concurrent.Task;
+import javafx.geometry.VPos;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Diagrama de estados de un AFD dibujado sobre un único Canvas
+ * La distribución se calcula en un hilo propio ({@link DiagramLayout}) y el diagrama se
+ * redibuja con cada versión publicada, así que se ve mejorar mientras se refina. Se puede
+ * desplazar arrastrando con el ratón y acercar o alejar con la rueda.
+ *
+ * Para mantener la fluidez con miles de estados se dibuja como mucho una vez por pulso de
+ * JavaFX y solo lo visible; además el nivel de detalle depende del zoom:
+ * - De lejos los estados son puntos y las aristas se agrupan por celdas de pantalla: todas
+ *   las que van de una celda a otra se dibujan como una sola línea más gruesa.
+ * - A distancia media se dibujan círculos y líneas.
+ * - De cerca se añaden nombres, flechas, símbolos, bucles y estados finales.
+ */
+public class StateDiagramView extends Region {
+    // Radio de un estado en coordenadas del diagrama
+    private static final double RADIUS = 18;
+    // Radios en pantalla a partir de los que se dibujan círculos y detalles
+    private static final double CIRCLE_RADIUS = 3;
+    private static final double DETAIL_RADIUS = 10;
+    // Tamaño en pantalla de las celdas en que se agrupan las aristas de lejos
+    private static final double BUNDLE_CELL = 24;
+    // Aristas visibles a partir de las que se agrupan aunque se dibujen círculos
+    private static final int MAX_PLAIN_EDGES = 20000;
+    // Pasos de refinamiento entre dos publicaciones de la distribución
+    private static final int STEPS_PER_PUBLISH = 5;
+    
+    private final Canvas canvas = new Canvas();
+    private volatile DiagramLayout layout; // Se crea en el hilo de la distribución
+    private final AtomicReference<float[]> published = new AtomicReference<>();
+    private final AnimationTimer timer;
+    private final Task<Void> layoutTask;
+    private final LongIntMap bundleIndex = new LongIntMap(-1);
+    
+    private float[] positions = new float[0];
+    private double scale = 1;
+    private double offsetX;
+    private double offsetY;
+    private double dragX;
+    private double dragY;
+    private boolean autoFit = true; // Ajustar a la vista hasta que el usuario mueva el diagrama
+    private boolean dirty = true;
+    
+    /**
+     * Crea el diagrama de un AFD y empieza a refinar su distribución en segundo plano
+     * @param afd AFD compilado
+     */
+    public StateDiagramView(CompiledAFD afd) {
+        getChildren().add(canvas);
+        setStyle("-fx-background-color: white;");
+        
+        layoutTask = new Task<>() {
+            @Override
+            protected Void call() {
+                DiagramLayout layout = new DiagramLayout(afd);
+                StateDiagramView.this.layout = layout;
+                published.set(layout.snapshot());
+                int step = 0;
+                while (!isCancelled() && layout.step()) {
+                    if (++step % STEPS_PER_PUBLISH == 0) {
+                        published.set(layout.snapshot());
+                    }
+                }
+                published.set(layout.snapshot());
+                return null;
+            }
+        };
+        Thread worker = new Thread(layoutTask, "afd-diagram-layout");
+        worker.setDaemon(true);
+        worker.start();
+        
+        // Un dibujo como máximo por pulso, solo si algo cambió
+        timer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                float[] latest = published.getAndSet(null);
+                if (latest != null) {
+                    positions = latest;
+                    dirty = true;
+                    if (autoFit) {
+                        fitToView();
+                    }
+                }
+                if (dirty) {
+                    dirty = false;
+                    draw();
+                }
+            }
+        };
+        timer.start();
+        
+        setOnMousePressed(e -> {
+            autoFit = false;
+            dragX = e.getX();
+            dragY = e.getY();
+        });
+        setOnMouseDragged(e -> {
+            offsetX += e.getX() - dragX;
+            offsetY += e.getY() - dragY;
+            dragX = e.getX();
+            dragY = e.getY();
+            dirty = true;
+        });
+        setOnScroll(e -> {
+            autoFit = false;
+            double factor = Math.pow(1.0015, e.getDeltaY());
+            // Mantener fijo el punto bajo el cursor
+            offsetX = e.getX() - (e.getX() - offsetX) * factor;
+            offsetY = e.getY() - (e.getY() - offsetY) * factor;
+            scale *= factor;
+            dirty = true;
+        });
+    }
+    
+    /**
+     * Detiene el cálculo de la distribución y el dibujo; debe llamarse al cerrar la vista
+     */
+    public void dispose() {
+        layoutTask.cancel();
+        timer.stop();
+    }
+    
+    /**
+     * Ajusta el zoom y el desplazamiento para que se vea todo el diagrama
+     */
+    public void fitToView() {
+        if (positions.length == 0 || getWidth() <= 0 || getHeight() <= 0) {
+            return;
+        }
+        float minX = Float.MAX_VALUE;
+        float minY = Float.MAX_VALUE;
+        float maxX = -Float.MAX_VALUE;
+        float maxY = -Float.MAX_VALUE;
+        for (int i = 0; i < positions.length; i += 2) {
+            minX = Math.min(minX, positions[i]);
+            maxX = Math.max(maxX, positions[i]);
+            minY = Math.min(minY, positions[i + 1]);
+            maxY = Math.max(maxY, positions[i + 1]);
+        }
+        double width = maxX - minX + 4 * RADIUS;
+        double height = maxY - minY + 4 * RADIUS;
+        scale = Math.min(getWidth() / width, getHeight() / height);
+        offsetX = getWidth() / 2 - (minX + maxX) / 2 * scale;
+        offsetY = getHeight() / 2 - (minY + maxY) / 2 * scale;
+        dirty = true;
+    }
+    
+    @Override
+    protected void layoutChildren() {
+        if (canvas.getWidth() != getWidth() || canvas.getHeight() != getHeight()) {
+            canvas.setWidth(getWidth());
+            canvas.setHeight(getHeight());
+            if (autoFit) {
+                fitToView();
+            }
+            dirty = true;
+        }
+    }
+    
+    private void draw() {
+        GraphicsContext g = canvas.getGraphicsContext2D();
+        double width = canvas.getWidth();
+        double height = canvas.getHeight();
+        g.setFill(Color.WHITE);
+        g.fillRect(0, 0, width, height);
+        if (positions.length == 0) {
+            return; // La distribución todavía no está lista
+        }
+        double radius = RADIUS * scale;
+        
+        // Región visible en coordenadas del diagrama, con margen para los estados del borde
+        double margin = RADIUS * 2;
+        double minX = -offsetX / scale - margin;
+        double minY = -offsetY / scale - margin;
+        double maxX = (width - offsetX) / scale + margin;
+        double maxY = (height - offsetY) / scale + margin;
+        
+        int visibleEdges = countVisibleEdges(minX, minY, maxX, maxY);
+        if (radius < CIRCLE_RADIUS || visibleEdges > MAX_PLAIN_EDGES) {
+            drawBundledEdges(g, minX, minY, maxX, maxY);
+        } else {
+            drawEdges(g, minX, minY, maxX, maxY, radius >= DETAIL_RADIUS);
+        }
+        drawStates(g, minX, minY, maxX, maxY, radius);
+    }
+    
+    private boolean edgeVisible(int edge, double minX, double minY, double maxX, double maxY) {
+        float x1 = positions[2 * layout.getEdgeFrom(edge)];
+        float y1 = positions[2 * layout.getEdgeFrom(edge) + 1];
+        float x2 = positions[2 * layout.getEdgeTo(edge)];
+        float y2 = positions[2 * layout.getEdgeTo(edge) + 1];
+        return Math.max(x1, x2) >= minX && Math.min(x1, x2) <= maxX
+                && Math.max(y1, y2) >= minY && Math.min(y1, y2) <= maxY;
+    }
+    
+    private int countVisibleEdges(double minX, double minY, double maxX, double maxY) {
+        int count = 0;
+        for (int e = 0; e < layout.getEdgeCount(); e++) {
+            if (edgeVisible(e, minX, minY, maxX, maxY)) {
+                count++;
+            }
+        }
+        return count;
+    }
+    
+    /**
+     * Agrupa las aristas visibles por celda de origen y de destino en pantalla y dibuja una
+     * línea por grupo, entre los centros de sus extremos y más gruesa cuantas más agrupa
+     */
+    private void drawBundledEdges(GraphicsContext g, double minX, double minY, double maxX, double maxY) {
+        bundleIndex.clear();
+        int edgeCount = layout.getEdgeCount();
+        double[] sums = new double[Math.min(edgeCount, 1 << 12) * 4];
+        int[] counts = new int[sums.length / 4];
+        int bundles = 0;
+        for (int e = 0; e < edgeCount; e++) {
+            if (!edgeVisible(e, minX, minY, maxX, maxY)) {
+                continue;
+            }
+            int from = layout.getEdgeFrom(e);
+            int to = layout.getEdgeTo(e);
+            double x1 = positions[2 * from] * scale + offsetX;
+            double y1 = positions[2 * from + 1] * scale + offsetY;
+            double x2 = positions[2 * to] * scale + offsetX;
+            double y2 = positions[2 * to + 1] * scale + offsetY;
+            long key = cellOf(x1, y1) * 0x9E3779B97F4A7C15L + cellOf(x2, y2);
+            int bundle = bundleIndex.get(key);
+            if (bundle < 0) {
+                bundle = bundles++;
+                bundleIndex.put(key, bundle);
+                if (bundle == counts.length) {
+                    counts = Arrays.copyOf(counts, bundle * 2);
+                    sums = Arrays.copyOf(sums, bundle * 8);
+                }
+            }
+            counts[bundle]++;
+            sums[4 * bundle] += x1;
+            sums[4 * bundle + 1] += y1;
+            sums[4 * bundle + 2] += x2;
+            sums[4 * bundle + 3] += y2;
+        }
+        g.setStroke(Color.rgb(90, 110, 140, 0.35));
+        for (int b = 0; b < bundles; b++) {
+            int count = counts[b];
+            g.setLineWidth(Math.min(1 + Math.log(count), 6));
+            g.strokeLine(sums[4 * b] / count, sums[4 * b + 1] / count,
+                    sums[4 * b + 2] / count, sums[4 * b + 3] / count);
+        }
+    }
+    
+    private static long cellOf(double screenX, double screenY) {
+        return ((long) Math.floor(screenX / BUNDLE_CELL)) << 32 | ((long) Math.floor(screenY / BUNDLE_CELL) & 0xffffffffL);
+    }
+    
+    private void drawEdges(GraphicsContext g, double minX, double minY, double maxX, double maxY, boolean detail) {
+        double radius = RADIUS * scale;
+        g.setStroke(Color.rgb(90, 110, 140, detail ? 0.9 : 0.5));
+        g.setFill(Color.rgb(60, 60, 60));
+        g.setLineWidth(1);
+        g.setFont(Font.font(Math.min(12, radius * 0.7)));
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.BOTTOM);
+        for (int e = 0; e < layout.getEdgeCount(); e++) {
+            if (!edgeVisible(e, minX, minY, maxX, maxY)) {
+                continue;
+            }
+            int from = layout.getEdgeFrom(e);
+            int to = layout.getEdgeTo(e);
+            double x1 = positions[2 * from] * scale + offsetX;
+            double y1 = positions[2 * from + 1] * scale + offsetY;
+            double x2 = positions[2 * to] * scale + offsetX;
+            double y2 = positions[2 * to + 1] * scale + offsetY;
+            if (!detail) {
+                g.strokeLine(x1, y1, x2, y2);
+                continue;
+            }
+            // Arista curvada hacia un lado para que las de ida y vuelta no se superpongan
+            double dx = x2 - x1;
+            double dy = y2 - y1;
+            double length = Math.sqrt(dx * dx + dy * dy);
+            if (length < 2 * radius) {
+                continue;
+            }
+            double ux = dx / length;
+            double uy = dy / length;
+            double bend = Math.min(length * 0.15, radius * 2);
+            double cx = (x1 + x2) / 2 - uy * bend;
+            double cy = (y1 + y2) / 2 + ux * bend;
+            double startX = x1 + ux * radius;
+            double startY = y1 + uy * radius;
+            double endX = x2 - ux * radius;
+            double endY = y2 - uy * radius;
+            g.beginPath();
+            g.moveTo(startX, startY);
+            g.quadraticCurveTo(cx, cy, endX, endY);
+            g.stroke();
+            drawArrowHead(g, cx, cy, endX, endY, radius * 0.4);
+            g.fillText(layout.getEdgeLabel(e), (x1 + x2) / 2 * 0.5 + cx * 0.5, (y1 + y2) / 2 * 0.5 + cy * 0.5);
+        }
+    }
+    
+    private static void drawArrowHead(GraphicsContext g, double fromX, double fromY, double tipX, double tipY, double size) {
+        double angle = Math.atan2(tipY - fromY, tipX - fromX);
+        double spread = Math.PI / 7;
+        g.strokeLine(tipX, tipY, tipX - size * Math.cos(angle - spread), tipY - size * Math.sin(angle - spread));
+        g.strokeLine(tipX, tipY, tipX - size * Math.cos(angle + spread), tipY - size * Math.sin(angle + spread));
+    }
+    
+    private void drawStates(GraphicsContext g, double minX, double minY, double maxX, double maxY, double radius) {
+        int initial = layout.getInitialState();
+        boolean detail = radius >= DETAIL_RADIUS;
+        if (detail) {
+            g.setFont(Font.font(Math.min(14, radius * 0.6)));
+            g.setTextAlign(TextAlignment.CENTER);
+            g.setTextBaseline(VPos.CENTER);
+            g.setLineWidth(1.5);
+        }
+        for (int s = 0; s < layout.getStateCount(); s++) {
+            float x = positions[2 * s];
+            float y = positions[2 * s + 1];
+            if (x < minX || x > maxX || y < minY || y > maxY) {
+                continue;
+            }
+            double sx = x * scale + offsetX;
+            double sy = y * scale + offsetY;
+            Color color = s == initial ? Color.rgb(230, 126, 34) : layout.isAccepting(s) ? Color.rgb(39, 174, 96) : Color.rgb(52, 73, 94);
+            if (radius < CIRCLE_RADIUS) {
+                double size = Math.max(1.5, 2 * radius);
+                g.setFill(color);
+                g.fillRect(sx - size / 2, sy - size / 2, size, size);
+                continue;
+            }
+            g.setFill(detail ? Color.WHITE : color);
+            g.fillOval(sx - radius, sy - radius, 2 * radius, 2 * radius);
+            if (!detail) {
+                continue;
+            }
+            g.setStroke(color);
+            g.strokeOval(sx - radius, sy - radius, 2 * radius, 2 * radius);
+            if (layout.isAccepting(s)) {
+                double inner = radius * 0.8;
+                g.strokeOval(sx - inner, sy - inner, 2 * inner, 2 * inner);
+            }
+            if (s == initial) {
+                g.strokeLine(sx - radius * 2, sy, sx - radius, sy);
+                drawArrowHead(g, sx - radius * 2, sy, sx - radius, sy, radius * 0.4);
+            }
+            String loop = layout.getLoopLabel(s);
+            if (loop != null) {
+                g.strokeOval(sx - radius * 0.5, sy - radius * 1.9, radius, radius);
+                g.setFill(Color.rgb(60, 60, 60));
+                g.fillText(loop, sx, sy - radius * 2.2);
+            }
+            g.setFill(Color.BLACK);
+            g.fillText(layout.getName(s), sx, sy);
+        }
+    }
+}
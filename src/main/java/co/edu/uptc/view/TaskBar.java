@@ -0,0 +1,174 @@
+package co.edu.uptc.view;
+
+import javafx.application.Platform;
+import javafx.concurrent.Task;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.Label;
+import javafx.scene.control.ProgressBar;
+import javafx.scene.control.TextArea;
+import javafx.scene.layout.HBox;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+/**
+ * Barra que ejecuta operaciones largas de la vista en segundo plano
+ * Las tareas se ejecutan en hilos propios para no bloquear el hilo de JavaFX; la barra muestra
+ * el progreso y el mensaje de la última tarea iniciada y permite cancelar las que están en curso.
+ * Solo es visible mientras hay alguna tarea en ejecución.
+ */
+public class TaskBar extends HBox {
+    // Hilos compartidos por todas las vistas; no impiden que la aplicación termine
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "afd-ui-task");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final ProgressBar progressBar = new ProgressBar();
+    private final Label messageLabel = new Label();
+    private final Button cancelButton = new Button("Cancelar");
+    private final List<Task<?>> running = new ArrayList<>();
+    
+    public TaskBar() {
+        super(10);
+        setAlignment(Pos.CENTER_LEFT);
+        progressBar.setPrefWidth(200);
+        cancelButton.setOnAction(e -> cancelAll());
+        getChildren().addAll(progressBar, messageLabel, cancelButton);
+        setVisible(false);
+        managedProperty().bind(visibleProperty());
+    }
+    
+    /**
+     * Ejecuta una tarea en segundo plano. Debe llamarse desde el hilo de JavaFX; los
+     * callbacks también se ejecutan en él.
+     * @param task tarea a ejecutar
+     * @param onSuccess recibe el resultado si la tarea termina correctamente
+     * @param onFailure recibe el error si la tarea falla (no se llama si se cancela)
+     * @param <T> tipo del resultado
+     */
+    public <T> void run(Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure) {
+        run(task, onSuccess, onFailure, () -> { });
+    }
+    
+    /**
+     * Ejecuta una tarea en segundo plano. Debe llamarse desde el hilo de JavaFX; los
+     * callbacks también se ejecutan en él.
+     * @param task tarea a ejecutar
+     * @param onSuccess recibe el resultado si la tarea termina correctamente
+     * @param onFailure recibe el error si la tarea falla (no se llama si se cancela)
+     * @param onCancelled se ejecuta si la tarea se cancela
+     * @param <T> tipo del resultado
+     */
+    public <T> void run(Task<T> task, Consumer<T> onSuccess, Consumer<Throwable> onFailure, Runnable onCancelled) {
+        task.setOnSucceeded(e -> {
+            finished(task);
+            onSuccess.accept(task.getValue());
+        });
+        task.setOnFailed(e -> {
+            finished(task);
+            onFailure.accept(task.getException());
+        });
+        task.setOnCancelled(e -> {
+            finished(task);
+            onCancelled.run();
+        });
+        
+        running.add(task);
+        progressBar.progressProperty().bind(task.progressProperty());
+        messageLabel.textProperty().bind(task.messageProperty());
+        setVisible(true);
+        EXECUTOR.execute(task);
+    }
+    
+    /**
+     * Cancela una tarea si todavía está en curso
+     * @param task tarea a cancelar (puede ser null)
+     */
+    public void cancel(Task<?> task) {
+        if (task != null && task.isRunning()) {
+            task.cancel();
+        }
+    }
+    
+    /**
+     * Cancela todas las tareas en curso
+     */
+    public void cancelAll() {
+        for (Task<?> task : new ArrayList<>(running)) {
+            task.cancel();
+        }
+    }
+    
+    private void finished(Task<?> task) {
+        running.remove(task);
+        if (running.isEmpty()) {
+            progressBar.progressProperty().unbind();
+            messageLabel.textProperty().unbind();
+            setVisible(false);
+        } else {
+            Task<?> latest = running.get(running.size() - 1);
+            progressBar.progressProperty().bind(latest.progressProperty());
+            messageLabel.textProperty().bind(latest.messageProperty());
+        }
+    }
+    
+    /**
+     * Agrega texto a un área de texto desde cualquier hilo, por lotes: los fragmentos que
+     * llegan mientras el hilo de JavaFX está ocupado se juntan en una sola actualización
+     */
+    public static class TextBatcher {
+        private final TextArea area;
+        private final StringBuilder pending = new StringBuilder();
+        private boolean scheduled;
+        private boolean closed;
+        
+        /**
+         * Constructor del agrupador
+         * @param area área de texto de destino
+         */
+        public TextBatcher(TextArea area) {
+            this.area = area;
+        }
+        
+        /**
+         * Agrega un fragmento de texto al siguiente lote
+         * @param text texto a agregar
+         */
+        public synchronized void append(CharSequence text) {
+            if (closed) {
+                return;
+            }
+            pending.append(text);
+            if (!scheduled) {
+                scheduled = true;
+                Platform.runLater(this::flush);
+            }
+        }
+        
+        /**
+         * Descarta el texto pendiente y los fragmentos que lleguen después
+         */
+        public synchronized void close() {
+            closed = true;
+            pending.setLength(0);
+        }
+        
+        private void flush() {
+            String batch;
+            synchronized (this) {
+                batch = pending.toString();
+                pending.setLength(0);
+                scheduled = false;
+            }
+            if (!batch.isEmpty()) {
+                area.appendText(batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package co.edu.uptc.view;
+
+import co.edu.uptc.model.Alphabet;
+import javafx.beans.property.ReadOnlyObjectWrapper;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableView;
+import javafx.scene.paint.Color;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * Editor de la matriz de transiciones (estado × símbolo -> estado destino)
+ * Las transiciones se guardan en un arreglo de enteros y la tabla solo crea celdas para las
+ * filas visibles, así que el costo no depende del número de estados. Todas las celdas
+ * comparten un único selector de estado, que se crea la primera vez que se edita una celda
+ * y se mueve a la celda que se está editando.
+ */
+public class TransitionTableEditor extends TableView<Integer> {
+    /** Valor de una transición todavía no definida */
+    public static final int UNDEFINED = -1;
+    
+    private String[] states = new String[0];
+    private int[] symbols = new int[0]; // intervalos {primero, último} de cada columna
+    private int columnCount;
+    private int[] targets = new int[0]; // (estado * columnas + columna) -> estado destino
+    private int undefinedCount;
+    
+    private final ObservableList<String> stateNames = FXCollections.observableArrayList();
+    private ComboBox<String> picker; // Selector compartido, se crea al editar por primera vez
+    private TargetCell pickerOwner;  // Celda que está usando el selector
+    
+    public TransitionTableEditor() {
+        setEditable(true);
+        getSelectionModel().setCellSelectionEnabled(true);
+        setPlaceholder(new Label("Construye la matriz para definir las transiciones"));
+        setFixedCellSize(28);
+    }
+    
+    /**
+     * Prepara la matriz para unos estados y símbolos, con todas las transiciones sin definir
+     * @param states nombres de los estados (filas)
+     * @param symbols intervalos de puntos de código de las columnas, como
+     *        {primero0, último0, primero1, último1, ...}; un rango ocupa una sola columna
+     */
+    public void setModel(String[] states, int[] symbols) {
+        this.states = states.clone();
+        this.symbols = symbols.clone();
+        this.columnCount = symbols.length / 2;
+        this.targets = new int[states.length * columnCount];
+        Arrays.fill(targets, UNDEFINED);
+        this.undefinedCount = targets.length;
+        stateNames.setAll(states);
+        
+        TableColumn<Integer, String> stateColumn = new TableColumn<>("");
+        stateColumn.setCellValueFactory(row -> new ReadOnlyObjectWrapper<>(this.states[row.getValue()]));
+        stateColumn.setSortable(false);
+        stateColumn.setEditable(false);
+        stateColumn.setStyle("-fx-font-weight: bold;");
+        getColumns().clear();
+        getColumns().add(stateColumn);
+        for (int j = 0; j < columnCount; j++) {
+            getColumns().add(symbolColumn(j));
+        }
+        
+        // Filas: el índice de cada estado, sin guardar un objeto por fila
+        int rowCount = states.length;
+        setItems(FXCollections.observableList(new AbstractList<Integer>() {
+            @Override
+            public Integer get(int index) {
+                return index;
+            }
+            
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        }));
+    }
+    
+    private TableColumn<Integer, Integer> symbolColumn(int symbol) {
+        TableColumn<Integer, Integer> column = new TableColumn<>(
+                Alphabet.formatInterval(symbols[2 * symbol], symbols[2 * symbol + 1]));
+        column.setCellValueFactory(row -> new ReadOnlyObjectWrapper<>(getTarget(row.getValue(), symbol)));
+        column.setCellFactory(c -> new TargetCell());
+        column.setOnEditCommit(event -> setTarget(event.getRowValue(), symbol, event.getNewValue()));
+        column.setSortable(false);
+        column.setPrefWidth(90);
+        return column;
+    }
+    
+    /**
+     * Vacía la matriz
+     */
+    public void clear() {
+        setModel(new String[0], new int[0]);
+        getColumns().clear();
+    }
+    
+    /**
+     * Obtiene el destino de una transición
+     * @param state índice del estado de origen
+     * @param symbol índice de la columna
+     * @return índice del estado destino, o UNDEFINED
+     */
+    public int getTarget(int state, int symbol) {
+        return targets[state * columnCount + symbol];
+    }
+    
+    /**
+     * Define el destino de una transición
+     * @param state índice del estado de origen
+     * @param symbol índice de la columna
+     * @param target índice del estado destino, o UNDEFINED
+     */
+    public void setTarget(int state, int symbol, int target) {
+        int index = state * columnCount + symbol;
+        if (targets[index] == UNDEFINED) {
+            undefinedCount--;
+        }
+        if (target == UNDEFINED) {
+            undefinedCount++;
+        }
+        targets[index] = target;
+    }
+    
+    /**
+     * Obtiene el número de transiciones sin definir
+     * @return transiciones sin destino
+     */
+    public int getUndefinedCount() {
+        return undefinedCount;
+    }
+    
+    /**
+     * Selecciona y muestra la primera transición sin definir
+     * @return true si había alguna
+     */
+    public boolean focusFirstUndefined() {
+        for (int i = 0; i < targets.length; i++) {
+            if (targets[i] == UNDEFINED) {
+                int row = i / columnCount;
+                scrollTo(row);
+                getSelectionModel().clearAndSelect(row, getColumns().get(i % columnCount + 1));
+                requestFocus();
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public String[] getStates() {
+        return states.clone();
+    }
+    
+    /**
+     * Obtiene los intervalos de las columnas
+     * @return {primero0, último0, primero1, último1, ...}
+     */
+    public int[] getSymbols() {
+        return symbols.clone();
+    }
+    
+    private ComboBox<String> getPicker() {
+        if (picker == null) {
+            picker = new ComboBox<>(stateNames);
+            picker.setMaxWidth(Double.MAX_VALUE);
+            picker.setVisibleRowCount(12);
+            picker.setOnAction(e -> {
+                if (pickerOwner != null && pickerOwner.isEditing()) {
+                    int selected = picker.getSelectionModel().getSelectedIndex();
+                    if (selected >= 0) {
+                        pickerOwner.commitEdit(selected);
+                    }
+                }
+            });
+        }
+        return picker;
+    }
+    
+    /**
+     * Celda con el nombre del estado destino; al editarla muestra el selector compartido
+     */
+    private class TargetCell extends TableCell<Integer, Integer> {
+        TargetCell() {
+            setContentDisplay(ContentDisplay.TEXT_ONLY);
+        }
+        
+        @Override
+        public void startEdit() {
+            if (isEmpty()) {
+                return;
+            }
+            super.startEdit();
+            if (!isEditing()) {
+                return;
+            }
+            ComboBox<String> shared = getPicker();
+            pickerOwner = null; // Evita que cambiar el valor confirme la edición
+            Integer target = getItem();
+            if (target != null && target != UNDEFINED) {
+                shared.getSelectionModel().select(target.intValue());
+            } else {
+                shared.getSelectionModel().clearSelection();
+            }
+            pickerOwner = this;
+            setGraphic(shared);
+            setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+            shared.requestFocus();
+            shared.show();
+        }
+        
+        @Override
+        public void cancelEdit() {
+            super.cancelEdit();
+            release();
+        }
+        
+        @Override
+        public void commitEdit(Integer target) {
+            super.commitEdit(target);
+            release();
+        }
+        
+        private void release() {
+            if (pickerOwner == this) {
+                pickerOwner = null;
+                picker.hide();
+            }
+            setGraphic(null);
+            setContentDisplay(ContentDisplay.TEXT_ONLY);
+        }
+        
+        @Override
+        protected void updateItem(Integer target, boolean empty) {
+            super.updateItem(target, empty);
+            if (empty || target == null) {
+                setText(null);
+            } else if (target == UNDEFINED) {
+                setText("—");
+                setTextFill(Color.RED);
+            } else {
+                setText(states[target]);
+                setTextFill(Color.BLACK);
+            }
+        }
+    }
+}